@@ -0,0 +1,59 @@
+/*
+ * Generated GExport dumps for the benchmarks.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.GExportGenerator;
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Sets up the {@link GExportGenerator} for the benchmarks, so they parse
+ * the same dumps as the load tests.
+ *
+ * The dumps have one BSC6900GSM NE and a fixed timestamp, and the same
+ * settings give the same dump.
+ *
+ * @author info@bodastage.com
+ */
+class BenchmarkDumps {
+
+    static final String NE_TYPE = "BSC6900GSM";
+
+    private BenchmarkDumps() {
+    }
+
+    /**
+     * Generator of a dump with one NE.
+     *
+     * @param directory Directory the dump is written to
+     * @return GExportGenerator
+     */
+    static GExportGenerator generator(File directory, int classes, int objectsPerClass,
+            int parametersPerObject, int switchPercentage) {
+        GExportGenerator generator = new GExportGenerator();
+        generator.setOutputDirectory(directory.getAbsolutePath());
+        generator.setNETypes(Arrays.asList(NE_TYPE));
+        generator.setClasses(classes);
+        generator.setObjectsPerClass(objectsPerClass);
+        generator.setParametersPerObject(parametersPerObject);
+        generator.setSwitchPercentage(switchPercentage);
+        generator.setTimestamp("20180101000000");
+        return generator;
+    }
+
+    /**
+     * Delete a directory and its files.
+     */
+    static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Benchmarks of csv value formatting.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.CsvWriter;
+import com.bodastage.boda_huaweicmobjectparser.HuaweiCMObjectParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formats a row of plain, comma and quote values with toCSVFormat and with
+ * CsvWriter.appendValue.
+ *
+ * @author info@bodastage.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvBenchmark {
+
+    private String[] values = {"ENABLE", "DISABLE", "12345", "BSC1,CELL2", "Say \"hi\"",
+        "0", "1", "NULL", "V900R019C10", "a,b,\"c\""};
+
+    private HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+
+    private StringBuilder row = new StringBuilder(256);
+
+    @Benchmark
+    public String toCSVFormat() {
+        String row = "";
+        for (String value : values) {
+            row += "," + parser.toCSVFormat(value);
+        }
+        return row;
+    }
+
+    @Benchmark
+    public StringBuilder appendValue() {
+        row.setLength(0);
+        for (String value : values) {
+            CsvWriter.appendValue(row.append(','), value);
+        }
+        return row;
+    }
+}
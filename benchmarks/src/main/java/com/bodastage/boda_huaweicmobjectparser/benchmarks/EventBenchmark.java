@@ -0,0 +1,135 @@
+/*
+ * Benchmarks of the parser's event handlers.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.GExportGenerator;
+import com.bodastage.boda_huaweicmobjectparser.HuaweiCMObjectParser;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays the events of one MO object on the parser's handlers.
+ *
+ * discoverObject collects the object's parameters as the discovery pass
+ * does. writeObject builds the object's csv row and writes it as the values
+ * pass does. One operation is one object so -prof gc gives the allocation
+ * per object.
+ *
+ * @author info@bodastage.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBenchmark {
+
+    @Param({"20"})
+    public int parametersPerObject;
+
+    @Param({"10"})
+    public int switchPercentage;
+
+    private String[] names;
+
+    private String[] values;
+
+    private HuaweiCMObjectParser discoveryParser;
+
+    private HuaweiCMObjectParser valuesParser;
+
+    private File directory;
+
+    private File outputDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        //Parse a dump with the same object so the values parser knows its
+        //columns
+        directory = Files.createTempDirectory("gexport").toFile();
+        outputDirectory = new File(directory, "out");
+        outputDirectory.mkdir();
+        GExportGenerator generator = BenchmarkDumps.generator(directory, 1, 1,
+                parametersPerObject, switchPercentage);
+        File dump = generator.generate().get(0);
+
+        List<String> objectNames = new ArrayList<String>();
+        List<String> objectValues = new ArrayList<String>();
+        generator.getFirstObject(objectNames, objectValues);
+        names = objectNames.toArray(new String[objectNames.size()]);
+        values = objectValues.toArray(new String[objectValues.size()]);
+
+        discoveryParser = new HuaweiCMObjectParser();
+        startMOClass(discoveryParser);
+
+        valuesParser = new HuaweiCMObjectParser();
+        valuesParser.setDataSource(dump.getAbsolutePath());
+        valuesParser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        valuesParser.parse();
+        startMOClass(valuesParser);
+    }
+
+    private void startMOClass(HuaweiCMObjectParser parser) {
+        parser.startClassEvent(BenchmarkDumps.NE_TYPE);
+        parser.startObjectEvent("GSM", "Huawei", "V900R019C10");
+        parser.startClassEvent(GExportGenerator.getClassName(BenchmarkDumps.NE_TYPE, 0));
+    }
+
+    /**
+     * Close and delete the csv files written in an iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteOutput() throws Exception {
+        valuesParser.closeMOPWMap();
+        File[] files = outputDirectory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDumps.delete(outputDirectory);
+        BenchmarkDumps.delete(directory);
+    }
+
+    private void replayObject(HuaweiCMObjectParser parser) throws Exception {
+        parser.startObjectEvent(null, null, null);
+        for (int i = 0; i < names.length; i++) {
+            parser.parameterEvent(names[i], values[i]);
+        }
+        parser.endELementEvent("object");
+    }
+
+    @Benchmark
+    public void discoverObject() throws Exception {
+        replayObject(discoveryParser);
+    }
+
+    @Benchmark
+    public void writeObject() throws Exception {
+        replayObject(valuesParser);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Benchmarks of the parser's input paths.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.MappedFileInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads a generated dump through the different input paths.
+ *
+ * The read benchmarks only read the dump, the pull benchmarks also pull its
+ * XML events with StAX. The reader paths decode the dump with the platform's
+ * default charset like the parser did before version 1.0.15. The stream
+ * paths let the XML reader decode it with the encoding declared in the XML
+ * prolog. The bytes counter gives the bytes of the dump read per second.
+ *
+ * @author info@bodastage.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InputBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"10"})
+    public int classes;
+
+    @Param({"1000"})
+    public int objectsPerClass;
+
+    @Param({"20"})
+    public int parametersPerObject;
+
+    @Param({"10"})
+    public int switchPercentage;
+
+    private File directory;
+
+    private File dump;
+
+    private XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    /**
+     * Bytes of the dump read.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void writeDump() throws Exception {
+        directory = Files.createTempDirectory("gexport").toFile();
+        dump = BenchmarkDumps.generator(directory, classes, objectsPerClass,
+                parametersPerObject, switchPercentage).generate().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDump() {
+        BenchmarkDumps.delete(directory);
+    }
+
+    @Benchmark
+    public long readFileReader(Bytes counter) throws IOException {
+        Reader reader = new FileReader(dump);
+        char[] buf = new char[BUFFER_SIZE];
+        long count = 0;
+        try {
+            for (int n; (n = reader.read(buf)) != -1;) {
+                count += n;
+            }
+        } finally {
+            reader.close();
+        }
+        counter.bytes += dump.length();
+        return count;
+    }
+
+    @Benchmark
+    public long readMappedFile(Bytes counter) throws IOException {
+        InputStream in = new MappedFileInputStream(dump.getAbsolutePath());
+        byte[] buf = new byte[BUFFER_SIZE];
+        long count = 0;
+        try {
+            for (int n; (n = in.read(buf)) != -1;) {
+                count += n;
+            }
+        } finally {
+            in.close();
+        }
+        counter.bytes += dump.length();
+        return count;
+    }
+
+    @Benchmark
+    public long pullFileReader(Bytes counter) throws IOException, XMLStreamException {
+        Reader reader = new FileReader(dump);
+        try {
+            return pull(factory.createXMLStreamReader(reader), counter);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public long pullFileInputStream(Bytes counter) throws IOException, XMLStreamException {
+        InputStream in = new FileInputStream(dump);
+        try {
+            return pull(factory.createXMLStreamReader(in), counter);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long pullMappedFile(Bytes counter) throws IOException, XMLStreamException {
+        InputStream in = new MappedFileInputStream(dump.getAbsolutePath());
+        try {
+            return pull(factory.createXMLStreamReader(in), counter);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Pull the XML events of the dump.
+     *
+     * @return long The number of events
+     */
+    private long pull(XMLStreamReader reader, Bytes counter) throws XMLStreamException {
+        long count = 0;
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+        } finally {
+            reader.close();
+        }
+        counter.bytes += dump.length();
+        return count;
+    }
+}
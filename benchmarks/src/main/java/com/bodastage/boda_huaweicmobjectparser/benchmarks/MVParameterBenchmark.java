@@ -0,0 +1,87 @@
+/*
+ * Benchmarks of switch value detection and splitting.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.GExportGenerator;
+import com.bodastage.boda_huaweicmobjectparser.MVParameterClassifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Detects and splits the switch values of an object's parameters with the
+ * regular expressions the parser used before and with
+ * MVParameterClassifier.
+ *
+ * @author info@bodastage.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MVParameterBenchmark {
+
+    @Param({"20"})
+    public int parametersPerObject;
+
+    @Param({"10", "50"})
+    public int switchPercentage;
+
+    private String[] values;
+
+    private List<String> names = new ArrayList<String>();
+
+    private List<String> childValues = new ArrayList<String>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GExportGenerator generator = new GExportGenerator();
+        generator.setParametersPerObject(parametersPerObject);
+        generator.setSwitchPercentage(switchPercentage);
+        List<String> objectValues = new ArrayList<String>();
+        generator.getFirstObject(new ArrayList<String>(), objectValues);
+        values = objectValues.toArray(new String[objectValues.size()]);
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String value : values) {
+            if (value.matches("[^-]+-[^-]+.*")) {
+                for (String v : value.split("&")) {
+                    String[] vArray = v.split("-");
+                    blackhole.consume(vArray[0]);
+                    blackhole.consume(vArray[1]);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void classifier(Blackhole blackhole) {
+        for (String value : values) {
+            if (MVParameterClassifier.isMVValue(value)) {
+                MVParameterClassifier.split(value, names, childValues);
+                blackhole.consume(names);
+                blackhole.consume(childValues);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Benchmarks of parsing whole dumps.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser.benchmarks;
+
+import com.bodastage.boda_huaweicmobjectparser.HuaweiCMObjectParser;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a generated dump with each engine.
+ *
+ * parse runs both passes and writes the csv files, parseFile runs the
+ * parameter discovery pass only. The objects counter gives the objects
+ * parsed per second. Divide gc.alloc.rate.norm from -prof gc by the number
+ * of objects in the dump for the allocation per object.
+ *
+ * @author info@bodastage.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"10"})
+    public int classes;
+
+    @Param({"1000"})
+    public int objectsPerClass;
+
+    @Param({"20"})
+    public int parametersPerObject;
+
+    @Param({"10"})
+    public int switchPercentage;
+
+    @Param({"stax", "scanner"})
+    public String engine;
+
+    private File directory;
+
+    private File dump;
+
+    private File outputDirectory;
+
+    private int objects;
+
+    /**
+     * Objects parsed.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Objects {
+
+        public long objects;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            objects = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void writeDump() throws Exception {
+        directory = Files.createTempDirectory("gexport").toFile();
+        outputDirectory = new File(directory, "out");
+        outputDirectory.mkdir();
+
+        dump = BenchmarkDumps.generator(directory, classes, objectsPerClass,
+                parametersPerObject, switchPercentage).generate().get(0);
+        objects = classes * objectsPerClass;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDump() {
+        BenchmarkDumps.delete(outputDirectory);
+        BenchmarkDumps.delete(directory);
+    }
+
+    private HuaweiCMObjectParser createParser() {
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dump.getAbsolutePath());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setUseScanner(engine.equals("scanner"));
+        return parser;
+    }
+
+    @Benchmark
+    public HuaweiCMObjectParser parse(Objects counter) throws Exception {
+        HuaweiCMObjectParser parser = createParser();
+        parser.parse();
+        counter.objects += objects;
+        return parser;
+    }
+
+    @Benchmark
+    public HuaweiCMObjectParser parseFile(Objects counter) throws Exception {
+        HuaweiCMObjectParser parser = createParser();
+        parser.parseFile(dump.getAbsolutePath());
+        counter.objects += objects;
+        return parser;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Input stream counting the bytes read.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a dump. The count is the position of the
+ * parser in the dump, ahead of the tag being parsed by at most the size of
+ * the parser's read buffer.
+ *
+ * @author info@bodastage.com
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private long count = 0;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Number of bytes read or skipped.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
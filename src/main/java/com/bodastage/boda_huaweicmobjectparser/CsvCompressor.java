@@ -0,0 +1,277 @@
+/*
+ * Gzip compression of the MO csv files.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens the MO csv files as gzip files named CLASSNAME.csv.gz.
+ *
+ * The rows are deflated at the given level through large buffers. With
+ * asynchronous compression the parser only copies the rows into chunks,
+ * which are deflated and written by a compression thread shared by all the
+ * files. At most {@link #MAX_PENDING_CHUNKS} chunks wait for the compression
+ * thread, so the parser is slowed down to the speed of deflate instead of
+ * holding the output in memory.
+ *
+ * A file opened in append mode gets a new gzip member. gzip and
+ * GZIPInputStream read the concatenated members as one file.
+ *
+ * @author info@bodastage.com
+ */
+public class CsvCompressor implements Closeable {
+
+    /**
+     * Extension of the compressed csv files.
+     */
+    public static final String EXTENSION = ".gz";
+
+    /**
+     * Default compression level, the level of the gzip command.
+     */
+    public static final int DEFAULT_LEVEL = 6;
+
+    /**
+     * Size of the buffers in front of and behind the deflater. A pool of
+     * open csv files holds two of them per file.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Chunks waiting for the compression thread.
+     */
+    public static final int MAX_PENDING_CHUNKS = 16;
+
+    private int level;
+
+    private boolean async;
+
+    private ExecutorService executor = null;
+
+    private Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+
+    /**
+     * @param level Compression level from 0 to 9
+     * @param async Compress on a separate thread
+     */
+    public CsvCompressor(int level, boolean async) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+        this.async = async;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * The compressed file of a csv file.
+     *
+     * @param csvFile
+     * @return File
+     */
+    public static File getFile(File csvFile) {
+        return new File(csvFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Open the compressed file of a csv file. The stream must be closed to
+     * complete the file.
+     *
+     * @param csvFile Csv file without the gzip extension
+     * @param append Add a gzip member to the existing file
+     * @return OutputStream
+     * @throws IOException
+     */
+    public OutputStream open(File csvFile, boolean append) throws IOException {
+        OutputStream out = new GzipStream(
+                new FileOutputStream(getFile(csvFile), append), level);
+        if (!async) {
+            return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+        return new AsyncStream(out, getExecutor());
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "csv-compressor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stop the compression thread once the files opened so far are
+     * written. The thread is started again by the next file opened.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        } finally {
+            executor = null;
+        }
+    }
+
+    /**
+     * Gzip stream with a compression level.
+     */
+    private static class GzipStream extends GZIPOutputStream {
+
+        GzipStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * Hands chunks of the written bytes to the compression thread.
+     */
+    private class AsyncStream extends OutputStream {
+
+        private OutputStream out;
+
+        private ExecutorService executor;
+
+        private byte[] chunk = new byte[BUFFER_SIZE];
+
+        private int count = 0;
+
+        /**
+         * First error of the compression thread.
+         */
+        private volatile IOException error = null;
+
+        AsyncStream(OutputStream out, ExecutorService executor) {
+            this.out = out;
+            this.executor = executor;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == chunk.length) {
+                submitChunk();
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunk.length) {
+                    submitChunk();
+                }
+                int n = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void submitChunk() throws IOException {
+            checkError();
+            try {
+                pendingChunks.acquire();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            }
+
+            final OutputStream target = out;
+            final byte[] data = chunk;
+            final int length = count;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (error == null) {
+                            target.write(data, 0, length);
+                        }
+                    } catch (IOException e) {
+                        error = e;
+                    } finally {
+                        pendingChunks.release();
+                    }
+                }
+            });
+            chunk = new byte[BUFFER_SIZE];
+            count = 0;
+        }
+
+        private void checkError() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        /**
+         * Wait until the compression thread has written the file.
+         */
+        @Override
+        public void close() throws IOException {
+            if (out == null) {
+                return;
+            }
+            if (count > 0) {
+                submitChunk();
+            }
+
+            final OutputStream target = out;
+            out = null;
+            Future<?> closed = executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        target.close();
+                    } catch (IOException e) {
+                        if (error == null) {
+                            error = e;
+                        }
+                    }
+                }
+            });
+            try {
+                closed.get();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+            checkError();
+        }
+    }
+}
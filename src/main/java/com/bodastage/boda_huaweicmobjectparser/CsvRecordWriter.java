@@ -0,0 +1,146 @@
+/*
+ * Writes MO records to the MO csv files.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The record listener of the parser's csv output. Each MO is written to
+ * its csv file in a {@link MOWriterPool} with a header line of its columns.
+ *
+ * By default the meta fields are the first columns. With a parameter
+ * configuration the columns are the configured parameters, meta fields
+ * listed among them are filled in and the values of multivalued parameters
+ * are split into the values of their switches.
+ *
+ * Unlike other listeners, the parser also passes it the end of each NE
+ * object as a record of the NE's last MO without values, so the csv files
+ * keep the empty row they have always had for it.
+ *
+ * @author info@bodastage.com
+ */
+public class CsvRecordWriter implements MORecordListener {
+
+    private MOWriterPool writerPool;
+
+    private boolean metaFields = true;
+
+    /**
+     * Multivalued parameters as MO_PARAMETER.
+     */
+    private Map<String, ?> multiValueParameters = Collections.emptyMap();
+
+    /**
+     * Csv row of the current record. It is reused for every row.
+     */
+    private StringBuilder row = new StringBuilder(1024);
+
+    public CsvRecordWriter(MOWriterPool writerPool) {
+        this.writerPool = writerPool;
+    }
+
+    /**
+     * Start each row with the meta fields.
+     *
+     * @param metaFields
+     */
+    public void setMetaFields(boolean metaFields) {
+        this.metaFields = metaFields;
+    }
+
+    /**
+     * Set the parameters whose values are split into their switch values.
+     *
+     * @param multiValueParameters Keys are MO_PARAMETER
+     */
+    public void setMultiValueParameters(Map<String, ?> multiValueParameters) {
+        this.multiValueParameters = multiValueParameters;
+    }
+
+    public MOWriterPool getWriterPool() {
+        return writerPool;
+    }
+
+    /**
+     * Write a record to the csv file of its MO. The file is created with its
+     * header the first time.
+     *
+     * @param record
+     * @throws IOException
+     */
+    public void record(MORecord record) throws IOException {
+        String className = record.getClassName();
+        boolean newFile = !writerPool.hasFile(className);
+        CsvWriter csvWriter = writerPool.getWriter(className);
+        if (newFile) {
+            csvWriter.writeRow(getHeader(record.getColumns()));
+        }
+        csvWriter.writeRow(metaFields ? getRow(record) : getConfiguredRow(record));
+    }
+
+    private String getHeader(MOColumns columns) {
+        StringBuilder header = new StringBuilder();
+        if (metaFields) {
+            for (String name : MORecord.META_FIELDS) {
+                header.append(',').append(name);
+            }
+        }
+        for (String name : columns) {
+            header.append(',').append(name);
+        }
+        return header.length() > 0 ? header.substring(1) : "";
+    }
+
+    private StringBuilder getRow(MORecord record) {
+        row.setLength(0);
+        row.append(record.getFileName()).append(',').append(record.getDateTime())
+                .append(',').append(record.getTechnology()).append(',').append(record.getVendor())
+                .append(',').append(record.getVersion()).append(',').append(record.getNodeTypeVersion());
+
+        for (int i = 0, size = record.size(); i < size; i++) {
+            String value = record.getValue(i);
+            row.append(',');
+            if (value != null) {
+                CsvWriter.appendValue(row, value);
+            }
+        }
+
+        return row;
+    }
+
+    private StringBuilder getConfiguredRow(MORecord record) {
+        row.setLength(0);
+        for (int i = 0, size = record.size(); i < size; i++) {
+            String name = record.getColumn(i);
+            String value = record.getValue(i);
+
+            if (value != null) {
+                //Handle multivalued parameters
+                if (!multiValueParameters.isEmpty()
+                        && multiValueParameters.containsKey(record.getClassName() + "_" + name)) {
+                    for (String v : value.split("&")) {
+                        CsvWriter.appendValue(row.append(','), v.split("-")[1]);
+                    }
+                    continue;
+                }
+
+                CsvWriter.appendValue(row.append(','), value);
+            } else if (MORecord.isMetaField(name)) {
+                row.append(',').append(record.getMetaField(name));
+            } else {
+                row.append(',');
+            }
+        }
+
+        //Drop the leading comma
+        if (row.length() > 0) {
+            row.deleteCharAt(0);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Buffered writer for the MO csv files.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes csv rows to a file.
+ *
+ * Rows are built by the caller in a reused StringBuilder and copied into
+ * the writer's buffer which is only written out when it is full and when
+ * the writer is closed. Rows end with the platform's line separator and are
+ * encoded with the platform's default charset like the PrintWriter the
+ * parser used before.
+ *
+ * @author info@bodastage.com
+ */
+public class CsvWriter implements Closeable {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * Size of the character buffer.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private Writer out;
+
+    private char[] buf = new char[BUFFER_SIZE];
+
+    private int count = 0;
+
+    public CsvWriter(String filename) throws IOException {
+        this(new FileOutputStream(filename));
+    }
+
+    public CsvWriter(OutputStream out) {
+        this.out = new OutputStreamWriter(out);
+    }
+
+    /**
+     * Write a row followed by the line separator.
+     *
+     * @param row
+     * @throws IOException
+     */
+    public void writeRow(CharSequence row) throws IOException {
+        write(row);
+        write(LINE_SEPARATOR);
+    }
+
+    private void write(CharSequence s) throws IOException {
+        int length = s.length();
+        int start = 0;
+        while (start < length) {
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            int n = Math.min(length - start, buf.length - count);
+            if (s instanceof String) {
+                ((String) s).getChars(start, start + n, buf, count);
+            } else if (s instanceof StringBuilder) {
+                ((StringBuilder) s).getChars(start, start + n, buf, count);
+            } else {
+                for (int i = 0; i < n; i++) {
+                    buf[count + i] = s.charAt(start + i);
+                }
+            }
+            count += n;
+            start += n;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Write the buffered rows and close the file. Closing a closed writer
+     * has no effect.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Append a value to a row in csv format. Values with commas are quoted,
+     * values with quotes are quoted and the quotes doubled.
+     *
+     * @param row
+     * @param value
+     * @return StringBuilder The row
+     */
+    public static StringBuilder appendValue(StringBuilder row, String value) {
+        boolean hasComma = false;
+        boolean hasQuote = false;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',') {
+                hasComma = true;
+            } else if (c == '"') {
+                hasQuote = true;
+                break;
+            }
+        }
+
+        if (!hasComma && !hasQuote) {
+            return row.append(value);
+        }
+
+        row.append('"');
+        if (!hasQuote) {
+            row.append(value);
+        } else {
+            for (int i = 0, length = value.length(); i < length; i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    row.append('"');
+                }
+                row.append(c);
+            }
+        }
+        return row.append('"');
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Streams the GExport dumps in compressed input files.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Iterates over the GExport dumps of a gzip, zip or gzipped tar file without
+ * unpacking them to disk.
+ *
+ * A gzip file holds one dump named after the file without the .gz extension.
+ * The xml entries of zip and tar archives are returned in archive order,
+ * the other entries are skipped.
+ *
+ * <pre>
+ * GExportArchive archive = new GExportArchive("GExport_dumps.tar.gz");
+ * while (archive.nextEntry()) {
+ *     parse(archive.getEntryName(), archive.getInputStream());
+ * }
+ * archive.close();
+ * </pre>
+ *
+ * @author info@bodastage.com
+ */
+public class GExportArchive implements Closeable {
+
+    /**
+     * Size of the buffer of the decompressing streams.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private File file;
+
+    /**
+     * The gzip or tar stream.
+     */
+    private InputStream in;
+
+    private TarInputStream tarIn;
+
+    private ZipFile zipFile;
+
+    private Enumeration<? extends ZipEntry> zipEntries;
+
+    private InputStream entryIn;
+
+    private String entryName;
+
+    private long entrySize = -1;
+
+    /**
+     * Set once the single entry of a gzip file has been returned.
+     */
+    private boolean gzipEntryRead = false;
+
+    public GExportArchive(String filename) throws IOException {
+        file = new File(filename);
+        String name = file.getName().toLowerCase();
+
+        if (name.endsWith(".zip")) {
+            zipFile = new ZipFile(file);
+            zipEntries = zipFile.entries();
+            return;
+        }
+
+        in = new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE);
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            tarIn = new TarInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Returns true if the file is a gzip, zip or gzipped tar file.
+     *
+     * @param filename
+     * @return boolean
+     */
+    public static boolean isArchive(String filename) {
+        String name = filename.toLowerCase();
+        return name.endsWith(".gz") || name.endsWith(".tgz") || name.endsWith(".zip");
+    }
+
+    /**
+     * Move to the next dump.
+     *
+     * @return boolean false when there are no more dumps
+     * @throws IOException
+     */
+    public boolean nextEntry() throws IOException {
+        closeEntry();
+
+        if (zipFile != null) {
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                if (!entry.isDirectory() && isXMLEntry(entry.getName())) {
+                    entryName = entry.getName();
+                    entrySize = entry.getSize();
+                    entryIn = zipFile.getInputStream(entry);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (tarIn != null) {
+            String name;
+            while ((name = tarIn.getNextEntry()) != null) {
+                if (isXMLEntry(name)) {
+                    entryName = name;
+                    entrySize = tarIn.getEntrySize();
+                    entryIn = tarIn;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (gzipEntryRead) {
+            return false;
+        }
+        gzipEntryRead = true;
+        entryName = file.getName().substring(0, file.getName().length() - 3);
+        entryIn = in;
+        return true;
+    }
+
+    /**
+     * Name of the current dump including its path in the archive.
+     *
+     * @return String
+     */
+    public String getEntryName() {
+        return entryName;
+    }
+
+    /**
+     * Uncompressed size of the current dump or -1 if the archive does not
+     * record it, as for gzip files.
+     *
+     * @return long
+     * @since 1.0.15
+     */
+    public long getEntrySize() {
+        return entrySize;
+    }
+
+    /**
+     * Stream of the current dump. Closing it does not close the archive.
+     *
+     * @return InputStream
+     */
+    public InputStream getInputStream() {
+        return new FilterInputStream(entryIn) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    public void close() throws IOException {
+        closeEntry();
+        if (zipFile != null) {
+            zipFile.close();
+        }
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private void closeEntry() throws IOException {
+        if (zipFile != null && entryIn != null) {
+            entryIn.close();
+        }
+        entryIn = null;
+        entryName = null;
+        entrySize = -1;
+    }
+
+    private static boolean isXMLEntry(String name) {
+        return name.toLowerCase().endsWith(".xml");
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Generates synthetic GExport dumps.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Writes synthetic GExport dumps for load and soak tests.
+ *
+ * One dump is written per NE. The NEs cycle through the given NE types and
+ * each has the given number of MO classes, objects per class and parameters
+ * per object. A parameter either always has switch values such as
+ * A-1&amp;B-0 or never. The dumps are written as they are generated so their
+ * size is not limited by the heap, and the same seed gives the same dumps.
+ *
+ * <pre>
+ * java -cp boda-huaweicmobjectparser.jar \
+ *     com.bodastage.boda_huaweicmobjectparser.GExportGenerator -o dumps -n 3 -j 100000
+ * </pre>
+ *
+ * @author info@bodastage.com
+ */
+public class GExportGenerator {
+
+    /**
+     * NE types the generator knows with their technique, version, the prefix
+     * of their dumps' file names and their first MO names.
+     */
+    private static final String[][] NE_TYPES = {
+        {"BSC6900GSM", "GSM", "V900R019C10", "BSC", "BTS", "GCELL", "GTRX", "GEXT2GCELL", "G2GNCELL"},
+        {"BSC6900UMTS", "WCDMA", "V900R019C10", "RNC", "UCELL", "UNODEB", "UEXT3GCELL", "UINTRAFREQNCELL"},
+        {"BTS3900", "LTE", "V100R015C10", "NODEB", "CELL", "ENODEBFUNCTION", "EUTRANINTRAFREQNCELL", "CELLOP"}
+    };
+
+    private static final String[] VALUES = {"ENABLE", "DISABLE", "ON", "OFF", "0", "1", "255", "NULL"};
+
+    private String outputDirectory;
+
+    private List<String> neTypes = new ArrayList<String>();
+
+    private int nes = 1;
+
+    private int classes = 20;
+
+    private int objectsPerClass = 100;
+
+    private int parametersPerObject = 20;
+
+    private int switchPercentage = 10;
+
+    private boolean comments = false;
+
+    private String timestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+
+    private long seed = 1;
+
+    private long bytesWritten = 0;
+
+    public GExportGenerator() {
+        for (String[] neType : NE_TYPES) {
+            neTypes.add(neType[0]);
+        }
+    }
+
+    public void setOutputDirectory(String outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Set the NE types of the NEs. Each NE has the next type in the list.
+     *
+     * @param neTypes BSC6900GSM, BSC6900UMTS or BTS3900
+     */
+    public void setNETypes(List<String> neTypes) {
+        for (String neType : neTypes) {
+            if (getNEType(neType) == null) {
+                throw new IllegalArgumentException("Unknown NE type: " + neType);
+            }
+        }
+        this.neTypes = new ArrayList<String>(neTypes);
+    }
+
+    /**
+     * Set the number of NEs, one dump per NE.
+     *
+     * @param nes
+     */
+    public void setNEs(int nes) {
+        this.nes = nes;
+    }
+
+    /**
+     * Set the number of MO classes per NE.
+     *
+     * @param classes
+     */
+    public void setClasses(int classes) {
+        this.classes = classes;
+    }
+
+    public void setObjectsPerClass(int objectsPerClass) {
+        this.objectsPerClass = objectsPerClass;
+    }
+
+    public void setParametersPerObject(int parametersPerObject) {
+        this.parametersPerObject = parametersPerObject;
+    }
+
+    /**
+     * Set the percentage of the parameters with switch values.
+     *
+     * @param switchPercentage
+     */
+    public void setSwitchPercentage(int switchPercentage) {
+        this.switchPercentage = switchPercentage;
+    }
+
+    /**
+     * Write a comment before each MO class.
+     *
+     * @param comments
+     */
+    public void setComments(boolean comments) {
+        this.comments = comments;
+    }
+
+    /**
+     * Set the timestamp in the dumps' file names.
+     *
+     * @param timestamp yyyyMMddHHmmss
+     */
+    public void setTimestamp(String timestamp) {
+        if (!timestamp.matches("\\d{14}")) {
+            throw new IllegalArgumentException("Timestamp is not yyyyMMddHHmmss: " + timestamp);
+        }
+        this.timestamp = timestamp;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Number of bytes of the dumps written so far.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private static String[] getNEType(String name) {
+        for (String[] neType : NE_TYPES) {
+            if (neType[0].equals(name)) {
+                return neType;
+            }
+        }
+        return null;
+    }
+
+    private static String getMO(String[] neType, int c) {
+        return c + 4 < neType.length ? neType[c + 4] : "MO" + c;
+    }
+
+    /**
+     * Name of an MO class in the dumps of an NE type.
+     *
+     * @param neType BSC6900GSM, BSC6900UMTS or BTS3900
+     * @param c Index of the class in the NE
+     * @return String e.g GCELL_BSC6900GSM
+     */
+    public static String getClassName(String neType, int c) {
+        return getMO(getNEType(neType), c) + "_" + neType;
+    }
+
+    /**
+     * Parameters of the first object of the first MO class of the first
+     * dump, with its values unescaped.
+     *
+     * @param names The parameter names are added
+     * @param values The parameter values are added
+     */
+    public void getFirstObject(List<String> names, List<String> values) {
+        Random random = new Random(seed);
+        String[] objectNames = new String[parametersPerObject];
+        String[] objectValues = new String[parametersPerObject];
+        getParameters(getMO(getNEType(neTypes.get(0)), 0), 0, getSwitches(random), random,
+                objectNames, objectValues);
+        names.addAll(Arrays.asList(objectNames));
+        values.addAll(Arrays.asList(objectValues));
+    }
+
+    /**
+     * Write the dumps.
+     *
+     * @return List of the dumps written
+     * @throws IOException
+     */
+    public List<File> generate() throws IOException {
+        Random random = new Random(seed);
+        List<File> dumps = new ArrayList<File>();
+        for (int ne = 0; ne < nes; ne++) {
+            String[] neType = getNEType(neTypes.get(ne % neTypes.size()));
+            String fileName = "GExport_" + neType[3] + (ne + 1) + "_10.0." + (ne / 250) + "."
+                    + (ne % 250 + 1) + "_" + timestamp + ".xml";
+            File dump = new File(outputDirectory, fileName);
+            writeDump(dump, neType, random);
+            dumps.add(dump);
+        }
+        return dumps;
+    }
+
+    private void writeDump(File dump, String[] neType, Random random) throws IOException {
+        String type = neType[0];
+        CountingWriter out = new CountingWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(dump), "UTF-8"), 1 << 16));
+        try {
+            out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+            out.write("<bulkCmConfigDataFile>\n");
+            out.write("    <fileHeader/>\n");
+            out.write("    <configData>\n");
+            out.write("        <class name=\"" + type + "\">\n");
+            out.write("            <object technique=\"" + neType[1] + "\" vendor=\"Huawei\" version=\""
+                    + neType[2] + "\">\n");
+
+            for (int c = 0; c < classes; c++) {
+                String mo = getMO(neType, c);
+                if (comments) {
+                    out.write("                <!-- " + mo + " -->\n");
+                }
+                out.write("                <class name=\"" + mo + "_" + type + "\">\n");
+                writeObjects(out, mo, random);
+                out.write("                </class>\n");
+            }
+
+            out.write("            </object>\n");
+            out.write("        </class>\n");
+            out.write("    </configData>\n");
+            out.write("</bulkCmConfigDataFile>\n");
+        } finally {
+            out.close();
+            bytesWritten += out.count;
+        }
+    }
+
+    private void writeObjects(Writer out, String mo, Random random) throws IOException {
+        boolean[] switches = getSwitches(random);
+        String[] names = new String[parametersPerObject];
+        String[] values = new String[parametersPerObject];
+        for (int o = 0; o < objectsPerClass; o++) {
+            getParameters(mo, o, switches, random, names, values);
+            out.write("                    <object>\n");
+            for (int p = 0; p < parametersPerObject; p++) {
+                out.write("                        <parameter name=\"" + names[p] + "\" value=\"");
+                out.write(values[p].replace("&", "&amp;").replace("\"", "&quot;"));
+                out.write("\"/>\n");
+            }
+            out.write("                    </object>\n");
+        }
+    }
+
+    /**
+     * Choose the parameters with switch values. The same parameters have
+     * switch values in all objects of a class.
+     */
+    private boolean[] getSwitches(Random random) {
+        boolean[] switches = new boolean[parametersPerObject];
+        for (int p = 2; p < parametersPerObject; p++) {
+            switches[p] = random.nextInt(100) < switchPercentage;
+        }
+        return switches;
+    }
+
+    /**
+     * Names and values of the parameters of an object.
+     */
+    private void getParameters(String mo, int o, boolean[] switches, Random random,
+            String[] names, String[] values) {
+        StringBuilder value = new StringBuilder();
+        for (int p = 0; p < parametersPerObject; p++) {
+            value.setLength(0);
+            if (p == 0) {
+                names[p] = mo + "ID";
+                value.append(o);
+            } else if (switches[p]) {
+                names[p] = "SW" + p;
+                int bits = 2 + p % 7;
+                for (int bit = 0; bit < bits; bit++) {
+                    if (bit > 0) {
+                        value.append('&');
+                    }
+                    value.append((char) ('A' + bit)).append('-').append(random.nextInt(2));
+                }
+            } else if (p == 1) {
+                //Names exercise the csv quoting
+                names[p] = "NAME";
+                value.append(mo).append(o % 10 == 0 ? ", \"" + o + "\"" : " " + o);
+            } else {
+                names[p] = "PARAM" + p;
+                value.append(VALUES[random.nextInt(VALUES.length)]);
+            }
+            values[p] = value.toString();
+        }
+    }
+
+    /**
+     * Counts the characters written. Dumps are ASCII so these are the bytes.
+     */
+    private static class CountingWriter extends Writer {
+
+        private Writer out;
+
+        private long count = 0;
+
+        CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str) throws IOException {
+            out.write(str, 0, str.length());
+            count += str.length();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options = new Options();
+        options.addOption(Option.builder("o")
+                .longOpt("output-directory")
+                .desc("output directory name")
+                .hasArg()
+                .argName("OUTPUT_DIRECTORY").build());
+        options.addOption(Option.builder()
+                .longOpt("ne-types")
+                .desc("comma separated NE types. Default is BSC6900GSM,BSC6900UMTS,BTS3900")
+                .hasArg()
+                .argName("NE_TYPES").build());
+        options.addOption(Option.builder("n")
+                .longOpt("nes")
+                .desc("number of NEs, one dump per NE. Default is 1")
+                .hasArg()
+                .argName("NES").build());
+        options.addOption(Option.builder("c")
+                .longOpt("classes")
+                .desc("MO classes per NE. Default is 20")
+                .hasArg()
+                .argName("CLASSES").build());
+        options.addOption(Option.builder("j")
+                .longOpt("objects")
+                .desc("objects per MO class. Default is 100")
+                .hasArg()
+                .argName("OBJECTS").build());
+        options.addOption(Option.builder("p")
+                .longOpt("parameters")
+                .desc("parameters per object. Default is 20")
+                .hasArg()
+                .argName("PARAMETERS").build());
+        options.addOption(Option.builder("s")
+                .longOpt("switch-percentage")
+                .desc("percentage of parameters with switch values. Default is 10")
+                .hasArg()
+                .argName("PERCENTAGE").build());
+        options.addOption(Option.builder()
+                .longOpt("comments")
+                .desc("write a comment before each MO class")
+                .build());
+        options.addOption(Option.builder("t")
+                .longOpt("timestamp")
+                .desc("timestamp in the file names, yyyyMMddHHmmss. Default is now")
+                .hasArg()
+                .argName("TIMESTAMP").build());
+        options.addOption(Option.builder()
+                .longOpt("seed")
+                .desc("random seed. Default is 1")
+                .hasArg()
+                .argName("SEED").build());
+        options.addOption("h", "help", false, "show help");
+
+        try {
+            CommandLineParser parser = new DefaultParser();
+            CommandLine cmd = parser.parse(options, args);
+
+            if (cmd.hasOption("h") || !cmd.hasOption("o")) {
+                HelpFormatter formatter = new HelpFormatter();
+                String header = "Generates synthetic Huawei GExport configuration data files\n\n";
+                String footer = "\n";
+                footer += "Examples: \n";
+                footer += "java -cp boda-huaweicmobjectparser.jar com.bodastage.boda_huaweicmobjectparser.GExportGenerator -o dumps\n";
+                footer += "java -cp boda-huaweicmobjectparser.jar com.bodastage.boda_huaweicmobjectparser.GExportGenerator -o dumps -n 6 -c 50 -j 100000 --comments\n";
+                footer += "\nCopyright (c) 2018 Bodastage Solutions(http://www.bodastage.com)";
+                formatter.printHelp("java -cp boda-huaweicmobjectparser.jar "
+                        + "com.bodastage.boda_huaweicmobjectparser.GExportGenerator", header, options, footer);
+                System.exit(0);
+            }
+
+            GExportGenerator generator = new GExportGenerator();
+            generator.setOutputDirectory(cmd.getOptionValue("o"));
+            if (cmd.hasOption("ne-types")) {
+                List<String> neTypes = new ArrayList<String>();
+                for (String neType : cmd.getOptionValue("ne-types").split(",")) {
+                    neTypes.add(neType.trim().toUpperCase());
+                }
+                generator.setNETypes(neTypes);
+            }
+            if (cmd.hasOption("n")) {
+                generator.setNEs(Integer.parseInt(cmd.getOptionValue("n")));
+            }
+            if (cmd.hasOption("c")) {
+                generator.setClasses(Integer.parseInt(cmd.getOptionValue("c")));
+            }
+            if (cmd.hasOption("j")) {
+                generator.setObjectsPerClass(Integer.parseInt(cmd.getOptionValue("j")));
+            }
+            if (cmd.hasOption("p")) {
+                generator.setParametersPerObject(Integer.parseInt(cmd.getOptionValue("p")));
+            }
+            if (cmd.hasOption("s")) {
+                generator.setSwitchPercentage(Integer.parseInt(cmd.getOptionValue("s")));
+            }
+            if (cmd.hasOption("comments")) {
+                generator.setComments(true);
+            }
+            if (cmd.hasOption("t")) {
+                generator.setTimestamp(cmd.getOptionValue("t"));
+            }
+            if (cmd.hasOption("seed")) {
+                generator.setSeed(Long.parseLong(cmd.getOptionValue("seed")));
+            }
+
+            File dir = new File(cmd.getOptionValue("o"));
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create output directory " + dir);
+            }
+
+            long startTime = System.currentTimeMillis();
+            for (File dump : generator.generate()) {
+                System.out.println(dump.getName() + " " + dump.length() / (1024 * 1024) + " MB");
+            }
+            long seconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+            System.out.println("Wrote " + generator.getBytesWritten() / (1024 * 1024) + " MB in "
+                    + seconds + " seconds");
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,725 @@
+/*
+ * Byte level scanner for GExport dumps.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Scans the raw bytes of a GExport dump for the class, object and parameter
+ * tags and hands them to the parser's handlers.
+ *
+ * GExport dumps use a small flat XML dialect so the scanner does not build
+ * a document model or validate the file. It handles the XML declaration,
+ * comments, CDATA sections, DOCTYPE declarations, single and double quoted
+ * attributes, the predefined entities and character references, and
+ * attribute value whitespace normalization. Element and attribute names are
+ * compared as bytes so only the attribute values the parser uses are turned
+ * into strings. The content of the classes that are not in the parameter
+ * file is skipped by only finding the tags, and the values of parameters
+ * that are not selected are not decoded.
+ *
+ * The dump must be in UTF-8 or an ASCII compatible encoding declared in the
+ * XML declaration.
+ *
+ * @author info@bodastage.com
+ */
+public class GExportScanner {
+
+    private static final byte[] CLASS = ascii("class");
+    private static final byte[] OBJECT = ascii("object");
+    private static final byte[] PARAMETER = ascii("parameter");
+    private static final byte[] NAME = ascii("name");
+    private static final byte[] VALUE = ascii("value");
+    private static final byte[] TECHNIQUE = ascii("technique");
+    private static final byte[] VENDOR = ascii("vendor");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] ENCODING = ascii("encoding");
+
+    private static final byte[] COMMENT_START = ascii("<!--");
+    private static final byte[] COMMENT_END = ascii("-->");
+    private static final byte[] CDATA_START = ascii("<![CDATA[");
+    private static final byte[] CDATA_END = ascii("]]>");
+    private static final byte[] PI_END = ascii("?>");
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Handles the scanned tags.
+     */
+    private HuaweiCMObjectParser parser;
+
+    private InputStream in;
+
+    /**
+     * Input buffer. buf[pos] to buf[limit - 1] has not been scanned yet.
+     */
+    private byte[] buf = new byte[1 << 16];
+
+    private int pos = 0;
+
+    private int limit = 0;
+
+    private boolean eof = false;
+
+    /**
+     * Scratch buffer used to decode attribute values with entities.
+     */
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Charset of the dump.
+     */
+    private Charset charset = UTF8;
+
+    /**
+     * Number of bytes dropped from the start of the buffer.
+     */
+    private long bufferOffset = 0;
+
+    /*
+     * Attribute values of the tag being scanned.
+     */
+    /**
+     * Canonical names and values.
+     */
+    private SymbolTable symbols;
+
+    /**
+     * Whether the encoding decodes bytes below 0x80 as ASCII so names can be
+     * looked up by their bytes.
+     */
+    private boolean asciiSymbols = true;
+
+    private String nameAttr;
+    private String techniqueAttr;
+    private String vendorAttr;
+    private String versionAttr;
+
+    /**
+     * Position of the value attribute of a parameter tag in the buffer. The
+     * value is only decoded if the parameter is selected.
+     */
+    private int valueStart;
+    private int valueEnd;
+
+    public GExportScanner(HuaweiCMObjectParser parser) {
+        this.parser = parser;
+        this.symbols = parser.getSymbolTable();
+    }
+
+    /**
+     * Scan a dump.
+     *
+     * @param in The dump's bytes
+     * @throws IOException
+     * @throws XMLStreamException if the dump is not well formed
+     */
+    public void scan(InputStream in) throws IOException, XMLStreamException {
+        this.in = in;
+        pos = 0;
+        limit = 0;
+        eof = false;
+        bufferOffset = 0;
+        charset = UTF8;
+        asciiSymbols = true;
+
+        while (true) {
+            //Skip character data
+            int lt = indexOf((byte) '<', pos);
+            while (lt < 0) {
+                pos = limit;
+                if (!fill()) {
+                    return;
+                }
+                lt = indexOf((byte) '<', pos);
+            }
+            pos = lt;
+
+            if (!require(2)) {
+                throw error("Unexpected end of file");
+            }
+
+            byte next = buf[pos + 1];
+            if (next == '/') {
+                int end = findTagEnd();
+                endTag(end);
+                pos = end + 1;
+            } else if (next == '?') {
+                int end = find(PI_END, pos + 2);
+                declaration(end);
+                pos = end + PI_END.length;
+            } else if (next == '!') {
+                if (startsWith(COMMENT_START)) {
+                    int end = find(COMMENT_END, pos + COMMENT_START.length);
+                    int start = pos + COMMENT_START.length;
+                    parser.commentEvent(new String(buf, start, end - start, charset));
+                    pos = end + COMMENT_END.length;
+                } else if (startsWith(CDATA_START)) {
+                    pos = find(CDATA_END, pos + CDATA_START.length) + CDATA_END.length;
+                } else {
+                    pos = findDoctypeEnd() + 1;
+                }
+            } else {
+                int end = findTagEnd();
+                startTag(end);
+                pos = end + 1;
+                if (parser.isSkippingClass()) {
+                    skipClass();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of bytes of the dump that have been scanned.
+     *
+     * @return long
+     */
+    public long getPosition() {
+        return bufferOffset + pos;
+    }
+
+    /**
+     * Scan a start tag. buf[end] is the tag's closing '&gt;'.
+     */
+    private void startTag(int end) throws IOException, XMLStreamException {
+        int nameStart = pos + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < end && !isNameEnd(buf[nameEnd])) {
+            nameEnd++;
+        }
+        int localStart = localNameStart(nameStart, nameEnd);
+        boolean selfClosing = buf[end - 1] == '/';
+
+        nameAttr = null;
+        techniqueAttr = null;
+        vendorAttr = null;
+        versionAttr = null;
+
+        if (equals(localStart, nameEnd, PARAMETER)) {
+            valueStart = -1;
+            attributes(nameEnd, end, PARAMETER);
+            if (nameAttr != null && valueStart >= 0 && !parser.isSkippedParameter(nameAttr)) {
+                String valueAttr = asciiSymbols && isPlain(valueStart, valueEnd)
+                        ? symbols.value(buf, valueStart, valueEnd, charset)
+                        : value(valueStart, valueEnd);
+                parser.parameterEvent(nameAttr, valueAttr);
+            }
+            if (selfClosing) {
+                parser.endELementEvent("parameter");
+            }
+        } else if (equals(localStart, nameEnd, OBJECT)) {
+            attributes(nameEnd, end, OBJECT);
+            parser.startObjectEvent(techniqueAttr, vendorAttr, versionAttr);
+            if (selfClosing) {
+                parser.endELementEvent("object");
+            }
+        } else if (equals(localStart, nameEnd, CLASS)) {
+            attributes(nameEnd, end, CLASS);
+            parser.startClassEvent(nameAttr);
+            if (selfClosing && parser.isSkippingClass()) {
+                parser.endSkippedClassEvent(0, 0);
+            } else if (selfClosing) {
+                parser.endELementEvent("class");
+            }
+        } else if (selfClosing) {
+            parser.endELementEvent(new String(buf, localStart, nameEnd - localStart, charset));
+        }
+    }
+
+    /**
+     * Scan an end tag. buf[end] is the tag's closing '&gt;'.
+     */
+    private void endTag(int end) throws IOException, XMLStreamException {
+        int nameStart = pos + 2;
+        int nameEnd = nameStart;
+        while (nameEnd < end && !isNameEnd(buf[nameEnd])) {
+            nameEnd++;
+        }
+        int localStart = localNameStart(nameStart, nameEnd);
+
+        if (equals(localStart, nameEnd, PARAMETER)) {
+            parser.endELementEvent("parameter");
+        } else if (equals(localStart, nameEnd, OBJECT)) {
+            parser.endELementEvent("object");
+        } else if (equals(localStart, nameEnd, CLASS)) {
+            parser.endELementEvent("class");
+        } else {
+            parser.endELementEvent(new String(buf, localStart, nameEnd - localStart, charset));
+        }
+    }
+
+    /**
+     * Skip the content of a class that is not in the parameter file up to
+     * and including the class's end tag. The tags are only found and the
+     * objects counted. Nothing is decoded or passed to the parser.
+     */
+    private void skipClass() throws IOException, XMLStreamException {
+        long start = getPosition();
+        long objects = 0;
+        int depth = 0;
+        while (true) {
+            int lt = indexOf((byte) '<', pos);
+            while (lt < 0) {
+                pos = limit;
+                if (!fill()) {
+                    throw error("Unexpected end of file in class");
+                }
+                lt = indexOf((byte) '<', pos);
+            }
+            pos = lt;
+
+            if (!require(2)) {
+                throw error("Unexpected end of file");
+            }
+
+            byte next = buf[pos + 1];
+            if (next == '?') {
+                pos = find(PI_END, pos + 2) + PI_END.length;
+            } else if (next == '!') {
+                if (startsWith(COMMENT_START)) {
+                    pos = find(COMMENT_END, pos + COMMENT_START.length) + COMMENT_END.length;
+                } else if (startsWith(CDATA_START)) {
+                    pos = find(CDATA_END, pos + CDATA_START.length) + CDATA_END.length;
+                } else {
+                    pos = findDoctypeEnd() + 1;
+                }
+            } else if (next == '/') {
+                int end = findTagEnd();
+                boolean classEnd = isElement(pos + 2, end, CLASS);
+                pos = end + 1;
+                if (classEnd && depth == 0) {
+                    parser.endSkippedClassEvent(objects, getPosition() - start);
+                    return;
+                } else if (classEnd) {
+                    depth--;
+                }
+            } else {
+                int end = findTagEnd();
+                if (isElement(pos + 1, end, OBJECT)) {
+                    objects++;
+                } else if (buf[end - 1] != '/' && isElement(pos + 1, end, CLASS)) {
+                    depth++;
+                }
+                pos = end + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the name of the tag starting at buf[start] and
+     * ending at buf[end] is the element name.
+     */
+    private boolean isElement(int start, int end, byte[] element) {
+        int nameEnd = start;
+        while (nameEnd < end && !isNameEnd(buf[nameEnd])) {
+            nameEnd++;
+        }
+        return equals(localNameStart(start, nameEnd), nameEnd, element);
+    }
+
+    /**
+     * Scan the XML declaration for the encoding of the dump.
+     */
+    private void declaration(int end) throws XMLStreamException {
+        if (end < pos + 6 || !equals(pos + 2, pos + 5, ascii("xml")) 
+                || !isWhitespace(buf[pos + 5])) {
+            return;
+        }
+
+        int i = indexOf(ENCODING, pos, end);
+        if (i < 0) {
+            return;
+        }
+        i += ENCODING.length;
+        while (i < end && (isWhitespace(buf[i]) || buf[i] == '=')) {
+            i++;
+        }
+        if (i >= end) {
+            return;
+        }
+
+        byte quote = buf[i];
+        int valueEnd = i + 1;
+        while (valueEnd < end && buf[valueEnd] != quote) {
+            valueEnd++;
+        }
+
+        String encoding = new String(buf, i + 1, valueEnd - i - 1, UTF8);
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw error("Unsupported encoding " + encoding);
+        }
+
+        //Markup must have the same bytes as in ASCII
+        if (!new String(ascii("<>=\"'&;/"), charset).equals("<>=\"'&;/")) {
+            throw error("The scanner does not support the encoding " + encoding);
+        }
+
+        byte[] ascii = new byte[128];
+        for (int b = 0; b < ascii.length; b++) {
+            ascii[b] = (byte) b;
+        }
+        asciiSymbols = new String(ascii, charset).equals(new String(ascii, UTF8));
+    }
+
+    /**
+     * Read the attributes of a tag between buf[from] and buf[end].
+     */
+    private void attributes(int from, int end, byte[] element) throws XMLStreamException {
+        int i = from;
+        while (true) {
+            while (i < end && isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i >= end || buf[i] == '/') {
+                return;
+            }
+
+            int attrStart = i;
+            while (i < end && buf[i] != '=' && !isWhitespace(buf[i])) {
+                i++;
+            }
+            int attrEnd = i;
+            while (i < end && isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i >= end || buf[i] != '=') {
+                throw error("Attribute without value in tag");
+            }
+            i++;
+            while (i < end && isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i >= end || (buf[i] != '"' && buf[i] != '\'')) {
+                throw error("Attribute value not quoted in tag");
+            }
+            byte quote = buf[i];
+            int valueStart = ++i;
+            while (i < end && buf[i] != quote) {
+                i++;
+            }
+            if (i >= end) {
+                throw error("Unterminated attribute value in tag");
+            }
+            int valueEnd = i++;
+
+            int localStart = localNameStart(attrStart, attrEnd);
+            if (equals(localStart, attrEnd, NAME)) {
+                if (element != OBJECT) {
+                    nameAttr = asciiSymbols && isPlain(valueStart, valueEnd)
+                            ? symbols.name(buf, valueStart, valueEnd, charset)
+                            : value(valueStart, valueEnd);
+                }
+            } else if (element == PARAMETER) {
+                if (equals(localStart, attrEnd, VALUE)) {
+                    this.valueStart = valueStart;
+                    this.valueEnd = valueEnd;
+                }
+            } else if (element == OBJECT) {
+                if (equals(localStart, attrEnd, TECHNIQUE)) {
+                    techniqueAttr = value(valueStart, valueEnd);
+                } else if (equals(localStart, attrEnd, VENDOR)) {
+                    vendorAttr = value(valueStart, valueEnd);
+                } else if (equals(localStart, attrEnd, VERSION)) {
+                    versionAttr = value(valueStart, valueEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the attribute value between buf[start] and buf[end].
+     *
+     * Entities and character references are replaced and tabs and line
+     * breaks normalized to spaces as an XML parser does.
+     */
+    private String value(int start, int end) throws XMLStreamException {
+        if (isPlain(start, end)) {
+            return new String(buf, start, end - start, charset);
+        }
+
+        if (scratch.length < (end - start)) {
+            scratch = new byte[Math.max(scratch.length * 2, end - start)];
+        }
+
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+            if (b == '\r') {
+                //CRLF is a single line break
+                if (i + 1 < end && buf[i + 1] == '\n') {
+                    i++;
+                }
+                scratch[length++] = ' ';
+            } else if (b == '\n' || b == '\t') {
+                scratch[length++] = ' ';
+            } else if (b == '&') {
+                int semicolon = i + 1;
+                while (semicolon < end && buf[semicolon] != ';') {
+                    semicolon++;
+                }
+                if (semicolon >= end) {
+                    throw error("Unterminated entity reference");
+                }
+                length = entity(i + 1, semicolon, length);
+                i = semicolon;
+            } else {
+                scratch[length++] = b;
+            }
+        }
+        return new String(scratch, 0, length, charset);
+    }
+
+    /**
+     * Returns true if the attribute value between buf[start] and buf[end]
+     * has no entities and no whitespace to normalize.
+     */
+    private boolean isPlain(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+            if (b == '&' || b == '\n' || b == '\r' || b == '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the replacement of the entity between buf[start] and buf[end] to
+     * the scratch buffer.
+     */
+    private int entity(int start, int end, int length) throws XMLStreamException {
+        int codePoint;
+        if (buf[start] == '#') {
+            try {
+                if (start + 1 < end && (buf[start + 1] == 'x' || buf[start + 1] == 'X')) {
+                    codePoint = Integer.parseInt(new String(buf, start + 2, end - start - 2, UTF8), 16);
+                } else {
+                    codePoint = Integer.parseInt(new String(buf, start + 1, end - start - 1, UTF8));
+                }
+            } catch (NumberFormatException e) {
+                throw error("Invalid character reference");
+            }
+        } else if (equals(start, end, ascii("amp"))) {
+            codePoint = '&';
+        } else if (equals(start, end, ascii("lt"))) {
+            codePoint = '<';
+        } else if (equals(start, end, ascii("gt"))) {
+            codePoint = '>';
+        } else if (equals(start, end, ascii("quot"))) {
+            codePoint = '"';
+        } else if (equals(start, end, ascii("apos"))) {
+            codePoint = '\'';
+        } else {
+            throw error("Undeclared entity " + new String(buf, start, end - start, UTF8));
+        }
+
+        if (codePoint < 0x80) {
+            scratch[length] = (byte) codePoint;
+            return length + 1;
+        }
+
+        //The encoded character is never longer than its reference
+        byte[] encoded = new String(Character.toChars(codePoint)).getBytes(charset);
+        System.arraycopy(encoded, 0, scratch, length, encoded.length);
+        return length + encoded.length;
+    }
+
+    /**
+     * Find the '&gt;' closing the tag at pos, skipping quoted attribute
+     * values.
+     */
+    private int findTagEnd() throws IOException, XMLStreamException {
+        int i = pos + 1;
+        byte quote = 0;
+        while (true) {
+            while (i < limit) {
+                byte b = buf[i];
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    return i;
+                }
+                i++;
+            }
+            int scanned = i - pos;
+            if (!fill()) {
+                throw error("Unexpected end of file in tag");
+            }
+            i = pos + scanned;
+        }
+    }
+
+    /**
+     * Find the '&gt;' closing a DOCTYPE declaration.
+     */
+    private int findDoctypeEnd() throws IOException, XMLStreamException {
+        int i = pos + 2;
+        int depth = 0;
+        while (true) {
+            while (i < limit) {
+                byte b = buf[i];
+                if (b == '[') {
+                    depth++;
+                } else if (b == ']') {
+                    depth--;
+                } else if (b == '>' && depth <= 0) {
+                    return i;
+                }
+                i++;
+            }
+            int scanned = i - pos;
+            if (!fill()) {
+                throw error("Unexpected end of file in declaration");
+            }
+            i = pos + scanned;
+        }
+    }
+
+    /**
+     * Find the pattern at or after buf[from], reading more input as needed.
+     */
+    private int find(byte[] pattern, int from) throws IOException, XMLStreamException {
+        int i = from;
+        while (true) {
+            int found = indexOf(pattern, i, limit);
+            if (found >= 0) {
+                return found;
+            }
+            int scanned = Math.max(i, limit - pattern.length + 1) - pos;
+            if (!fill()) {
+                throw error("Unexpected end of file");
+            }
+            i = pos + scanned;
+        }
+    }
+
+    private int indexOf(byte b, int from) {
+        for (int i = from; i < limit; i++) {
+            if (buf[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private boolean startsWith(byte[] pattern) throws IOException {
+        if (!require(pattern.length)) {
+            return false;
+        }
+        return equals(pos, pos + pattern.length, pattern);
+    }
+
+    private boolean equals(int start, int end, byte[] pattern) {
+        if (end - start != pattern.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (buf[start + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start of the local name of a possibly prefixed name.
+     */
+    private int localNameStart(int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (buf[i] == ':') {
+                return i + 1;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Make sure that count bytes from pos are in the buffer.
+     */
+    private boolean require(int count) throws IOException {
+        while (limit - pos < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read more input, keeping the bytes from pos. Returns false at the end of
+     * the input.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            bufferOffset += pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            byte[] grown = new byte[buf.length * 2];
+            System.arraycopy(buf, 0, grown, 0, limit);
+            buf = grown;
+        }
+
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private XMLStreamException error(String message) {
+        return new XMLStreamException(message + " at byte " + (bufferOffset + pos));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return isWhitespace(b) || b == '/' || b == '>';
+    }
+
+    private static byte[] ascii(String s) {
+        try {
+            return s.getBytes("US-ASCII");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+/*
+ * Splits large GExport dumps into segments parsed concurrently.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a dump into segments that can be parsed on their own, in
+ * parallel, with the same rows as the whole dump.
+ *
+ * A pre-scan reads the bytes of the dump and only follows the nesting of
+ * the tags. The segments start at an MO class tag under the NE object or at
+ * an MO object tag under an MO class, about every segment size bytes. The
+ * pre-scan stops at the end of the first NE object, the rest of the dump is
+ * in the last segment.
+ *
+ * Each segment is read with the dump's prolog up to the NE object's start
+ * tag in front of it, so that it has the NE type, technology, vendor and
+ * version, and with the start tag of its MO class when it starts inside
+ * one. A segment that does not end the dump is followed by the end tags of
+ * the open elements. The NE object's end tag of these closing tags is not
+ * part of the dump and must be ignored by the parser.
+ *
+ * Dumps in which parameters are not inside an MO object are not split
+ * after such a parameter, as the parameter is added to the next object.
+ *
+ * @author info@bodastage.com
+ */
+public class GExportSplitter {
+
+    /**
+     * Default minimum size of the segments.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /*
+     * Scanner states.
+     */
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int NAME = 2;
+    private static final int ATTRIBUTES = 3;
+    private static final int QUOTED = 4;
+    private static final int END_TAG = 5;
+    private static final int BANG = 6;
+    private static final int COMMENT = 7;
+    private static final int CDATA = 8;
+    private static final int DECLARATION = 9;
+    private static final int PROCESSING_INSTRUCTION = 10;
+
+    private String filename;
+
+    private long segmentSize;
+
+    /**
+     * Names of the elements open at the NE object's start tag.
+     */
+    private List<String> openElements = new ArrayList<String>();
+
+    /**
+     * End of the NE object's start tag or -1 before it.
+     */
+    private long prologEnd = -1;
+
+    /**
+     * Depth of the NE object's children.
+     */
+    private int neDepth = -1;
+
+    private int depth = 0;
+
+    /**
+     * Start and end of the current MO class tag or -1 outside MO classes.
+     */
+    private long classStart = -1;
+    private long classEnd = -1;
+    private String classTagName = null;
+
+    private boolean done = false;
+
+    private long nextSplit;
+
+    private List<long[]> splits = new ArrayList<long[]>();
+
+    private List<String> splitClassNames = new ArrayList<String>();
+
+    /*
+     * Tag being scanned.
+     */
+    private long tagStart;
+    private byte[] name = new byte[64];
+    private int nameLength;
+    private boolean endTag;
+    private byte quote;
+    private boolean slash;
+    private int count;
+
+    private int state = TEXT;
+
+    private GExportSplitter(String filename, long segmentSize) {
+        this.filename = filename;
+        this.segmentSize = segmentSize;
+        this.nextSplit = segmentSize;
+    }
+
+    /**
+     * Split a dump into segments of at least segmentSize bytes.
+     *
+     * @param filename The dump
+     * @param segmentSize Minimum size of the segments
+     * @return List of the segments in file order. A dump that is not split
+     *         has one segment
+     * @throws IOException
+     */
+    public static List<Segment> split(String filename, long segmentSize) throws IOException {
+        return new GExportSplitter(filename, segmentSize).split();
+    }
+
+    private List<Segment> split() throws IOException {
+        InputStream in = new MappedFileInputStream(filename);
+        try {
+            byte[] buf = new byte[BUFFER_SIZE];
+            long offset = 0;
+            int n;
+            while (!done && (n = in.read(buf, 0, buf.length)) > 0) {
+                scan(buf, n, offset);
+                offset += n;
+            }
+        } finally {
+            in.close();
+        }
+        long size = new File(filename).length();
+
+        if (splits.isEmpty()) {
+            return Collections.singletonList(new Segment(filename, 0, 0, size, true,
+                    new byte[0], new byte[0]));
+        }
+
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            byte[] prolog = read(file, 0, prologEnd);
+            StringBuilder closingTags = new StringBuilder();
+            for (int i = openElements.size() - 1; i >= 0; i--) {
+                closingTags.append("</").append(openElements.get(i)).append('>');
+            }
+
+            List<Segment> segments = new ArrayList<Segment>();
+            for (int i = 0; i <= splits.size(); i++) {
+                long start = i == 0 ? 0 : splits.get(i - 1)[0];
+                long end = i == splits.size() ? size : splits.get(i)[0];
+
+                byte[] prefix = new byte[0];
+                if (i > 0) {
+                    long[] split = splits.get(i - 1);
+                    prefix = concat(prolog, split[1] < 0 ? new byte[0] : read(file, split[1], split[2]));
+                }
+
+                byte[] suffix = new byte[0];
+                if (i < splits.size()) {
+                    String className = splitClassNames.get(i);
+                    suffix = ((className == null ? "" : "</" + className + ">")
+                            + closingTags).getBytes(LATIN1);
+                }
+
+                segments.add(new Segment(filename, i, start, end - start,
+                        i == splits.size(), prefix, suffix));
+            }
+            return segments;
+        } finally {
+            file.close();
+        }
+    }
+
+    private static byte[] read(RandomAccessFile file, long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        file.seek(start);
+        file.readFully(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(a.length + b.length);
+        out.write(a, 0, a.length);
+        out.write(b, 0, b.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Scan the next bytes of the dump. The state is kept between calls so
+     * tags can span the buffers.
+     */
+    private void scan(byte[] buf, int n, long offset) {
+        int i = 0;
+        while (i < n && !done) {
+            switch (state) {
+                case TEXT:
+                    while (i < n && buf[i] != '<') {
+                        i++;
+                    }
+                    if (i < n) {
+                        tagStart = offset + i;
+                        state = TAG_OPEN;
+                        i++;
+                    }
+                    break;
+                case TAG_OPEN: {
+                    byte b = buf[i++];
+                    nameLength = 0;
+                    slash = false;
+                    if (b == '/') {
+                        endTag = true;
+                        state = NAME;
+                    } else if (b == '!') {
+                        count = 0;
+                        state = BANG;
+                    } else if (b == '?') {
+                        count = 0;
+                        state = PROCESSING_INSTRUCTION;
+                    } else {
+                        endTag = false;
+                        appendName(b);
+                        state = NAME;
+                    }
+                    break;
+                }
+                case NAME: {
+                    byte b = 0;
+                    while (i < n && !isNameEnd(b = buf[i])) {
+                        appendName(b);
+                        i++;
+                    }
+                    if (i < n) {
+                        i++;
+                        if (b == '>') {
+                            tagEnd(offset + i);
+                        } else {
+                            slash = b == '/';
+                            state = endTag ? END_TAG : ATTRIBUTES;
+                        }
+                    }
+                    break;
+                }
+                case ATTRIBUTES: {
+                    byte b = 0;
+                    while (i < n && (b = buf[i]) != '>' && b != '"' && b != '\'') {
+                        if (!isWhitespace(b)) {
+                            slash = b == '/';
+                        }
+                        i++;
+                    }
+                    if (i < n) {
+                        i++;
+                        if (b == '>') {
+                            tagEnd(offset + i);
+                        } else {
+                            quote = b;
+                            slash = false;
+                            state = QUOTED;
+                        }
+                    }
+                    break;
+                }
+                case QUOTED:
+                    while (i < n && buf[i] != quote) {
+                        i++;
+                    }
+                    if (i < n) {
+                        state = ATTRIBUTES;
+                        i++;
+                    }
+                    break;
+                case END_TAG:
+                    while (i < n && buf[i] != '>') {
+                        i++;
+                    }
+                    if (i < n) {
+                        i++;
+                        tagEnd(offset + i);
+                    }
+                    break;
+                case BANG: {
+                    byte b = buf[i++];
+                    if (b == '-') {
+                        //Do not count the second dash of <!--
+                        count = -1;
+                        state = COMMENT;
+                    } else if (b == '[') {
+                        count = 0;
+                        state = CDATA;
+                    } else {
+                        count = 0;
+                        state = DECLARATION;
+                    }
+                    break;
+                }
+                case COMMENT: {
+                    byte b = buf[i++];
+                    if (b == '>' && count >= 2) {
+                        state = TEXT;
+                    } else {
+                        count = b == '-' ? count + 1 : 0;
+                    }
+                    break;
+                }
+                case CDATA: {
+                    byte b = buf[i++];
+                    if (b == '>' && count >= 2) {
+                        state = TEXT;
+                    } else {
+                        count = b == ']' ? count + 1 : 0;
+                    }
+                    break;
+                }
+                case DECLARATION: {
+                    byte b = buf[i++];
+                    if (b == '[') {
+                        count++;
+                    } else if (b == ']') {
+                        count--;
+                    } else if (b == '>' && count <= 0) {
+                        state = TEXT;
+                    }
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    byte b = buf[i++];
+                    if (b == '>' && count == 1) {
+                        state = TEXT;
+                    } else {
+                        count = b == '?' ? 1 : 0;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private void appendName(byte b) {
+        if (nameLength == name.length) {
+            byte[] longer = new byte[name.length * 2];
+            System.arraycopy(name, 0, longer, 0, nameLength);
+            name = longer;
+        }
+        name[nameLength++] = b;
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return b == '>' || b == '/' || isWhitespace(b);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Returns true if the local name of the tag is the name.
+     */
+    private boolean isLocalName(String localName) {
+        int start = 0;
+        for (int i = 0; i < nameLength; i++) {
+            if (name[i] == ':') {
+                start = i + 1;
+            }
+        }
+        if (nameLength - start != localName.length()) {
+            return false;
+        }
+        for (int i = 0; i < localName.length(); i++) {
+            if (name[start + i] != localName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handle a start or end tag ending before the file position end.
+     */
+    private void tagEnd(long end) {
+        state = TEXT;
+
+        if (endTag) {
+            depth--;
+            if (prologEnd < 0) {
+                if (!openElements.isEmpty()) {
+                    openElements.remove(openElements.size() - 1);
+                }
+            } else if (depth < neDepth) {
+                //The NE object ended
+                done = true;
+            } else if (depth == neDepth) {
+                classStart = -1;
+            }
+            return;
+        }
+
+        boolean selfClosing = slash;
+        if (prologEnd < 0) {
+            if (!selfClosing) {
+                depth++;
+                openElements.add(new String(name, 0, nameLength, LATIN1));
+                if (isLocalName("object")) {
+                    prologEnd = end;
+                    neDepth = depth;
+                }
+            }
+            return;
+        }
+
+        if (depth == neDepth) {
+            if (isLocalName("class")) {
+                addSplit(-1, -1, null);
+                if (!selfClosing) {
+                    classStart = tagStart;
+                    classEnd = end;
+                    classTagName = new String(name, 0, nameLength, LATIN1);
+                }
+            } else if (isLocalName("parameter")) {
+                done = true;
+            }
+        } else if (depth == neDepth + 1 && classStart >= 0) {
+            if (isLocalName("object")) {
+                addSplit(classStart, classEnd, classTagName);
+            } else if (isLocalName("parameter")) {
+                done = true;
+            }
+        }
+
+        if (!selfClosing) {
+            depth++;
+        }
+    }
+
+    /**
+     * Split the dump before the current tag if the current segment is large
+     * enough.
+     */
+    private void addSplit(long classTagStart, long classTagEnd, String className) {
+        if (tagStart < nextSplit) {
+            return;
+        }
+        splits.add(new long[] {tagStart, classTagStart, classTagEnd});
+        splitClassNames.add(className);
+        nextSplit = tagStart + segmentSize;
+    }
+
+    /**
+     * A byte range of a dump.
+     */
+    public static class Segment {
+
+        private String filename;
+
+        private int index;
+
+        private long offset;
+
+        private long length;
+
+        private boolean last;
+
+        private byte[] prefix;
+
+        private byte[] suffix;
+
+        Segment(String filename, int index, long offset, long length, boolean last,
+                byte[] prefix, byte[] suffix) {
+            this.filename = filename;
+            this.index = index;
+            this.offset = offset;
+            this.length = length;
+            this.last = last;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * Position of the segment in the dump's segments.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * File position of the first byte.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Number of bytes of the dump in the segment.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Whether the segment ends the dump. The other segments end inside
+         * the NE object.
+         */
+        public boolean isLast() {
+            return last;
+        }
+
+        /**
+         * Number of bytes read in front of and after the segment.
+         */
+        public long getAddedLength() {
+            return prefix.length + suffix.length;
+        }
+
+        /**
+         * Open the segment with its prolog and closing tags.
+         *
+         * @return InputStream
+         * @throws IOException
+         */
+        public InputStream open() throws IOException {
+            InputStream in = new MappedFileInputStream(filename, offset, length);
+            return new SequenceInputStream(new ByteArrayInputStream(prefix),
+                    new SequenceInputStream(in, new ByteArrayInputStream(suffix)));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Matches names against glob patterns compiled into a trie.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Glob patterns compiled into one trie. A '*' matches any number of
+ * characters and a '?' matches one character. Other characters match
+ * themselves.
+ *
+ * The patterns share the nodes of their common prefixes. A '*' is a node
+ * that loops on every character, so the trie is a nondeterministic
+ * automaton. It is run over a name with the set of active nodes, so a
+ * match takes time in proportion to the length of the name and the number
+ * of nodes active at once, not the number of patterns. Callers cache the
+ * results per name.
+ *
+ * Once the patterns are added the matcher can be shared by threads.
+ *
+ * @author info@bodastage.com
+ */
+public class GlobMatcher {
+
+    /**
+     * A state of the automaton.
+     */
+    private static class Node {
+
+        Map<Character, Node> next = new HashMap<Character, Node>();
+
+        /**
+         * Node after a '?'.
+         */
+        Node any = null;
+
+        /**
+         * Node of a '*' following this node. It is entered without reading
+         * a character.
+         */
+        Node star = null;
+
+        /**
+         * The node is a '*' and stays active on every character.
+         */
+        boolean loop = false;
+
+        /**
+         * Patterns that end at this node.
+         */
+        List<Integer> patterns = new ArrayList<Integer>();
+
+        final int id;
+
+        Node(int id) {
+            this.id = id;
+        }
+    }
+
+    private int nodes = 0;
+
+    private Node root = new Node(nodes++);
+
+    private int size = 0;
+
+    /**
+     * Returns true if the name has a '*' or '?'.
+     *
+     * @param name
+     * @return boolean
+     */
+    public static boolean isPattern(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+    }
+
+    /**
+     * Add a pattern.
+     *
+     * @param pattern
+     * @return int Index of the pattern, the number of patterns added before
+     */
+    public int add(String pattern) {
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                //Consecutive stars are one star
+                if (node.loop) {
+                    continue;
+                }
+                if (node.star == null) {
+                    node.star = new Node(nodes++);
+                    node.star.loop = true;
+                }
+                node = node.star;
+            } else if (c == '?') {
+                if (node.any == null) {
+                    node.any = new Node(nodes++);
+                }
+                node = node.any;
+            } else {
+                Node child = node.next.get(c);
+                if (child == null) {
+                    child = new Node(nodes++);
+                    node.next.put(c, child);
+                }
+                node = child;
+            }
+        }
+        node.patterns.add(size);
+        return size++;
+    }
+
+    /**
+     * Number of patterns.
+     *
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indexes of the patterns matching the whole name.
+     *
+     * @param name
+     * @return BitSet
+     */
+    public BitSet match(String name) {
+        List<Node> active = new ArrayList<Node>();
+        List<Node> next = new ArrayList<Node>();
+        BitSet entered = new BitSet(nodes);
+        enter(root, active, entered);
+
+        for (int i = 0; i < name.length() && !active.isEmpty(); i++) {
+            char c = name.charAt(i);
+            next.clear();
+            entered.clear();
+            for (int j = 0; j < active.size(); j++) {
+                Node node = active.get(j);
+                if (node.loop) {
+                    enter(node, next, entered);
+                }
+                Node child = node.next.get(c);
+                if (child != null) {
+                    enter(child, next, entered);
+                }
+                if (node.any != null) {
+                    enter(node.any, next, entered);
+                }
+            }
+            List<Node> swap = active;
+            active = next;
+            next = swap;
+        }
+
+        BitSet matched = new BitSet(size);
+        for (Node node : active) {
+            for (int pattern : node.patterns) {
+                matched.set(pattern);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Make a node and the '*' following it active.
+     */
+    private static void enter(Node node, List<Node> active, BitSet entered) {
+        while (node != null && !entered.get(node.id)) {
+            entered.set(node.id);
+            active.add(node);
+            node = node.star;
+        }
+    }
+}
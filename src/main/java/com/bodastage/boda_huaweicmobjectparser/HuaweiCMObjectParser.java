@@ -7,29 +7,39 @@ package com.bodastage.boda_huaweicmobjectparser;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.commons.cli.Options;
@@ -49,6 +59,14 @@ public class HuaweiCMObjectParser {
 
     final static String VERSION = "1.0.14";
     
+    /**
+     * Name of the manifest file of an incremental run in the output 
+     * directory.
+     * 
+     * @since 1.0.15
+     */
+    final static String MANIFEST_FILE = ".boda_manifest";
+    
     Logger logger = LoggerFactory.getLogger(HuaweiCMObjectParser.class);
         
     /**
@@ -59,7 +77,7 @@ public class HuaweiCMObjectParser {
      *
      * @since 1.0.0
      */
-    private Map<String, Stack> moColumns = new LinkedHashMap<String, Stack>();
+    private Map<String, MOColumns> moColumns = new LinkedHashMap<String, MOColumns>();
 
     /**
      *
@@ -67,16 +85,36 @@ public class HuaweiCMObjectParser {
      *
      * @since 1.0.0
      */
-    private Map<String, Stack> parameterChildMap = new LinkedHashMap<String, Stack>();
+    private Map<String, Stack<String>> parameterChildMap = new LinkedHashMap<String, Stack<String>>();
 
     /**
-     * This holds a map of the Managed Object Instances (MOIs) to the respective
-     * csv print writers.
+     * The csv writers of the Managed Object Instances (MOIs). It is created
+     * when the first row is written.
      *
      * @since 1.0.0
      */
-    private Map<String, PrintWriter> moiPrintWriters
-            = new LinkedHashMap<String, PrintWriter>();
+    private MOWriterPool moiPrintWriters = null;
+    
+    /**
+     * Maximum number of csv files kept open.
+     * 
+     * @since 1.0.15
+     */
+    private int maxOpenFiles = MOWriterPool.DEFAULT_MAX_OPEN_FILES;
+    
+    /**
+     * Compresses the csv files. Null when they are not compressed.
+     * 
+     * @since 1.0.15
+     */
+    private CsvCompressor compressor = null;
+    
+    /**
+     * Csv row of the current MO instance. It is reused for every row.
+     * 
+     * @since 1.0.15
+     */
+    private StringBuilder moiRow = new StringBuilder(1024);
 
     /**
      * Tag data.
@@ -165,24 +203,128 @@ public class HuaweiCMObjectParser {
      * currently being processed.
      *
      * @since 1.0.0
-     * @version 1.0.0
+     * @version 1.1.0
      */
-    private Map<String, String> moiParameterValueMap
-            = new LinkedHashMap<String, String>();
-
+    private MOInstance moi = new MOInstance();
+    
+    //This list should be ignored when checking for switches
+    private Set<String> moListWithoutMVValues
+            = new HashSet<String>(MVParameterClassifier.DEFAULT_MOS_WITHOUT_MV_VALUES);
+    
     /**
-     * The holds the parameters and corresponding values for the moi tag
-     * currently being processed.
-     *
-     * @since 1.0.0
-     * @version 1.0.0
+     * Switch parameter decisions per MO and parameter.
+     * 
+     * @since 1.0.15
      */
-//    private Map<String, LinkedHashMap<String, String>> classNameAttrsMap
-//            = new LinkedHashMap<String, LinkedHashMap<String, String>>();
-    LinkedHashMap<String, String> classNameAttrsMap = new LinkedHashMap<String, String>();
+    private MVParameterClassifier mvParameterClassifier
+            = new MVParameterClassifier(moListWithoutMVValues);
     
-    //This list should be ignored when checking for switches
-    private String[] moListWithoutMVValues = new String[]{"GCELL", "GCELLHOINTERRATLDB", "INVENTORYBOARD", "S1INTERFACE"};
+    /**
+     * Child names and values of the switch value being split.
+     * 
+     * @since 1.0.15
+     */
+    private List<String> mvChildNames = new ArrayList<String>();
+    
+    private List<String> mvChildValues = new ArrayList<String>();
+    
+    /**
+     * Canonical class names, parameter names and values.
+     * 
+     * @since 1.0.15
+     */
+    private SymbolTable symbolTable = new SymbolTable(false);
+    
+    /**
+     * Bytes, objects, rows, times and errors per dump and MO.
+     * 
+     * @since 1.0.15
+     */
+    private RunMetrics metrics = new RunMetrics();
+    
+    /**
+     * Metrics of the dump being parsed.
+     * 
+     * @since 1.0.15
+     */
+    private RunMetrics.FileMetrics fileMetrics = null;
+    
+    private RunMetrics.MOMetrics moMetrics = null;
+    
+    /**
+     * Parameter tags of the object being parsed.
+     * 
+     * @since 1.0.15
+     */
+    private int objectParameters = 0;
+    
+    /**
+     * Files the metrics are written to at the end of the run.
+     * 
+     * @since 1.0.15
+     */
+    private String metricsFile = null;
+    
+    private String prometheusFile = null;
+    
+    /**
+     * Reports the progress of each dump. Null when not enabled.
+     * 
+     * @since 1.0.15
+     */
+    private ProgressReporter progress = null;
+    
+    /**
+     * Input files parsed into the output directory by previous runs. Null
+     * when not parsing incrementally.
+     * 
+     * @since 1.0.15
+     */
+    private InputManifest manifest = null;
+    
+    /**
+     * The csv files of previous runs in the output directory.
+     */
+    private MOFileUpdater moFileUpdater = null;
+    
+    /**
+     * Absolute paths of the new and changed input files of an incremental
+     * run.
+     */
+    private Set<String> incrementalInputs = null;
+    
+    /**
+     * Input files that could not be parsed during an incremental run.
+     */
+    private Set<String> failedInputs = new HashSet<String>();
+    
+    /**
+     * Names of the dumps read from each input file during an incremental 
+     * run.
+     */
+    private Map<String, Set<String>> inputDumps = null;
+    
+    private String inputPath = null;
+    
+    /**
+     * Receives the MO instances instead of the csv files. Null when writing
+     * csv files.
+     * 
+     * @since 1.0.15
+     */
+    private MORecordListener recordListener = null;
+    
+    /**
+     * Writes the MO instances to the csv files when there is no record 
+     * listener.
+     */
+    private CsvRecordWriter csvRecordWriter = null;
+    
+    /**
+     * The MO instance passed to the record listener. It is reused for every
+     * instance.
+     */
+    private MORecord record = new MORecord();
     
     /**
      * ClassName tag stack.
@@ -232,6 +374,14 @@ public class HuaweiCMObjectParser {
      */
     private String version = null;
 
+    /**
+     * The version attribute of the NE object being parsed or null. Unlike
+     * version, it is not carried over from the previous NE.
+     *
+     * @since 1.0.15
+     */
+    private String neKeyVersion = null;
+
     /**
      * Parameter file
      */
@@ -265,6 +415,120 @@ public class HuaweiCMObjectParser {
      */
     private Boolean extractMetaFields = false;
     
+    /**
+     * Extract the parameters and values in one pass over the input files.
+     * 
+     * @since 1.0.15
+     */
+    private Boolean singlePass = false;
+    
+    /**
+     * Holds the MO rows during a single pass parse until the columns are 
+     * known.
+     * 
+     * @since 1.0.15
+     */
+    private MOSpillWriter spillWriter = null;
+    
+    /**
+     * Bytes read from the dump being parsed. The StAX engine measures the
+     * skipped classes with it.
+     * 
+     * @since 1.0.15
+     */
+    private CountingInputStream countingIn = null;
+    
+    /**
+     * Cache of the parameters discovered per NE type and version.
+     * 
+     * @since 1.0.15
+     */
+    private SchemaCache schemaCache = null;
+    
+    /**
+     * Number of files parsed concurrently when the input is a directory.
+     * 
+     * @since 1.0.15
+     */
+    private int threads = 1;
+    
+    /**
+     * Minimum size of the segments of a dump parsed concurrently. Dumps are
+     * not split when it is 0.
+     * 
+     * @since 1.0.15
+     */
+    private long splitSize = GExportSplitter.DEFAULT_SEGMENT_SIZE;
+    
+    /**
+     * Segments of the input files split for the parallel parse. Files that
+     * are not split have one segment.
+     * 
+     * @since 1.0.15
+     */
+    private Map<String, List<GExportSplitter.Segment>> fileSegments 
+            = new HashMap<String, List<GExportSplitter.Segment>>();
+    
+    /**
+     * The dump is a segment that does not end the NE object. The NE 
+     * object's end tag added after the segment is ignored.
+     * 
+     * @since 1.0.15
+     */
+    private boolean partialNEObject = false;
+
+    /**
+     * The MOs and parameters selected by the parameter file.
+     *
+     * @since 1.0.15
+     */
+    private ParameterSelector parameterSelector = new ParameterSelector();
+
+    /**
+     * Selected parameters of the current class. Null without a parameter
+     * file or if the class is not selected.
+     *
+     * @since 1.0.15
+     */
+    private ParameterSelector.Selection classSelection = null;
+
+    /**
+     * The class that started is not in the parameter file. The parse engine
+     * skips it up to its end tag.
+     *
+     * @since 1.0.15
+     */
+    private boolean skipClass = false;
+
+    /**
+     * Read the dumps and write the csv files on their own threads.
+     * 
+     * @since 1.0.15
+     */
+    private Boolean pipeline = false;
+    
+    /**
+     * Write stage of the pipeline. Null when the pipeline is not used or 
+     * has not started.
+     * 
+     * @since 1.0.15
+     */
+    private PipelinedRecordWriter pipelinedWriter = null;
+    
+    /**
+     * Do not print the files being parsed and the counters at the end.
+     * 
+     * @since 1.0.15
+     */
+    private Boolean quiet = false;
+    
+    /**
+     * Parse the dumps with the byte level GExportScanner instead of StAX.
+     * 
+     * @since 1.0.15
+     */
+    private Boolean useScanner = false;
+    
     /**
      * Parsing state
      *
@@ -280,177 +544,1052 @@ public class HuaweiCMObjectParser {
     }
     
     /**
-     * Extract parameter list from parameter file
-     *
-     * @param filename
+     * Parse the input files once, writing the MO rows while the columns are 
+     * still being discovered.
+     * 
+     * @since 1.0.15
+     * @param bool
      */
-    public void getParametersToExtract(String filename) throws FileNotFoundException, IOException, Exception {
-        BufferedReader br = new BufferedReader(new FileReader(filename));
-        for (String line; (line = br.readLine()) != null;) {
-            if(!line.contains(":")){
-                throw new Exception("Wrong format. Contents:" + line);
-            }
-            
-            String[] moAndParameters = line.split(":");
-            String mo = moAndParameters[0].toUpperCase();
-            String[] parameters = moAndParameters[1].split(",");
-
-            Stack parameterStack = new Stack();
-            for (int i = 0; i < parameters.length; i++) {
-                parameterStack.push(parameters[i].toUpperCase());
-            }
-            moColumns.put(mo, parameterStack);
-            //domainHeaderAdded.put(mo, Boolean.TRUE);
-        }
-
-        parserState = ParserStates.EXTRACTING_VALUES;
+    public void setSinglePass(Boolean bool){
+        singlePass = bool;
     }
-
+    
     /**
-     * Reset some variables before parsing next file
-     *
+     * Only parse the input files that are not in the manifest or have changed
+     * since they were recorded, and add their rows to the csv files in the 
+     * output directory. The rows of changed files replace their earlier rows.
+     * 
+     * @since 1.0.15
+     * @param manifest
      */
-    public void resetInternalVariables() {
-        tagData = "";
-        nodeTypeVersion = "";
-        objectDepth = 0;
-        classDepth = 0;
+    public void setInputManifest(InputManifest manifest){
+        this.manifest = manifest;
     }
-
+    
     /**
-     * Set parameter file
-     *
+     * Set the file in which the parameters discovered per NE type and version
+     * are cached between runs.
+     * 
+     * @since 1.0.15
      * @param filename
      */
-    public void setParameterFile(String filename) {
-        //logger.info("Setting parameter file" + filename);
-        parameterFile = filename;
+    public void setSchemaCacheFile(String filename){
+        schemaCache = new SchemaCache(filename);
     }
-
+    
     /**
-     * Determines if the source data file is a regular file or a directory and
-     * parses it accordingly
-     *
-     * @since 1.1.0
-     * @version 1.0.0
-     * @throws XMLStreamException
-     * @throws FileNotFoundException
-     * @throws UnsupportedEncodingException
+     * Set the number of files to parse concurrently when the input is a 
+     * directory. The files are parsed in two passes when more than one thread
+     * is used.
+     * 
+     * @since 1.0.15
+     * @param threads
      */
-    public void processFileOrDirectory()
-            throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException {
-        //this.dataFILe;
-        Path file = Paths.get(this.dataSource);
-        boolean isRegularExecutableFile = Files.isRegularFile(file)
-                & Files.isReadable(file);
-
-        boolean isReadableDirectory = Files.isDirectory(file)
-                & Files.isReadable(file);
-
-        if (isRegularExecutableFile) {
-            this.setFileName(this.dataSource);
-            baseFileName = getFileBasename(this.dataFile);
-            if (parserState == ParserStates.EXTRACTING_PARAMETERS && extractParametersOnly == false) {
-                System.out.print("Extracting parameters from " + this.baseFileName + "...");
-             } else if(parserState == ParserStates.EXTRACTING_VALUES && extractParametersOnly == false) {
-                System.out.print("Parsing " + this.baseFileName + "...");
-            }
-            this.parseFile(this.dataSource);
-            if (parserState == ParserStates.EXTRACTING_PARAMETERS && extractParametersOnly == false) {
-                System.out.println("Done.");
-            } else if(parserState == ParserStates.EXTRACTING_VALUES && extractParametersOnly == false) {
-                System.out.println("Done.");
-                //System.out.println(this.baseFileName + " successfully parsed.\n");
-            }
-        }
-        
-        
-        if (isReadableDirectory) {
-
-            File directory = new File(this.dataSource);
-
-            //get all the files from a directory
-            File[] fList = directory.listFiles();
-
-            for (File f : fList) {
-                this.setFileName(f.getAbsolutePath());
-                try {
-                    baseFileName = getFileBasename(this.dataFile);
-                    if (parserState == ParserStates.EXTRACTING_PARAMETERS && extractParametersOnly == false) {
-                        System.out.print("Extracting parameters from " + this.baseFileName + "...");
-                    } else if(parserState == ParserStates.EXTRACTING_VALUES && extractParametersOnly == false) {
-                        System.out.print("Parsing " + this.baseFileName + "...");
-                    }
-
-                    //Parse
-                    this.parseFile(f.getAbsolutePath());
-                    if (parserState == ParserStates.EXTRACTING_PARAMETERS && extractParametersOnly == false) {
-                        System.out.println("Done.");
-                     } else if(parserState == ParserStates.EXTRACTING_VALUES && extractParametersOnly == false) {
-                        System.out.println("Done.");
-                        //System.out.println(this.baseFileName + " successfully parsed.\n");
-                    }
-
-                } catch (Exception e) {
-                    System.out.println("Error");
-                    System.out.println(e.getMessage());
-                    logger.error("class name:" + className);
-//                    logger.error("MO Parameter List:" + moColumns.get(className).toString());
-//                    logger.error("MO parameter values:" + classNameAttrsMap.toString());
-                    System.out.println("Skipping file: " + this.baseFileName + "\n");
-
-                    resetInternalVariables();
-                }
-            }
-        }
-
+    public void setThreads(int threads){
+        this.threads = threads;
     }
-
+    
     /**
-     * Parser entry point
-     *
-     * @throws XMLStreamException
-     * @throws FileNotFoundException
-     * @throws UnsupportedEncodingException
+     * Set the minimum size of the segments that dumps larger than it are 
+     * split into when more than one thread is used. The segments of a dump
+     * are parsed concurrently. Dumps are not split when the size is 0.
+     * 
+     * @since 1.0.15
+     * @param splitSize Size in bytes
      */
-    public void parse() throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException {
-        //Extract parameters
+    public void setSplitSize(long splitSize){
+        this.splitSize = splitSize;
+    }
+    
+    /**
+     * Run the parse as a pipeline of three stages on their own threads. The
+     * read stage reads each dump ahead of the parser and the write stage
+     * formats and writes the csv rows handed over by the parser in batches.
+     * The busy, idle and blocked times of each stage are printed at the end
+     * and added to the metrics.
+     * 
+     * @since 1.0.15
+     * @param bool
+     */
+    public void setPipeline(Boolean bool){
+        pipeline = bool;
+    }
+    
+    /**
+     * Pass the MO instances to the listener instead of writing csv files. 
+     * The input files are parsed one at a time.
+     * 
+     * @since 1.0.15
+     * @param recordListener
+     */
+    public void setRecordListener(MORecordListener recordListener){
+        this.recordListener = recordListener;
+    }
+    
+    /**
+     * Do not print the files being parsed and the counters at the end.
+     * 
+     * @since 1.0.15
+     * @param bool
+     */
+    public void setQuiet(Boolean bool){
+        quiet = bool;
+    }
+    
+    /**
+     * Returns true if the files being parsed and the counters at the end
+     * are printed.
+     * 
+     * @since 1.0.15
+     * @return boolean
+     */
+    private boolean isPrintingStatus(){
+        return extractParametersOnly == false && quiet == false;
+    }
+    
+    /**
+     * Set the maximum number of csv files kept open. The least recently used
+     * file is closed when more MOs are written and reopened when needed.
+     * 
+     * @since 1.0.15
+     * @param maxOpenFiles
+     */
+    public void setMaxOpenFiles(int maxOpenFiles){
+        this.maxOpenFiles = maxOpenFiles;
+    }
+    
+    /**
+     * Write the MO csv files as CLASSNAME.csv.gz with the compressor.
+     * 
+     * @since 1.0.15
+     * @param compressor
+     */
+    public void setCompressor(CsvCompressor compressor){
+        this.compressor = compressor;
+    }
+    
+    /**
+     * Deduplicate short parameter values such as ENABLE and DISABLE read by
+     * the scanner engine. The symbol table counters are printed at the end.
+     * 
+     * @since 1.0.15
+     * @param dedupValues
+     */
+    public void setDedupValues(boolean dedupValues){
+        this.symbolTable = new SymbolTable(dedupValues);
+    }
+    
+    /**
+     * The canonical names and values of this parser.
+     * 
+     * @since 1.0.15
+     * @return SymbolTable
+     */
+    public SymbolTable getSymbolTable(){
+        return symbolTable;
+    }
+    
+    /**
+     * Write the run metrics as JSON to a file at the end of the run.
+     * 
+     * @since 1.0.15
+     * @param filename
+     */
+    public void setMetricsFile(String filename){
+        this.metricsFile = filename;
+    }
+    
+    /**
+     * Report the bytes read, the rates and the time remaining of each dump.
+     * 
+     * @since 1.0.15
+     * @param progress
+     */
+    public void setProgressReporter(ProgressReporter progress){
+        this.progress = progress;
+    }
+    
+    /**
+     * Write the run metrics in the Prometheus text format to a file at the
+     * end of the run.
+     * 
+     * @since 1.0.15
+     * @param filename
+     */
+    public void setPrometheusFile(String filename){
+        this.prometheusFile = filename;
+    }
+    
+    /**
+     * The metrics of the run.
+     * 
+     * @since 1.0.15
+     * @return RunMetrics
+     */
+    public RunMetrics getMetrics(){
+        return metrics;
+    }
+    
+    /**
+     * Set the MOs whose parameter values are never split into switches. An
+     * MO is matched by the part of its name before the first underscore.
+     * 
+     * @since 1.0.15
+     * @param moList
+     */
+    public void setMOListWithoutMVValues(Collection<String> moList){
+        this.moListWithoutMVValues = new HashSet<String>(moList);
+        this.mvParameterClassifier = new MVParameterClassifier(moListWithoutMVValues);
+    }
+    
+    /**
+     * The pool of open csv writers.
+     * 
+     * @since 1.0.15
+     * @return MOWriterPool
+     */
+    public MOWriterPool getMOWriterPool(){
+        if (moiPrintWriters == null) {
+            moiPrintWriters = new MOWriterPool(outputDirectory, maxOpenFiles);
+            moiPrintWriters.setCompressor(compressor);
+        }
+        return moiPrintWriters;
+    }
+    
+    /**
+     * Parse the dumps with the byte level GExportScanner instead of the StAX
+     * parser.
+     * 
+     * @since 1.0.15
+     * @param bool
+     */
+    public void setUseScanner(Boolean bool){
+        useScanner = bool;
+    }
+    
+    /**
+     * Extract parameter list from parameter file
+     * 
+     * When the file has patterns or selects all the parameters of an MO 
+     * the MOs and their columns are found in a parameters pass. Otherwise
+     * the columns are the listed parameters and the values are extracted
+     * in one pass.
+     *
+     * @param filename
+     */
+    public void getParametersToExtract(String filename) throws FileNotFoundException, IOException, Exception {
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        try {
+            for (String line; (line = br.readLine()) != null;) {
+                parameterSelector.addLine(line);
+            }
+        } finally {
+            br.close();
+        }
+
+        //The MOs and columns matching patterns are found in a parameters pass
+        if (parameterSelector.hasPatterns()) {
+            return;
+        }
+
+        for (String mo : parameterSelector.getMOs()) {
+            moColumns.put(mo, new MOColumns(parameterSelector.getSelection(mo).getColumns()));
+        }
+
+        parserState = ParserStates.EXTRACTING_VALUES;
+    }
+
+    /**
+     * Reset some variables before parsing next file
+     *
+     */
+    public void resetInternalVariables() {
+        tagData = "";
+        nodeTypeVersion = "";
+        objectDepth = 0;
+        classDepth = 0;
+        classSelection = null;
+        skipClass = false;
+        moi.clear();
+    }
+
+    /**
+     * Set parameter file
+     *
+     * @param filename
+     */
+    public void setParameterFile(String filename) {
+        //logger.info("Setting parameter file" + filename);
+        parameterFile = filename;
+    }
+
+    /**
+     * Determines if the source data file is a regular file or a directory and
+     * parses it accordingly
+     *
+     * @since 1.1.0
+     * @version 1.0.0
+     * @throws XMLStreamException
+     * @throws FileNotFoundException
+     * @throws UnsupportedEncodingException
+     */
+    public void processFileOrDirectory()
+            throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException, IOException {
+        //this.dataFILe;
+        Path file = Paths.get(this.dataSource);
+        boolean isRegularExecutableFile = Files.isRegularFile(file)
+                & Files.isReadable(file);
+
+        boolean isReadableDirectory = Files.isDirectory(file)
+                & Files.isReadable(file);
+
+        if (isRegularExecutableFile && incrementalInputs != null 
+                && !incrementalInputs.contains(file.toFile().getAbsolutePath())) {
+            isRegularExecutableFile = false;
+        }
+        
+        //Parse the segments of a large file concurrently
+        if (isRegularExecutableFile && threads > 1 && recordListener == null
+                && getSegments(file.toFile()).get(0) != null) {
+            processFilesInParallel(new File[] {file.toFile()}, false);
+            return;
+        }
+        
+        if (isRegularExecutableFile) {
+            this.setFileName(this.dataSource);
+            baseFileName = getFileBasename(this.dataFile);
+            if (parserState == ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                System.out.print("Extracting parameters from " + this.baseFileName + "...");
+             } else if(parserState != ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                System.out.print("Parsing " + this.baseFileName + "...");
+            }
+            this.processFile(this.dataSource);
+            if (parserState == ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                System.out.println("Done.");
+            } else if(parserState != ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                System.out.println("Done.");
+                //System.out.println(this.baseFileName + " successfully parsed.\n");
+            }
+        }
+        
+        
+        if (isReadableDirectory) {
+
+            File directory = new File(this.dataSource);
+
+            //get all the files from a directory
+            File[] fList = directory.listFiles();
+            
+            if (incrementalInputs != null) {
+                List<File> changed = new ArrayList<File>();
+                for (File f : fList) {
+                    if (incrementalInputs.contains(f.getAbsolutePath())) {
+                        changed.add(f);
+                    }
+                }
+                fList = changed.toArray(new File[changed.size()]);
+            }
+            
+            if (threads > 1 && recordListener == null) {
+                processFilesInParallel(fList, true);
+                return;
+            }
+
+            for (File f : fList) {
+                this.setFileName(f.getAbsolutePath());
+                try {
+                    baseFileName = getFileBasename(this.dataFile);
+                    if (parserState == ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                        System.out.print("Extracting parameters from " + this.baseFileName + "...");
+                    } else if(parserState != ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                        System.out.print("Parsing " + this.baseFileName + "...");
+                    }
+
+                    //Parse
+                    this.processFile(f.getAbsolutePath());
+                    if (parserState == ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                        System.out.println("Done.");
+                     } else if(parserState != ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                        System.out.println("Done.");
+                        //System.out.println(this.baseFileName + " successfully parsed.\n");
+                    }
+
+                } catch (SchemaCacheMissException e) {
+                    throw e;
+                } catch (Exception e) {
+                    System.out.println("Error");
+                    System.out.println(e.getMessage());
+                    logger.error("class name:" + className);
+//                    logger.error("MO Parameter List:" + moColumns.get(className).toString());
+//                    logger.error("MO parameter values:" + classNameAttrsMap.toString());
+                    System.out.println("Skipping file: " + this.baseFileName + "\n");
+                    failedInputs.add(f.getAbsolutePath());
+
+                    resetInternalVariables();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Parse the files of a directory concurrently.
+     * 
+     * Each file is parsed by a worker parser with its own state. Files 
+     * larger than the split size are split into segments that are parsed by
+     * separate workers. During the parameter extraction the workers' MO 
+     * columns are merged in file and segment order. During the value 
+     * extraction each worker writes its csv files to a part directory which 
+     * are merged into the output directory in file and segment order. The 
+     * output is the same as when the files are parsed one at a time.
+     * 
+     * @since 1.0.15
+     * @param fList Files to parse
+     * @param skipFailedFiles Skip the files that cannot be parsed instead of
+     *                        throwing their error
+     * @throws IOException
+     */
+    private void processFilesInParallel(File[] fList, boolean skipFailedFiles) 
+            throws XMLStreamException, FileNotFoundException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        MOFileMerger merger = new MOFileMerger(outputDirectory);
+        merger.setCompressor(compressor);
+        if (moFileUpdater != null) {
+            for (String moName : moFileUpdater.getClassNames()) {
+                merger.addExistingFile(moName + ".csv");
+            }
+        }
+        
+        //Files and segments to parse. The segments of a file are added when 
+        //the workers reach the file.
+        List<File> inputs = new ArrayList<File>();
+        List<GExportSplitter.Segment> segments = new ArrayList<GExportSplitter.Segment>();
+        int nextFile = 0;
+        
+        List<HuaweiCMObjectParser> workers = new ArrayList<HuaweiCMObjectParser>();
+        List<Future<Exception>> futures = new ArrayList<Future<Exception>>();
+        File failedFile = null;
+        
+        try {
+            for (int i = 0; ; i++) {
+                //Keep a bounded number of parsed files waiting to be merged
+                while (futures.size() < i + 2 * threads 
+                        && (futures.size() < inputs.size() || nextFile < fList.length)) {
+                    int j = futures.size();
+                    if (j == inputs.size()) {
+                        File f = fList[nextFile++];
+                        for (GExportSplitter.Segment segment : getSegments(f)) {
+                            inputs.add(f);
+                            segments.add(segment);
+                        }
+                        continue;
+                    }
+                    
+                    String inputFilename = inputs.get(j).getAbsolutePath();
+                    workers.add(null);
+                    
+                    if (parserState == ParserStates.EXTRACTING_PARAMETERS 
+                            && schemaCache != null && parameterFile == null) {
+                        String neKey = getNEKey(inputFilename);
+                        if (neKey != null && schemaCache.isCached(neKey)) {
+                            futures.add(null);
+                            continue;
+                        }
+                    }
+                    
+                    HuaweiCMObjectParser worker = createWorker();
+                    workers.set(j, worker);
+                    futures.add(executor.submit(worker.createParseTask(inputFilename, segments.get(j))));
+                }
+                
+                if (i == futures.size()) {
+                    break;
+                }
+                
+                File input = inputs.get(i);
+                GExportSplitter.Segment segment = segments.get(i);
+                boolean firstSegment = segment == null || segment.getIndex() == 0;
+                boolean lastSegment = segment == null || segment.isLast();
+                this.setFileName(input.getAbsolutePath());
+                baseFileName = getFileBasename(this.dataFile);
+                
+                Exception error = null;
+                HuaweiCMObjectParser worker = workers.get(i);
+                workers.set(i, null);
+                if (futures.get(i) == null) {
+                    if (firstSegment) {
+                        schemaCache.mergeInto(getNEKey(dataFile), moColumns, parameterChildMap);
+                    }
+                } else {
+                    try {
+                        error = futures.get(i).get();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    } catch (ExecutionException e) {
+                        throw new IOException(e.getCause());
+                    }
+                    
+                    //The parse of a file stops at its first error
+                    if (input == failedFile) {
+                        if (parserState != ParserStates.EXTRACTING_PARAMETERS) {
+                            MOFileMerger.discard(new File(worker.outputDirectory));
+                        }
+                        continue;
+                    }
+                    
+                    symbolTable.addCounters(worker.symbolTable);
+                    metrics.add(worker.metrics);
+                    if (inputDumps != null) {
+                        inputDumps.putAll(worker.inputDumps);
+                    }
+                    if (parserState == ParserStates.EXTRACTING_PARAMETERS) {
+                        mergeWorkerParameters(worker);
+                    } else {
+                        merger.merge(new File(worker.outputDirectory));
+                        if (worker.moiPrintWriters != null) {
+                            getMOWriterPool().addCounters(worker.moiPrintWriters);
+                        }
+                    }
+                }
+                
+                if (firstSegment && parserState == ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                    System.out.print("Extracting parameters from " + this.baseFileName + "...");
+                } else if(firstSegment && parserState != ParserStates.EXTRACTING_PARAMETERS && isPrintingStatus()) {
+                    System.out.print("Parsing " + this.baseFileName + "...");
+                }
+                
+                if (error instanceof SchemaCacheMissException) {
+                    throw (SchemaCacheMissException) error;
+                }
+                
+                if (error == null && lastSegment && isPrintingStatus()) {
+                    System.out.println("Done.");
+                } else if (error != null) {
+                    failedFile = input;
+                    if (!skipFailedFiles) {
+                        throw new IOException(error.getMessage(), error);
+                    }
+                    System.out.println("Error");
+                    System.out.println(error.getMessage());
+                    logger.error("class name:" + worker.className);
+                    failedInputs.add(input.getAbsolutePath());
+                    System.out.println("Skipping file: " + this.baseFileName + "\n");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (HuaweiCMObjectParser worker : workers) {
+                if (worker != null && parserState != ParserStates.EXTRACTING_PARAMETERS) {
+                    MOFileMerger.discard(new File(worker.outputDirectory));
+                }
+            }
+        }
+    }
+    
+    /**
+     * The segments a file is parsed in by the workers. The file is split 
+     * once and its segments are reused by the values pass.
+     * 
+     * @since 1.0.15
+     * @param f
+     * @return List of segments or a null segment if the file is not split
+     * @throws IOException
+     */
+    private List<GExportSplitter.Segment> getSegments(File f) throws IOException {
+        String inputFilename = f.getAbsolutePath();
+        List<GExportSplitter.Segment> segments = fileSegments.get(inputFilename);
+        if (segments != null) {
+            return segments;
+        }
+        
+        segments = Arrays.asList((GExportSplitter.Segment) null);
+        if (splitSize > 0 && f.length() > splitSize 
+                && !GExportArchive.isArchive(inputFilename)) {
+            List<GExportSplitter.Segment> split = GExportSplitter.split(inputFilename, splitSize);
+            if (split.size() > 1) {
+                segments = split;
+            }
+        }
+        
+        fileSegments.put(inputFilename, segments);
+        return segments;
+    }
+    
+    /**
+     * Create a parser with the configuration of this parser to parse one
+     * file of a directory.
+     * 
+     * @since 1.0.15
+     * @return HuaweiCMObjectParser
+     * @throws IOException
+     */
+    private HuaweiCMObjectParser createWorker() throws IOException {
+        HuaweiCMObjectParser worker = new HuaweiCMObjectParser();
+        worker.parserState = parserState;
+        worker.parameterFile = parameterFile;
+        worker.parameterSelector = parameterSelector.copy();
+        worker.extractParametersOnly = extractParametersOnly;
+        worker.extractMetaFields = extractMetaFields;
+        worker.separateSwitches = separateSwitches;
+        worker.setMOListWithoutMVValues(moListWithoutMVValues);
+        worker.setDedupValues(symbolTable.isDedupValues());
+        worker.useScanner = useScanner;
+        worker.pipeline = pipeline;
+        worker.maxOpenFiles = Math.max(1, maxOpenFiles / threads);
+        
+        if (progress != null) {
+            worker.progress = progress.createWorkerReporter();
+        }
+        if (inputDumps != null) {
+            worker.inputDumps = new LinkedHashMap<String, Set<String>>();
+        }
+        
+        //The values are extracted with the MO columns of all the files. These
+        //are only read by the workers.
+        if (parserState != ParserStates.EXTRACTING_PARAMETERS) {
+            worker.moColumns = moColumns;
+            worker.parameterChildMap = parameterChildMap;
+            worker.schemaCache = schemaCache;
+            worker.outputDirectory = Files.createTempDirectory(
+                    Paths.get(outputDirectory), ".boda_").toString();
+        }
+        
+        return worker;
+    }
+    
+    /**
+     * Task parsing a file or a segment of a file with this parser.
+     * 
+     * @since 1.0.15
+     * @param inputFilename
+     * @param segment The segment of the file or null to parse the whole file
+     * @return Callable returning the error that stopped the parsing or null
+     */
+    private Callable<Exception> createParseTask(final String inputFilename, 
+            final GExportSplitter.Segment segment) {
+        return new Callable<Exception>() {
+            public Exception call() {
+                Exception error = null;
+                try {
+                    if (segment == null) {
+                        parseFile(inputFilename);
+                    } else {
+                        parseSegment(segment);
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+                
+                try {
+                    closeMOPWMap();
+                } catch (IOException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+                return error;
+            }
+        };
+    }
+    
+    /**
+     * Add the MO columns and parameter children a worker extracted from its 
+     * file.
+     * 
+     * @since 1.0.15
+     * @param worker
+     */
+    private void mergeWorkerParameters(HuaweiCMObjectParser worker) {
+        for (Map.Entry<String, MOColumns> entry : worker.moColumns.entrySet()) {
+            MOColumns moiAttributes = moColumns.get(entry.getKey());
+            if (moiAttributes == null) {
+                moiAttributes = new MOColumns();
+                moColumns.put(entry.getKey(), moiAttributes);
+            }
+            
+            moiAttributes.addAll(entry.getValue());
+            
+            if (schemaCache != null && parameterFile == null) {
+                schemaCache.addMOColumns(worker.getNEKey(), entry.getKey(), entry.getValue());
+            }
+        }
+        
+        for (Map.Entry<String, Stack<String>> entry : worker.parameterChildMap.entrySet()) {
+            parameterChildMap.put(entry.getKey(), entry.getValue());
+            
+            if (schemaCache != null && parameterFile == null) {
+                schemaCache.addParameterChildren(worker.getNEKey(), entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Parse a file or load its parameters from the schema cache.
+     * 
+     * @since 1.0.15
+     * @param inputFilename
+     */
+    private void processFile(String inputFilename) 
+            throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException, IOException {
+        if (parserState == ParserStates.EXTRACTING_PARAMETERS 
+                && schemaCache != null && parameterFile == null) {
+            String neKey = getNEKey(inputFilename);
+            if (neKey != null && schemaCache.isCached(neKey)) {
+                schemaCache.mergeInto(neKey, moColumns, parameterChildMap);
+                return;
+            }
+        }
+        
+        this.parseFile(inputFilename);
+    }
+    
+    /**
+     * Read the NE type and version of a file from its first class and object
+     * tags.
+     * 
+     * @since 1.0.15
+     * @param inputFilename
+     * @return String The schema cache key or null if the file has no NE object
+     *                or is an archive
+     */
+    private String getNEKey(String inputFilename) 
+            throws XMLStreamException, FileNotFoundException, IOException {
+        //The dumps in an archive can be of different NEs. Their parameters 
+        //are always extracted.
+        if (GExportArchive.isArchive(inputFilename)) {
+            return null;
+        }
+        
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        InputStream in = new FileInputStream(inputFilename);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        
+        String neType = null;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                
+                String qName = reader.getLocalName();
+                if (qName.equals("class") && neType == null) {
+                    neType = reader.getAttributeValue(null, "name");
+                }
+                
+                if (qName.equals("object")) {
+                    if (neType == null) {
+                        return null;
+                    }
+                    return SchemaCache.getKey(neType, reader.getAttributeValue(null, "version"));
+                }
+            }
+        } finally {
+            reader.close();
+            in.close();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Read the MO instances of a dump, archive or directory of dumps one at
+     * a time without writing csv files. The input is only parsed as far as
+     * the records are read. The reader should be closed if it is not read 
+     * to the end.
+     * 
+     * The dumps are read in a single pass with the StAX parser, so the 
+     * columns of a record are the columns of its MO discovered so far. The
+     * parameter file and the MOs without switches are used.
+     * 
+     * @since 1.0.15
+     * @param path Dump, archive or directory
+     * @return MORecordReader
+     * @throws IOException
+     */
+    public MORecordReader records(String path) throws IOException {
+        return new MORecordReader(this, path);
+    }
+    
+    /**
+     * Pass each MO instance parsed from the dumps started with 
+     * {@link #startDump(String)} to the listener.
+     * 
+     * @since 1.0.15
+     * @param listener
+     */
+    void startRecords(MORecordListener listener) {
+        recordListener = listener;
+        
+        //The columns of a parameter file without patterns are not extended
+        parserState = parameterFile == null || parameterSelector.hasPatterns()
+                ? ParserStates.EXTRACTING_PARAMETERS_AND_VALUES : ParserStates.EXTRACTING_VALUES;
+        resetInternalVariables();
+    }
+    
+    /**
+     * Parser entry point
+     *
+     * @throws XMLStreamException
+     * @throws FileNotFoundException
+     * @throws UnsupportedEncodingException
+     */
+    public void parse() throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException, IOException {
+        //Also called when the parse starts over after a schema change
+        if (manifest != null && extractParametersOnly == false 
+                && (incrementalInputs == null || parserState == ParserStates.EXTRACTING_PARAMETERS)) {
+            startIncrementalRun();
+        }
+        
+        //Extract parameters and values in one pass
+        if (parserState == ParserStates.EXTRACTING_PARAMETERS 
+                && singlePass == true && extractParametersOnly == false 
+                && recordListener != null) {
+            parserState = ParserStates.EXTRACTING_PARAMETERS_AND_VALUES;
+            processFileOrDirectory();
+            parserState = ParserStates.EXTRACTING_DONE;
+        }
+        
+        if (parserState == ParserStates.EXTRACTING_PARAMETERS 
+                && singlePass == true && threads <= 1 && extractParametersOnly == false
+                && parameterFile == null) {
+            parserState = ParserStates.EXTRACTING_PARAMETERS_AND_VALUES;
+            spillWriter = new MOSpillWriter(outputDirectory, maxOpenFiles);
+            spillWriter.setCompressor(compressor);
+            try {
+                processFileOrDirectory();
+                prepareIncrementalOutput();
+                writeSpilledMOValues();
+            } finally {
+                spillWriter.close();
+            }
+            parserState = ParserStates.EXTRACTING_DONE;
+        }
+        
+        if (parserState == ParserStates.EXTRACTING_PARAMETERS 
+                && schemaCache != null && parameterFile == null) {
+            schemaCache.load();
+        }
+        
+        //Extract parameters
         if (parserState == ParserStates.EXTRACTING_PARAMETERS) {
             processFileOrDirectory();
+            
+            if (schemaCache != null && parameterFile == null) {
+                schemaCache.save();
+            }
 
             parserState = ParserStates.EXTRACTING_VALUES;
         }
-
-
-        //Reset variables
-        resetInternalVariables();
+
+
+        //Reset variables
+        resetInternalVariables();
+        
+        if(this.extractParametersOnly == true ){
+            displayMOsAndParameters();
+        }
+
+        //Extracting values
+        if (parserState == ParserStates.EXTRACTING_VALUES) {
+            try {
+                prepareIncrementalOutput();
+                processFileOrDirectory();
+            } catch (SchemaCacheMissException e) {
+                System.out.println("Schema changed.");
+                System.out.println(e.getMessage());
+                
+                //Discover the parameters of the NE again and start over
+                schemaCache.invalidate(e.getNEKey());
+                closeMOPWMap();
+                moColumns.clear();
+                parameterChildMap.clear();
+                moi.clear();
+                resetInternalVariables();
+                metrics = new RunMetrics();
+                moMetrics = null;
+                parserState = ParserStates.EXTRACTING_PARAMETERS;
+                parse();
+                return;
+            }
+            parserState = ParserStates.EXTRACTING_DONE;
+        }
+
+        closeMOPWMap();
+        finishIncrementalRun();
+        writeMetrics();
+        if (progress != null) {
+            progress.done();
+        }
+
+        if(isPrintingStatus()){
+            printWriterPoolCounters();
+            printSymbolTableCounters();
+            printStageMetrics();
+            printSkipCounters();
+            printExecutionTime();
+        }
+        
+        
+    }
+
+    /**
+     * Select the new and changed input files and read the columns of the
+     * csv files written by the previous runs. The columns of the existing 
+     * files are the first columns of their MOs so that the new rows can be
+     * appended to them.
+     * 
+     * @since 1.0.15
+     * @throws IOException
+     */
+    private void startIncrementalRun() throws IOException {
+        if (compressor != null || recordListener != null) {
+            throw new IOException("Incremental runs only support uncompressed csv files.");
+        }
+        if (incrementalInputs == null) {
+            manifest.load();
+            incrementalInputs = new LinkedHashSet<String>();
+            inputDumps = new LinkedHashMap<String, Set<String>>();
+            
+            File input = new File(dataSource);
+            File[] files = input.isDirectory() ? input.listFiles() : new File[]{input};
+            int newFiles = 0;
+            for (File f : files) {
+                if (f.isFile() && manifest.isNewOrChanged(f)) {
+                    incrementalInputs.add(f.getAbsolutePath());
+                    newFiles += manifest.contains(f) ? 0 : 1;
+                }
+            }
+            System.out.println("Incremental run. New files: " + newFiles + " Changed files: " 
+                    + (incrementalInputs.size() - newFiles) + " Unchanged files: " 
+                    + (files.length - incrementalInputs.size()));
+        }
+        
+        moFileUpdater = new MOFileUpdater(outputDirectory);
+        if (parameterFile != null) {
+            return;
+        }
         
-        if(this.extractParametersOnly == true ){
-            displayMOsAndParameters();
+        String metaFields = getMOHeader(new MOColumns());
+        for (String moName : moFileUpdater.getClassNames()) {
+            String header = moFileUpdater.getHeader(moName);
+            if (moColumns.containsKey(moName) || !header.startsWith(metaFields)) {
+                continue;
+            }
+            
+            MOColumns columns = new MOColumns();
+            if (header.length() > metaFields.length()) {
+                columns.addAll(Arrays.asList(header.substring(metaFields.length() + 1).split(",", -1)));
+            }
+            moColumns.put(moName, columns);
         }
-
-        //Extracting values
-        if (parserState == ParserStates.EXTRACTING_VALUES) {
-            processFileOrDirectory();
-            parserState = ParserStates.EXTRACTING_DONE;
+    }
+    
+    /**
+     * Mark the selected input files as pending in the manifest, then give 
+     * the existing csv files the columns of this run and drop the rows of the 
+     * dumps that are parsed again. Called once the columns are known and 
+     * before the first row is written.
+     * 
+     * @since 1.0.15
+     * @throws IOException
+     */
+    private void prepareIncrementalOutput() throws IOException {
+        if (moFileUpdater == null) {
+            return;
         }
-
-        closeMOPWMap();
-
-        if(extractParametersOnly == false ){
-            printExecutionTime();
+        
+        Set<String> removedDumps = new HashSet<String>();
+        for (String path : incrementalInputs) {
+            File f = new File(path);
+            Set<String> dumps = inputDumps.get(path);
+            if (dumps == null) {
+                //Not read yet when the schema was cached
+                dumps = new LinkedHashSet<String>();
+                if (!GExportArchive.isArchive(path)) {
+                    dumps.add(getFileBasename(path));
+                }
+            }
+            
+            //Rows of the dumps recorded for the file, including the dumps of 
+            //a run that did not complete
+            removedDumps.addAll(manifest.getDumps(f));
+            manifest.addPending(f, dumps);
+        }
+        manifest.save();
+        
+        MOWriterPool writerPool = getMOWriterPool();
+        for (String moName : moFileUpdater.getClassNames()) {
+            MOColumns moiAttributes = moColumns.get(moName);
+            String header = moFileUpdater.getHeader(moName);
+            if (moiAttributes != null && parameterFile == null) {
+                header = getMOHeader(moiAttributes);
+            } else if (moiAttributes != null) {
+                StringBuilder pName = new StringBuilder();
+                for (String parameterName : moiAttributes) {
+                    pName.append(',').append(parameterName);
+                }
+                header = pName.length() > 0 ? pName.substring(1) : "";
+            }
+            
+            moFileUpdater.update(moName, header, removedDumps);
+            writerPool.addExistingFile(moName);
+        }
+    }
+    
+    /**
+     * Record the input files parsed without errors in the manifest.
+     * 
+     * @since 1.0.15
+     * @throws IOException
+     */
+    private void finishIncrementalRun() throws IOException {
+        if (moFileUpdater == null) {
+            return;
         }
         
+        for (String path : incrementalInputs) {
+            Set<String> dumps = inputDumps.get(path);
+            if (!failedInputs.contains(path) && dumps != null) {
+                manifest.addParsed(new File(path), dumps);
+            }
+        }
+        manifest.save();
         
+        if (extractParametersOnly == false) {
+            System.out.println("Incremental run. Files rewritten: " + moFileUpdater.getFilesRewritten()
+                    + " Rows replaced: " + moFileUpdater.getRowsRemoved());
+            if (!moFileUpdater.getUnfilteredFiles().isEmpty()) {
+                System.out.println("Rows of changed files were kept in the csv files without a FILENAME column: " 
+                        + moFileUpdater.getUnfilteredFiles());
+            }
+        }
+        moFileUpdater = null;
     }
-
+    
+    /**
+     * Write the rows held by the spill writer to the MO csv files now that 
+     * all the columns are known.
+     * 
+     * @since 1.0.15
+     * @throws IOException
+     */
+    private void writeSpilledMOValues() throws IOException {
+        for (String moName : spillWriter.getClassNames()) {
+            MOColumns moiAttributes = moColumns.get(moName);
+            String moiFile = outputDirectory + File.separatorChar + moName + ".csv";
+            spillWriter.writeCsv(moName, new File(moiFile), 
+                    getMOHeader(moiAttributes), moiAttributes.size(),
+                    moFileUpdater != null && moFileUpdater.getHeader(moName) != null);
+        }
+    }
+    
     /*
     Print list of managed objects and their parameters 
     */
     public void displayMOsAndParameters(){
-        for (Map.Entry<String, Stack> entry : moColumns.entrySet()) {
+        for (Map.Entry<String, MOColumns> entry : moColumns.entrySet()) {
             String moName = entry.getKey();
-            Stack moParameterList = moColumns.get(moName);
+            MOColumns moParameterList = moColumns.get(moName);
 
             String moParameterListString = moName + ":";
 
@@ -464,7 +1603,7 @@ public class HuaweiCMObjectParser {
             }
             
             for(int i = 0; i < size; i++){
-                String param = (String)moParameterList.get(i);
+                String param = moParameterList.get(i);
                 if( i == size -1) {
                     moParameterListString += param;
                 } else{
@@ -478,185 +1617,475 @@ public class HuaweiCMObjectParser {
     
     /**
      * The parser's entry point.
+     * 
+     * Gzip, zip and gzipped tar files are decompressed while they are parsed.
      *
      */
     public void parseFile(String inputFilename)
-            throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException {
-        XMLInputFactory factory = XMLInputFactory.newInstance();
-
-        XMLEventReader eventReader = factory.createXMLEventReader(
-                new FileReader(inputFilename));
-        baseFileName = getFileBasename(inputFilename);
+            throws XMLStreamException, FileNotFoundException, UnsupportedEncodingException, IOException {
+        inputPath = new File(inputFilename).getAbsolutePath();
+        if (GExportArchive.isArchive(inputFilename)) {
+            GExportArchive archive = new GExportArchive(inputFilename);
+            try {
+                while (archive.nextEntry()) {
+                    parseInputStream(archive.getInputStream(), archive.getEntryName(),
+                            archive.getEntrySize());
+                }
+            } finally {
+                archive.close();
+            }
+            return;
+        }
+        
+        InputStream in = new MappedFileInputStream(inputFilename);
+        try {
+            parseInputStream(in, inputFilename, new File(inputFilename).length());
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Parse a segment of a dump.
+     * 
+     * @since 1.0.15
+     * @param segment
+     */
+    private void parseSegment(GExportSplitter.Segment segment)
+            throws XMLStreamException, UnsupportedEncodingException, IOException {
+        String inputFilename = segment.getFilename();
+        inputPath = new File(inputFilename).getAbsolutePath();
+        partialNEObject = !segment.isLast();
+        
+        InputStream in = segment.open();
+        try {
+            parseInputStream(in, inputFilename, segment.getLength());
+        } finally {
+            in.close();
+            partialNEObject = false;
+            
+            //Only count the bytes of the dump
+            metrics.getFile(baseFileName).bytesRead -= segment.getAddedLength();
+        }
+    }
+    
+    /**
+     * Parse a dump read from a stream.
+     * 
+     * The file name, date and time are taken from the name of the dump. The 
+     * bytes are decoded with the encoding declared in the XML prolog.
+     * 
+     * @since 1.0.15
+     * @param in The dump
+     * @param dumpName The file name of the dump or its entry name in an archive
+     * @param size Size of the dump in bytes or -1 if not known
+     */
+    private void parseInputStream(InputStream in, String dumpName, long size)
+            throws XMLStreamException, UnsupportedEncodingException, IOException {
+        startDump(dumpName);
+        
+        if (inputDumps != null) {
+            Set<String> dumps = inputDumps.get(inputPath);
+            if (dumps == null) {
+                dumps = new LinkedHashSet<String>();
+                inputDumps.put(inputPath, dumps);
+            }
+            dumps.add(baseFileName);
+        }
+        
+        fileMetrics = metrics.getFile(baseFileName);
+        
+        //Read stage
+        RunMetrics.StageMetrics parseStage = null;
+        long parseWaitNanos = 0;
+        if (pipeline == true) {
+            RunMetrics.StageMetrics readStage = metrics.getStage("read");
+            parseStage = metrics.getStage("parse");
+            metrics.getStage("write");
+            parseWaitNanos = parseStage.idleNanos + parseStage.blockedNanos;
+            in = new PrefetchInputStream(in, readStage, parseStage);
+        }
+        
+        countingIn = new CountingInputStream(in);
+        if (progress != null) {
+            progress.start(baseFileName, parserState == ParserStates.EXTRACTING_PARAMETERS 
+                    ? "parameters" : "values", size, countingIn);
+        }
+        long start = System.nanoTime();
+        try {
+            parseXML(countingIn);
+        } catch (SchemaCacheMissException e) {
+            throw e;
+        } catch (XMLStreamException e) {
+            fileMetrics.addError(e);
+            throw e;
+        } catch (IOException e) {
+            fileMetrics.addError(e);
+            throw e;
+        } catch (RuntimeException e) {
+            fileMetrics.addError(e);
+            throw e;
+        } finally {
+            if (parseStage != null) {
+                in.close();
+                parseStage.items++;
+                parseStage.busyNanos += System.nanoTime() - start 
+                        - (parseStage.idleNanos + parseStage.blockedNanos - parseWaitNanos);
+            }
+            fileMetrics.bytesRead += countingIn.getCount();
+            countingIn = null;
+            fileMetrics.timeNanos += System.nanoTime() - start;
+            fileMetrics.setNEType(nodeTypeVersion);
+            fileMetrics = null;
+            if (progress != null) {
+                progress.end();
+            }
+        }
+    }
+    
+    /**
+     * Set the file name, date and time of the dump about to be parsed.
+     * 
+     * @since 1.0.15
+     * @param dumpName The file name of the dump or its entry name in an archive
+     */
+    void startDump(String dumpName) {
+        baseFileName = getFileBasename(dumpName);
         
         //Extract date from timestamp
-        dateTime = inputFilename.replaceFirst(".*_(\\d+)\\.\\D{3}", "$1");
+        dateTime = dumpName.replaceFirst(".*_(\\d+)\\.\\D{3}", "$1");
         dateTime = dateTime.replaceFirst("(\\d{4})(\\d{2})(\\d{2})(\\d{2})(\\d{2})(\\d{2})", "$1-$2-$3 $4:$5:$6");
+    }
+    
+    /**
+     * Parse the XML of a dump with the selected engine.
+     * 
+     * @since 1.0.15
+     * @param in The dump
+     */
+    private void parseXML(InputStream in)
+            throws XMLStreamException, UnsupportedEncodingException, IOException {
+        if (useScanner == true) {
+            new GExportScanner(this).scan(in);
+            return;
+        }
+        
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
 
-        while (eventReader.hasNext()) {
-            XMLEvent event = eventReader.nextEvent();
-
-            switch (event.getEventType()) {
-                case XMLStreamConstants.START_ELEMENT:
-                    startElementEvent(event);
-                    break;
-                case XMLStreamConstants.SPACE:
-                case XMLStreamConstants.CHARACTERS:
-                    characterEvent(event);
-                    break;
-                case XMLStreamConstants.END_ELEMENT:
-                    endELementEvent(event);
-                    break;
-                case XMLStreamConstants.COMMENT:
-                    if (moiParameterValueMap.containsKey(this.previousTag)) {
-                        String comment
-                                = ((javax.xml.stream.events.Comment) event).getText();
-                        moiParameterValueMap.put(previousTag, comment);
-                    }
-                    break;
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElementEvent(reader);
+                        break;
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.CHARACTERS:
+                        characterEvent(reader);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        endELementEvent(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        commentEvent(reader.getText());
+                        break;
+                }
             }
+        } finally {
+            reader.close();
         }
 
     }
 
     /**
      * Handle start element event.
+     * 
+     * The attributes are read by index from the stream reader's current 
+     * element.
      *
-     * @param xmlEvent
+     * @param reader
      *
      * @since 1.0.0
-     * @version 1.0.0
+     * @version 1.1.0
      *
      */
-    public void startElementEvent(XMLEvent xmlEvent) throws FileNotFoundException {
-
-        StartElement startElement = xmlEvent.asStartElement();
-        String qName = startElement.getName().getLocalPart();
-        String prefix = startElement.getName().getPrefix();
-
-        Iterator<Attribute> attributes = startElement.getAttributes();
-        if (qName.equals("class")) {
-            classDepth++;
-
-            while (attributes.hasNext()) {
-                Attribute attribute = attributes.next();
-                String attrName = attribute.getName().getLocalPart();
-                String attrValue = attribute.getValue();
-                if (attrName.equals("name")) {
-                    className = attrValue.toUpperCase();
-                    //className = attrValue;
-                    LinkedHashMap<String, String> Lhm = new LinkedHashMap<String, String>();
-//                    classNameAttrsMap.put(className, Lhm);
-
-                    if (classDepth == 1) {
-                        nodeTypeVersion = attrValue;
-                    }
-                }
-            }
-        }
+    public void startElementEvent(XMLStreamReader reader) 
+            throws FileNotFoundException, XMLStreamException {
+        String qName = reader.getLocalName();
+        int attributeCount = reader.getAttributeCount();
 
         //parameter
         if (qName.equals("parameter")) {
             String paramName = null;
-            String paramValue = null;
-            while (attributes.hasNext()) {
-                Attribute attribute = attributes.next();
-                String attrName = attribute.getName().getLocalPart();
-                String attrValue = attribute.getValue();
+            int valueIndex = -1;
+            for (int i = 0; i < attributeCount; i++) {
+                String attrName = reader.getAttributeLocalName(i);
                 if (attrName.equals("name")) {
-                    paramName = attrValue.toUpperCase();
-                }
-
-                if (attrName.equals("value")) {
-                    paramValue = attrValue;
-                    
-                    //e.g MO_BTS3900 -< MO and BTS3900
-                    String[] moNameMinusNE = className.split("_");
-                    String tempValue = paramValue;
-                    if (tempValue.matches("[^-]+-[^-]+.*") 
-                        && !Arrays.asList(moListWithoutMVValues).contains(moNameMinusNE[0])
-                        && !paramName.equals("ACTION") ) {
-//                    if (tempValue.matches("([^-]+-[^-]+&).*") && !paramName.equals("ACTION") ) {
-//                    if (tempValue.matches("^([^-]+-[^-]+)(?:&[^-]+-[^-]+)+") && !paramName.equals("ACTION") ) {
-//                    if (tempValue.matches("^([^-]+-[^-]+)(?:&[^-]+-[^-]+)+$") && !paramName.equals("ACTION")) {
-                        
-
-                        String mvParameter = className + "_" + paramName;
-                        Stack children = new Stack();
-                        
-                        if( parserState == ParserStates.EXTRACTING_PARAMETERS){
-                            parameterChildMap.put(mvParameter, null);
-                        }
-                        
-                        String[] valueArray = tempValue.split("&");
-
-                        for (int j = 0; j < valueArray.length; j++) {
-                            String v = valueArray[j];
-                            String[] vArray = v.split("-");
-                            String childParameter = vArray[0];
-                            String childParameterValue = vArray[1];
-                            String child =  paramName + "_" + childParameter;
-                            child = child.toUpperCase();
-                            classNameAttrsMap.put(child, childParameterValue);
-                            
-                            if( parserState == ParserStates.EXTRACTING_PARAMETERS){
-                                 children.push(childParameter);
-                            }
-                        }
-                        
-                        if( parserState == ParserStates.EXTRACTING_PARAMETERS){
-                             parameterChildMap.put(mvParameter, children);
-                        }
-                        
-                    }else{
-                       classNameAttrsMap.put(paramName, paramValue);
-                    }
-                    
+                    paramName = reader.getAttributeValue(i);
+                } else if (attrName.equals("value")) {
+                    valueIndex = i;
                 }
             }
 
+            //The value is only read for the selected parameters
+            if (paramName != null && valueIndex >= 0 && !isSkippedParameter(paramName)) {
+                parameterEvent(paramName, reader.getAttributeValue(valueIndex));
+            }
             return;
         }
 
         //object
         if (qName.equals("object")) {
-            objectDepth++;
-
-            //Get the technology, vendor and version
-            if (objectDepth == 1) {
-                while (attributes.hasNext()) {
-                    Attribute attribute = attributes.next();
-                    String attrName = attribute.getName().getLocalPart();
-                    String attrValue = attribute.getValue();
+            String technique = null;
+            String neVendor = null;
+            String neVersion = null;
+            
+            //Only the technology, vendor and version of the NE object are used
+            if (objectDepth == 0) {
+                for (int i = 0; i < attributeCount; i++) {
+                    String attrName = reader.getAttributeLocalName(i);
                     if (attrName.equals("vendor")) {
-                        this.vendor = attrValue;
+                        neVendor = reader.getAttributeValue(i);
+                    } else if (attrName.equals("technique")) {
+                        technique = reader.getAttributeValue(i);
+                    } else if (attrName.equals("version")) {
+                        neVersion = reader.getAttributeValue(i);
                     }
+                }
+            }
+            
+            startObjectEvent(technique, neVendor, neVersion);
+            return;
+        }
+        
+        if (qName.equals("class")) {
+            String classNameAttr = null;
+            for (int i = 0; i < attributeCount; i++) {
+                if (reader.getAttributeLocalName(i).equals("name")) {
+                    classNameAttr = reader.getAttributeValue(i);
+                }
+            }
+            
+            startClassEvent(classNameAttr);
+            if (skipClass) {
+                skipClass(reader);
+            }
+        }
+    }
 
-                    if (attrName.equals("technique")) {
-                        this.technology = attrValue;
-                    }
+    /**
+     * Read the events of a class that is not in the parameter file up to the
+     * class's end tag. Only the objects are counted.
+     * 
+     * The size is the number of bytes the reader read from the dump in the
+     * meantime. It is off by at most the reader's buffer for one class, 
+     * while the scanner engine gives the exact size.
+     *
+     * @param reader The reader at the class's start tag
+     *
+     * @since 1.0.15
+     */
+    private void skipClass(XMLStreamReader reader) throws XMLStreamException {
+        long start = countingIn == null ? 0 : countingIn.getCount();
+        long objects = 0;
+        int depth = 0;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (reader.getLocalName().equals("object")) {
+                    objects++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+        endSkippedClassEvent(objects, countingIn == null ? 0 : countingIn.getCount() - start);
+    }
+    
+    /**
+     * Handle the start of a class tag.
+     * 
+     * @param classNameAttr The name attribute or null if the tag has none
+     * 
+     * @since 1.0.15
+     */
+    public void startClassEvent(String classNameAttr) {
+        classDepth++;
 
-                    if (attrName.equals("version")) {
-                        this.version = attrValue;
-                    }
+        if (classNameAttr != null) {
+            className = symbolTable.upperCase(classNameAttr);
+
+            if (classDepth == 1) {
+                nodeTypeVersion = classNameAttr;
+            }
+            
+            //MO classes that are not in the parameter file are skipped
+            if (parameterFile != null && objectDepth > 0) {
+                classSelection = parameterSelector.getSelection(className);
+                skipClass = classSelection == null;
+            }
+        }
+    }
+    
+    /**
+     * Returns true if the class that started is not in the parameter file.
+     * The parse engine then skips the class's content and calls 
+     * {@link #endSkippedClassEvent(long, long)} instead of the handlers of 
+     * the content and the class's end tag.
+     * 
+     * @since 1.0.15
+     * @return boolean
+     */
+    public boolean isSkippingClass() {
+        return skipClass;
+    }
+    
+    /**
+     * Handle the end of a class skipped by the parse engine.
+     * 
+     * @param objects Number of objects in the class
+     * @param bytes Size of the class's content in bytes
+     * 
+     * @since 1.0.15
+     */
+    public void endSkippedClassEvent(long objects, long bytes) {
+        skipClass = false;
+        classDepth--;
+        
+        if (fileMetrics != null) {
+            fileMetrics.skippedObjects += objects;
+            fileMetrics.skippedBytes += bytes;
+        }
+    }
+    
+    /**
+     * Returns true if the parameter is not selected for the current class by
+     * the parameter file. The parse engines do not read the values of these
+     * parameters.
+     * 
+     * @param paramNameAttr The name attribute
+     * 
+     * @since 1.0.15
+     * @return boolean
+     */
+    public boolean isSkippedParameter(String paramNameAttr) {
+        return classSelection != null && !classSelection.isSelected(
+                mvParameterClassifier.getParameter(className, paramNameAttr).getName());
+    }
+    
+    /**
+     * Handle the start of an object tag.
+     * 
+     * @param technique The NE object's technique attribute or null
+     * @param neVendor The NE object's vendor attribute or null
+     * @param neVersion The NE object's version attribute or null
+     * 
+     * @since 1.0.15
+     */
+    public void startObjectEvent(String technique, String neVendor, String neVersion) {
+        objectDepth++;
+
+        //Get the technology, vendor and version
+        if (objectDepth == 1) {
+            neKeyVersion = neVersion;
+
+            if (neVendor != null) {
+                this.vendor = neVendor;
+            }
+
+            if (technique != null) {
+                this.technology = technique;
+            }
+
+            if (neVersion != null) {
+                this.version = neVersion;
+            }
+        }
+    }
+    
+    /**
+     * Handle a parameter tag.
+     * 
+     * @param paramNameAttr The name attribute
+     * @param paramValue The value attribute
+     * 
+     * @since 1.0.15
+     */
+    public void parameterEvent(String paramNameAttr, String paramValue) {
+        objectParameters++;
+        
+        MVParameterClassifier.Parameter parameter
+                = mvParameterClassifier.getParameter(className, paramNameAttr);
+        String paramName = parameter.getName();
+        
+        //With a parameter file only the parameters matching a pattern add
+        //columns
+        boolean addColumns = isExtractingParameters() 
+                && (classSelection == null || classSelection.isMatched(paramName));
+
+        if (parameter.canBeMV() && MVParameterClassifier.isMVValue(paramValue)) {
+            String mvParameter = parameter.getMVParameter();
+            Stack<String> children = new Stack<String>();
+            
+            //The children are only used to split the values of csv files
+            //with all the columns
+            boolean addChildren = isExtractingParameters() && parameterFile == null;
+
+            if( addChildren ){
+                parameterChildMap.put(mvParameter, null);
+            }
+
+            MVParameterClassifier.split(paramValue, mvChildNames, mvChildValues);
+
+            for (int j = 0; j < mvChildNames.size(); j++) {
+                String childParameter = mvChildNames.get(j);
+                putParameterValue(parameter.getChildColumn(childParameter), mvChildValues.get(j), 
+                        addColumns);
+
+                if( addChildren ){
+                     children.push(childParameter);
                 }
             }
 
-            return;
+            if( addChildren ){
+                 parameterChildMap.put(mvParameter, children);
+
+                 if (schemaCache != null && parserState == ParserStates.EXTRACTING_PARAMETERS) {
+                     schemaCache.addParameterChildren(getNEKey(), mvParameter, children);
+                 }
+            }
+
+        }else{
+           putParameterValue(paramName, paramValue, addColumns);
         }
     }
+    
+    /**
+     * Handle comments.
+     * 
+     * @param comment
+     * 
+     * @since 1.0.15
+     */
+    public void commentEvent(String comment) {
+        //Comments do not hold parameter values
+    }
 
     /**
      * Handle character events.
      *
-     * @param xmlEvent
+     * @param reader
      *
-     * @version 1.0.0
+     * @version 1.1.0
      * @since 1.0.0
      */
-    public void characterEvent(XMLEvent xmlEvent) {
-        Characters characters = xmlEvent.asCharacters();
-        if (!characters.isWhiteSpace()) {
-            tagData = characters.getData();
+    public void characterEvent(XMLStreamReader reader) {
+        if (!reader.isWhiteSpace()) {
+            tagData = reader.getText();
         }
     }
 
@@ -679,132 +2108,84 @@ public class HuaweiCMObjectParser {
     /**
      * Processes the end tags.
      *
-     * @param xmlEvent
+     * @param qName The tag's local name
      *
      * @since 1.0.0
-     * @version 1.0.0
+     * @version 1.1.0
      * @throws FileNotFoundException
      * @throws UnsupportedEncodingException
      */
-    public void endELementEvent(XMLEvent xmlEvent)
-            throws FileNotFoundException, UnsupportedEncodingException {
-        EndElement endElement = xmlEvent.asEndElement();
-        String prefix = endElement.getName().getPrefix();
-        String qName = endElement.getName().getLocalPart();
+    public void endELementEvent(String qName)
+            throws FileNotFoundException, UnsupportedEncodingException, IOException {
 
         if (qName.equals("class")) {
             classDepth--;
             return;
         }
+        
+        //The NE object continues in the next segment
+        if (qName.equals("object") && partialNEObject && objectDepth == 1) {
+            objectDepth--;
+            moi.clear();
+            return;
+        }
+
+        //The NE object's end when the last class is not in the parameter file
+        if (qName.equals("object") && isExtractingParameters() 
+                && parameterFile != null && classSelection == null) {
+            objectDepth--;
+            countObject(false, 0);
+            moi.clear();
+            return;
+        }
 
         //Extract parameters
         if(qName.equals("object") 
-                && parserState == ParserStates.EXTRACTING_PARAMETERS 
-                && parameterFile == null){
+                && parserState == ParserStates.EXTRACTING_PARAMETERS){
             objectDepth--;
             
-            Stack moiAttributes = new Stack();
-            
-            if(moColumns.containsKey(className)){
-                moiAttributes = moColumns.get(className);
-            }
+            updateMOColumns();
+            countObject(false, 0);
             
-            moiParameterValueMap = classNameAttrsMap;
-            Iterator<Map.Entry<String, String>> iter
-                        = moiParameterValueMap.entrySet().iterator();
+            moi.clear();
+            return;
+        }
+        
+        //Extract parameters and values in a single pass
+        if(qName.equals("object") 
+                && parserState == ParserStates.EXTRACTING_PARAMETERS_AND_VALUES){
+            objectDepth--;
             
-            while (iter.hasNext()) {
-                    Map.Entry<String, String> me = iter.next();
-                    String parameterName = me.getKey();
-
-                    String tempValue = classNameAttrsMap.get(parameterName);
-                    //e.g MO_BTS3900 -< MO and BTS3900
-                    String[] moNameMinusNE = className.split("_");
-                    
-                    if (tempValue.matches("[^-]+-[^-]+.*") 
-                        && !Arrays.asList(moListWithoutMVValues).contains(moNameMinusNE[0]) 
-                        && !parameterName.equals("ACTION")) {
-//                      tempValue.matches("[^-]+-[^-]+") 
-//                    if (tempValue.matches("([^-]+-[^-]+&).*") && !parameterName.equals("ACTION") ) {
-//                    if (tempValue.matches("^([^-]+-[^-]+)(?:&[^-]+-[^-]+)+") && !parameterName.equals("ACTION") ) {
-                        String mvParameter = className + "_" + parameterName;
-                        parameterChildMap.put(mvParameter, null);
-                        Stack children = new Stack();
-
-                        String[] valueArray = tempValue.split("&");
-                        
-                        System.out.println(valueArray.toString());
-                        for (int j = 0; j < valueArray.length; j++) {
-                            String v = valueArray[j];
-                            String[] vArray = v.split("-");
-                            String childParameter = vArray[0];
-                            String child =  parameterName + "_" + childParameter;
-                            child = child.toUpperCase();
-                            if(!moiAttributes.contains(child)){
-                                moiAttributes.push(child);
-                            }
-                            children.push(childParameter);
-                        }
-                        parameterChildMap.put(mvParameter, children);
-
-                        continue;
-                    }
-                    
-                    if(!moiAttributes.contains(parameterName)){
-                        moiAttributes.push(parameterName);
-                    }
-                    
+            MOColumns moiAttributes = updateMOColumns();
+            if (recordListener != null) {
+                recordObject(moiAttributes);
+                moi.clear();
+                return;
             }
-
-            moColumns.put(className, moiAttributes);
             
-            moiParameterValueMap.clear();
-            classNameAttrsMap.clear();
+            long writeStart = System.nanoTime();
+            spillWriter.println(className, getMOValues(moiAttributes), 
+                    moiAttributes.size());
+            countObject(true, System.nanoTime() - writeStart);
+            
+            moi.clear();
             return;
         }
         
         //Extract parameter values when paramete rfile is not provided
         if (qName.equals("object") && parameterFile == null) {
             objectDepth--;
-            String paramNames = "FILENAME,DATETIME,NE_TECHNOLOGY,NE_VENDOR,NE_VERSION,NE_TYPE";
-            String paramValues = baseFileName + "," + dateTime + "," + technology + "," + vendor + "," + version + "," + nodeTypeVersion;
 
-            if (!moiPrintWriters.containsKey(className) ) {
-                String moiFile = outputDirectory + File.separatorChar + className + ".csv";
-                moiPrintWriters.put(className, new PrintWriter(moiFile));
-
-                String pName = paramNames;
-
-                Stack moiAttributes = moColumns.get(className);
-                for (int i = 0; i < moiAttributes.size(); i++) {
-                    String parameterName = moiAttributes.get(i).toString();
-                    pName += "," + parameterName;
-                }
-
-                moiPrintWriters.get(className).println(pName);
-                moiPrintWriters.get(className).flush();
-            }
-
-            Stack moiAttributes = moColumns.get(className);
-            moiParameterValueMap = classNameAttrsMap;
-
-            for (int i = 0; i < moiAttributes.size(); i++) {
-                String moiName = moiAttributes.get(i).toString();
-                String mvParameter = className + "_" + moiName;
-
-                if (moiParameterValueMap.containsKey(moiName)) {
-                    paramValues += "," + toCSVFormat(moiParameterValueMap.get(moiName));
-                } else {
-                    paramValues += ",";
-                }
+            MOColumns moiAttributes = moColumns.get(className);
+            moi.setClass(className, moiAttributes, false);
+            
+            if (schemaCache != null) {
+                checkCachedMOColumns();
             }
+            
+            recordObject(moiAttributes);
 
-            PrintWriter pw = moiPrintWriters.get(className);
-            pw.println(paramValues);
-            pw.flush();
-
-            moiParameterValueMap.clear();
-            classNameAttrsMap.clear();
+            moi.clear();
             return;
         }
         
@@ -812,96 +2193,349 @@ public class HuaweiCMObjectParser {
         if (qName.equals("object") && parameterFile != null) {
             objectDepth--;
             
-            //Skip mo if it is not in the parameter file 
-            //String className  = className.replaceAll("_.*$" ,"");
-            
-            if (!moColumns.containsKey(className)) return;
+            //Get the parameter listed in the parameter file for the managed object
+            MOColumns moiAttributes = moColumns.get(className);
             
-            //logger.info("className : " + className);
+            //Skip mo if it is not in the parameter file 
+            if (moiAttributes == null) {
+                countObject(false, 0);
+                moi.clear();
+                return;
+            }
             
-            //Get the parameter listed in the parameter file for the managed object
-            Stack<String> parameterList  = moColumns.get(className);
+            moi.setClass(className, moiAttributes, false);
 
-            String paramNames = "";
-            String paramValues = "";
+            recordObject(moiAttributes);
 
-            
-            //Create file if it does not already exist
-            if (!moiPrintWriters.containsKey(className)) {
-                String moiFile = outputDirectory + File.separatorChar + className + ".csv";
-                moiPrintWriters.put(className, new PrintWriter(moiFile));
+            moi.clear();
+            return;
+        }
+    }
+
+    /**
+     * Pass the object that ended to the record listener. The NE object's end
+     * tag is not an MO instance and only reaches the csv writer, which writes
+     * the row without values for the NE's last MO that the csv files have
+     * always had.
+     * 
+     * @since 1.0.15
+     * @param moiAttributes The MO's columns
+     */
+    private void recordObject(MOColumns moiAttributes) throws IOException {
+        if (objectDepth == 0 && recordListener != null) {
+            countObject(false, 0);
+            return;
+        }
+        
+        long writeStart = System.nanoTime();
+        getRecordListener().record(getRecord(moiAttributes));
+        countObject(true, System.nanoTime() - writeStart);
+    }
+
+    /**
+     * Add the object that ended to the metrics of the dump and its MO. The 
+     * objects are counted in the pass that writes the csv files.
+     * 
+     * @since 1.0.15
+     * @param rowWritten
+     * @param writeNanos Time spent writing the object's row
+     */
+    private void countObject(boolean rowWritten, long writeNanos) {
+        if (progress != null) {
+            progress.objectEnded();
+        }
+        
+        int parameters = objectParameters;
+        objectParameters = 0;
+        if (fileMetrics == null 
+                || (parserState == ParserStates.EXTRACTING_PARAMETERS && !extractParametersOnly)) {
+            return;
+        }
+        
+        if (moMetrics == null || !moMetrics.getMO().equals(className)) {
+            moMetrics = metrics.getMO(className);
+        }
+        
+        //The NE object's end tag is not an MO object
+        long objects = objectDepth > 0 ? 1 : 0;
+        long rows = rowWritten ? 1 : 0;
+        fileMetrics.objects += objects;
+        fileMetrics.parameters += parameters;
+        fileMetrics.rows += rows;
+        fileMetrics.writeNanos += writeNanos;
+        moMetrics.objects += objects;
+        moMetrics.parameters += parameters;
+        moMetrics.rows += rows;
+        moMetrics.writeNanos += writeNanos;
+    }
 
-                Stack moiAttributes = moColumns.get(className);
+    /**
+     * Add the parameters of the current MO instance to the MO's columns.
+     * 
+     * @since 1.0.15
+     * @return MOColumns The MO's columns
+     */
+    private MOColumns updateMOColumns(){
+        MOColumns moiAttributes = getMOColumns();
+        
+        moi.setClass(className, moiAttributes, true);
+        
+        if (schemaCache != null && parserState == ParserStates.EXTRACTING_PARAMETERS) {
+            schemaCache.addMOColumns(getNEKey(), className, moi.getNames());
+        }
+        
+        moi.commitNewColumns();
+        
+        return moiAttributes;
+    }
     
-                String pName = paramNames;
-                 for(int i = 0; i< moiAttributes.size(); i++){
-                     String p = moiAttributes.get(i).toString();
-                     pName += "," + p;
-                 }
-                 
-                pName = pName.replaceFirst(",", "");
-                moiPrintWriters.get(className).println(pName);
-                moiPrintWriters.get(className).flush();
+    /**
+     * Set a parameter value of the current MO instance. New parameters are
+     * only kept while the MO columns are being collected.
+     * 
+     * @since 1.0.15
+     * @param paramName
+     * @param paramValue
+     * @param addColumns Keep the parameter if it is not a column yet
+     */
+    private void putParameterValue(String paramName, String paramValue, boolean addColumns){
+        if (className != moi.getClassName()) {
+            moi.setClass(className, getMOColumns(), addColumns);
+        }
+        moi.put(paramName, paramValue, addColumns);
+    }
+    
+    /**
+     * Columns of the current class. While the columns are collected a class
+     * without columns gets the parameters listed for it in the parameter 
+     * file.
+     * 
+     * @since 1.0.15
+     * @return MOColumns The columns or null
+     */
+    private MOColumns getMOColumns(){
+        MOColumns moiAttributes = moColumns.get(className);
+        if (moiAttributes == null && isExtractingParameters()) {
+            moiAttributes = classSelection == null 
+                    ? new MOColumns() : new MOColumns(classSelection.getColumns());
+            moColumns.put(className, moiAttributes);
+        }
+        return moiAttributes;
+    }
+    
+    /**
+     * Schema cache key of the NE being parsed.
+     * 
+     * @since 1.0.15
+     * @return String
+     */
+    private String getNEKey(){
+        return SchemaCache.getKey(nodeTypeVersion, neKeyVersion);
+    }
+    
+    /**
+     * Check that the MO and parameters of the current MO instance are in the 
+     * MO columns. This is only needed when the columns were loaded from the 
+     * schema cache.
+     * 
+     * @since 1.0.15
+     * @throws SchemaCacheMissException
+     */
+    private void checkCachedMOColumns(){
+        if (moColumns.get(className) == null) {
+            throw new SchemaCacheMissException(getNEKey(), 
+                    "MO " + className + " is not in the schema cache.");
+        }
+        
+        String parameterName = moi.getMissingColumn();
+        if (parameterName != null) {
+            throw new SchemaCacheMissException(getNEKey(), "Parameter " 
+                    + parameterName + " of MO " + className + " is not in the schema cache.");
+        }
+    }
+    
+    /**
+     * The listener the MO instances are passed to, the csv writer unless a
+     * record listener was set.
+     * 
+     * @since 1.0.15
+     * @return MORecordListener
+     */
+    private MORecordListener getRecordListener(){
+        if (recordListener != null) {
+            return recordListener;
+        }
+        if (csvRecordWriter == null) {
+            csvRecordWriter = new CsvRecordWriter(getMOWriterPool());
+            csvRecordWriter.setMetaFields(parameterFile == null);
+            csvRecordWriter.setMultiValueParameters(parameterChildMap);
+        }
+        
+        //Write stage
+        if (pipeline == true) {
+            if (pipelinedWriter == null) {
+                pipelinedWriter = new PipelinedRecordWriter(csvRecordWriter, 
+                        metrics.getStage("write"), metrics.getStage("parse"));
             }
+            return pipelinedWriter;
+        }
+        return csvRecordWriter;
+    }
+    
+    /**
+     * The current MO instance as a record.
+     * 
+     * @since 1.0.15
+     * @param moiAttributes The MO's columns
+     * @return MORecord The reused record
+     */
+    private MORecord getRecord(MOColumns moiAttributes){
+        record.setMetaFields(baseFileName, dateTime, technology, vendor, version, nodeTypeVersion);
+        record.setInstance(className, moiAttributes, moi);
+        return record;
+    }
+    
+    /**
+     * Csv header of an MO when no parameter file is provided.
+     * 
+     * @since 1.0.15
+     * @param moiAttributes The MO's columns
+     * @return String
+     */
+    private String getMOHeader(MOColumns moiAttributes){
+        StringBuilder pName = new StringBuilder("FILENAME,DATETIME,NE_TECHNOLOGY,NE_VENDOR,NE_VERSION,NE_TYPE");
 
-            Stack moiAttributes = moColumns.get(className);
-            moiParameterValueMap = classNameAttrsMap;
-//            moiParameterValueMap = classNameAttrsMap.get(className);
-
-            for (int i = 0; i < moiAttributes.size(); i++) {
-                String moiName = moiAttributes.get(i).toString();
-                
-                //String mvParameter = className + "_" + moiName;
-                String mvParameter = className + "_" + moiName;
-
-                if (moiParameterValueMap.containsKey(moiName)) {
-                    //Handle multivalued parameters
-                    if (parameterChildMap.containsKey(mvParameter)) {
-                        String tempValue = moiParameterValueMap.get(moiName);
-                        String[] valueArray = tempValue.split("&");
-
-                        for (int j = 0; j < valueArray.length; j++) {
-                            String v = valueArray[j];
-                            String[] vArray = v.split("-");
-                            paramValues += "," + toCSVFormat(vArray[1]);
-                        }
-                        continue;
-                    }
+        for (String parameterName : moiAttributes) {
+            pName.append(',').append(parameterName);
+        }
+        
+        return pName.toString();
+    }
+    
+    /**
+     * Csv row of the current MO instance when no parameter file is provided.
+     * 
+     * @since 1.0.15
+     * @param moiAttributes The MO's columns
+     * @return StringBuilder The reused row builder
+     */
+    private StringBuilder getMOValues(MOColumns moiAttributes){
+        StringBuilder paramValues = moiRow;
+        paramValues.setLength(0);
+        paramValues.append(baseFileName).append(',').append(dateTime)
+                .append(',').append(technology).append(',').append(vendor)
+                .append(',').append(version).append(',').append(nodeTypeVersion);
+
+        for (int i = 0, size = moiAttributes.size(); i < size; i++) {
+            String value = moi.get(i);
+            paramValues.append(',');
+            if (value != null) {
+                CsvWriter.appendValue(paramValues, value);
+            }
+        }
+        
+        return paramValues;
+    }
+    
+    /**
+     * Returns true when the MO parameters are being collected.
+     * 
+     * @since 1.0.15
+     * @return boolean
+     */
+    private boolean isExtractingParameters(){
+        return parserState == ParserStates.EXTRACTING_PARAMETERS 
+                || parserState == ParserStates.EXTRACTING_PARAMETERS_AND_VALUES;
+    }
 
-                    paramValues += "," + toCSVFormat(moiParameterValueMap.get(moiName));
-                } else {
-                    
-                    if(moiName.equals("FILENAME")){
-                        paramValues += "," + baseFileName;
-                    }else if(moiName.equals("NE_TECHNOLOGY")){
-                        paramValues += "," + technology;
-                    }else if(moiName.equals("NE_VENDOR")){
-                        paramValues += "," + vendor;
-                    }else if(moiName.equals("NE_VERSION")){
-                        paramValues += "," + version;
-                    }else if(moiName.equals("NE_TYPE")){
-                        paramValues += "," + nodeTypeVersion;
-                    }else if(moiName.equals("DATETIME")){
-                        paramValues += "," + dateTime;
-                    }else{
-                        paramValues += ",";
-                    }
+    /**
+     * Print the csv writer pool counters when files had to be closed to stay
+     * within the maximum number of open files.
+     * 
+     * @since 1.0.15
+     */
+    private void printWriterPoolCounters() {
+        if (moiPrintWriters == null || moiPrintWriters.getEvictions() == 0) {
+            return;
+        }
+        
+        System.out.println("Csv writer pool. Max open files:" + moiPrintWriters.getMaxOpenFiles()
+                + " hits:" + moiPrintWriters.getHits()
+                + " misses:" + moiPrintWriters.getMisses()
+                + " evictions:" + moiPrintWriters.getEvictions());
+    }
 
-                }
-                
-            }
-            
-            paramValues = paramValues.replaceFirst(",", "");
-            
-            PrintWriter pw = moiPrintWriters.get(className);
-            pw.println(paramValues);
-            pw.flush();
+    /**
+     * Print the utilisation of the pipeline stages.
+     * 
+     * @since 1.0.15
+     */
+    private void printStageMetrics() {
+        for (RunMetrics.StageMetrics stage : metrics.getStages()) {
+            double total = Math.max(1e-9, stage.getBusySeconds() + stage.getIdleSeconds() 
+                    + stage.getBlockedSeconds());
+            System.out.println(String.format(Locale.ROOT, 
+                    "Stage %s. Busy:%.1f%% idle:%.1f%% blocked:%.1f%% items:%d", 
+                    stage.getStage(), 100 * stage.getBusySeconds() / total, 
+                    100 * stage.getIdleSeconds() / total, 
+                    100 * stage.getBlockedSeconds() / total, stage.getItems()));
+        }
+    }
+    
+    /**
+     * Print the objects and bytes of the classes skipped as they are not in
+     * the parameter file.
+     * 
+     * @since 1.0.15
+     */
+    private void printSkipCounters() {
+        if (parameterFile == null) {
+            return;
+        }
+        
+        long objects = 0;
+        long bytes = 0;
+        for (RunMetrics.FileMetrics m : metrics.getFiles()) {
+            objects += m.getSkippedObjects();
+            bytes += m.getSkippedBytes();
+        }
+        System.out.println("Skipped classes. Objects:" + objects 
+                + " size:" + bytes / 1024 + " KB");
+    }
+    
+    /**
+     * Write the run metrics to the metrics files that are set.
+     * 
+     * @since 1.0.15
+     * @throws IOException
+     */
+    private void writeMetrics() throws IOException {
+        metrics.end();
+        if (metricsFile != null) {
+            metrics.writeJson(metricsFile);
+        }
+        if (prometheusFile != null) {
+            metrics.writePrometheus(prometheusFile);
+        }
+    }
 
-            moiParameterValueMap.clear();
-//            classNameAttrsMap.get(className).clear();
-            classNameAttrsMap.clear();
+    /**
+     * Print the symbol table counters when values are deduplicated.
+     * 
+     * @since 1.0.15
+     */
+    private void printSymbolTableCounters() {
+        if (!symbolTable.isDedupValues()) {
             return;
         }
+        
+        long seconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+        System.out.println("Symbol table. Symbols:" + symbolTable.size()
+                + " (" + symbolTable.getRetainedBytes() / 1024 + " KB)"
+                + " hits:" + symbolTable.getHits()
+                + " misses:" + symbolTable.getMisses()
+                + " allocations saved:" + symbolTable.getBytesSaved() / (1024 * 1024) + " MB"
+                + " (" + symbolTable.getBytesSaved() / (1024 * 1024) / seconds + " MB/s)");
     }
 
     /**
@@ -933,32 +2567,39 @@ public class HuaweiCMObjectParser {
         if (runningTime > 1000) {
             int secs = (int) Math.floor(runningTime / (1000));
             s = s + secs + " seconds ";
-            runningTime = runningTime - (secs / 1000);
+            runningTime = runningTime - (secs * 1000);
         }
 
         //Get milliseconds
         if (runningTime > 0) {
-            int msecs = (int) Math.floor(runningTime / (1000));
+            int msecs = (int) Math.floor(runningTime);
             s = s + msecs + " milliseconds ";
-            runningTime = runningTime - (msecs / 1000);
         }
 
         System.out.println(s);
     }
 
     /**
-     * Close file print writers.
+     * Close the csv writers.
      *
      * @since 1.0.0
-     * @version 1.0.0
+     * @version 1.1.0
+     * @throws IOException
      */
-    public void closeMOPWMap() {
-        Iterator<Map.Entry<String, PrintWriter>> iter
-                = moiPrintWriters.entrySet().iterator();
-        while (iter.hasNext()) {
-            iter.next().getValue().close();
+    public void closeMOPWMap() throws IOException {
+        if (pipelinedWriter != null) {
+            try {
+                pipelinedWriter.close();
+            } finally {
+                pipelinedWriter = null;
+            }
+        }
+        if (moiPrintWriters != null) {
+            moiPrintWriters.close();
+        }
+        if (compressor != null) {
+            compressor.close();
         }
-        moiPrintWriters.clear();
     }
 
     /**
@@ -1082,6 +2723,43 @@ public class HuaweiCMObjectParser {
        //separated into individual parameters
        Boolean sepSwitches = false;
        
+       //Extract the parameters and values in one pass
+       Boolean extractInSinglePass = false;
+       
+       //File in which the discovered parameters are cached per NE type and version
+       String schemaCacheFile = null;
+       
+       //Number of files to parse concurrently
+       int threads = 1;
+       
+       //Minimum size in MB of the segments of large files
+       String splitSize = null;
+       
+       //Parsing engine: stax or scanner
+       String engine = null;
+       boolean pipeline = false;
+       int maxOpenFiles = 0;
+       String gzipLevel = null;
+       boolean asyncCompression = false;
+       
+       //MOs whose values are not split into switches
+       String mosWithoutSwitches = null;
+       boolean dedupValues = false;
+       
+       //Run metrics files
+       String metricsFile = null;
+       String prometheusFile = null;
+       
+       //Seconds between progress reports and the status file
+       String progressInterval = null;
+       String statusFile = null;
+       
+       //Manifest of the files parsed by previous runs
+       String manifestFile = null;
+       boolean hashInputs = false;
+       String deltaSource = null;
+       String deltaKeyFile = null;
+       
        try{ 
             options.addOption( "p", "extract-parameters", false, "extract only the managed objects and parameters" );
             options.addOption( "s", "separate-switches", false, "extract switch values as separate parameters." );
@@ -1102,6 +2780,99 @@ public class HuaweiCMObjectParser {
                     .desc( "parameter configuration file")
                     .hasArg()
                     .argName( "PARAMETER_CONFIG" ).build() );
+            options.addOption(Option.builder()
+                    .longOpt( "single-pass" )
+                    .desc( "read each input file once. MO rows are spilled to the output directory until all the parameters are known")
+                    .build());
+            options.addOption(Option.builder()
+                    .longOpt( "schema-cache" )
+                    .desc( "cache the parameters discovered per NE type and version in this file")
+                    .hasArg()
+                    .argName( "SCHEMA_CACHE" ).build());
+            options.addOption(Option.builder("t")
+                    .longOpt( "threads" )
+                    .desc( "number of files or segments of large files to parse concurrently")
+                    .hasArg()
+                    .argName( "THREADS" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "split-size" )
+                    .desc( "with -t, split files larger than SIZE MB into segments of at least SIZE MB that are parsed concurrently. 0 disables splitting. Default is " + (GExportSplitter.DEFAULT_SEGMENT_SIZE >> 20))
+                    .hasArg()
+                    .argName( "SIZE" ).build());
+            options.addOption(Option.builder("e")
+                    .longOpt( "engine" )
+                    .desc( "parsing engine: stax (default) or scanner")
+                    .hasArg()
+                    .argName( "ENGINE" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "pipeline" )
+                    .desc( "read the input and write the csv files on separate threads and print the utilisation of the read, parse and write stages")
+                    .build());
+            options.addOption(Option.builder()
+                    .longOpt( "max-open-files" )
+                    .desc( "maximum number of csv files kept open. Default is " + MOWriterPool.DEFAULT_MAX_OPEN_FILES)
+                    .hasArg()
+                    .argName( "MAX_OPEN_FILES" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "gzip" )
+                    .desc( "write the csv files as CLASSNAME.csv.gz with compression LEVEL 0-9. Default is " + CsvCompressor.DEFAULT_LEVEL)
+                    .hasArg()
+                    .optionalArg(true)
+                    .argName( "LEVEL" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "async-compression" )
+                    .desc( "with --gzip, compress on a separate thread")
+                    .build());
+            options.addOption(Option.builder()
+                    .longOpt( "mos-without-switches" )
+                    .desc( "comma separated MOs whose values are not split into switches. Default is GCELL,GCELLHOINTERRATLDB,INVENTORYBOARD,S1INTERFACE")
+                    .hasArg()
+                    .argName( "MO_LIST" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "dedup-values" )
+                    .desc( "share the strings of repeated short values read by the scanner engine and print the memory saved")
+                    .build());
+            options.addOption(Option.builder()
+                    .longOpt( "metrics" )
+                    .desc( "write the bytes, objects, rows, times and errors per file and MO as JSON to this file")
+                    .hasArg()
+                    .argName( "METRICS_FILE" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "prometheus" )
+                    .desc( "write the metrics in the Prometheus text format to this file")
+                    .hasArg()
+                    .argName( "PROMETHEUS_FILE" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "progress" )
+                    .desc( "print the bytes read, MB/s, objects/s and time remaining of each file every SECONDS. Default is 10")
+                    .hasArg()
+                    .optionalArg(true)
+                    .argName( "SECONDS" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "status-file" )
+                    .desc( "write the latest progress as JSON to this file. Implies --progress")
+                    .hasArg()
+                    .argName( "STATUS_FILE" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "incremental" )
+                    .desc( "only parse new and changed files and add their rows to the csv files in the output directory. The parsed files are recorded in MANIFEST_FILE. Default is OUTPUT_DIRECTORY/" + MANIFEST_FILE)
+                    .hasArg()
+                    .optionalArg(true)
+                    .argName( "MANIFEST_FILE" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "hash-inputs" )
+                    .desc( "with --incremental, compare the content of files whose size or modification time changed")
+                    .build());
+            options.addOption(Option.builder()
+                    .longOpt( "delta" )
+                    .desc( "write the MO instances added, removed or modified since the OLD_INPUT file or directory to the output directory instead of parsing the input")
+                    .hasArg()
+                    .argName( "OLD_INPUT" ).build());
+            options.addOption(Option.builder()
+                    .longOpt( "delta-keys" )
+                    .desc( "with --delta, file with the key parameters of MOs as MO:PARAM1,PARAM2. Default is the parameters ending with ID, IDX or INDEX")
+                    .hasArg()
+                    .argName( "KEY_CONFIG" ).build());
             options.addOption( "h", "help", false, "show help" );
             
             //Parse command line arguments
@@ -1140,6 +2911,82 @@ public class HuaweiCMObjectParser {
                 attachMetaFields  = true;
             }
             
+            if(cmd.hasOption("single-pass")){
+                extractInSinglePass  = true;
+            }
+            
+            if(cmd.hasOption("schema-cache")){
+                schemaCacheFile = cmd.getOptionValue("schema-cache");
+            }
+            
+            if(cmd.hasOption('t')){
+                threads = Integer.parseInt(cmd.getOptionValue("t"));
+            }
+            
+            if(cmd.hasOption("split-size")){
+                splitSize = cmd.getOptionValue("split-size");
+            }
+            
+            if(cmd.hasOption('e')){
+                engine = cmd.getOptionValue("e");
+            }
+            
+            if(cmd.hasOption("pipeline")){
+                pipeline = true;
+            }
+            
+            if(cmd.hasOption("max-open-files")){
+                maxOpenFiles = Integer.parseInt(cmd.getOptionValue("max-open-files"));
+            }
+            
+            if(cmd.hasOption("gzip")){
+                gzipLevel = cmd.getOptionValue("gzip", String.valueOf(CsvCompressor.DEFAULT_LEVEL));
+            }
+            
+            if(cmd.hasOption("async-compression")){
+                asyncCompression = true;
+            }
+            
+            if(cmd.hasOption("mos-without-switches")){
+                mosWithoutSwitches = cmd.getOptionValue("mos-without-switches");
+            }
+            
+            if(cmd.hasOption("dedup-values")){
+                dedupValues = true;
+            }
+            
+            if(cmd.hasOption("metrics")){
+                metricsFile = cmd.getOptionValue("metrics");
+            }
+            
+            if(cmd.hasOption("prometheus")){
+                prometheusFile = cmd.getOptionValue("prometheus");
+            }
+            
+            if(cmd.hasOption("progress")){
+                progressInterval = cmd.getOptionValue("progress", "10");
+            }
+            
+            if(cmd.hasOption("status-file")){
+                statusFile = cmd.getOptionValue("status-file");
+            }
+            
+            if(cmd.hasOption("incremental")){
+                manifestFile = cmd.getOptionValue("incremental", "");
+            }
+            
+            if(cmd.hasOption("hash-inputs")){
+                hashInputs = true;
+            }
+            
+            if(cmd.hasOption("delta")){
+                deltaSource = cmd.getOptionValue("delta");
+            }
+            
+            if(cmd.hasOption("delta-keys")){
+                deltaKeyFile = cmd.getOptionValue("delta-keys");
+            }
+            
        }catch(IllegalArgumentException e){
            
        } catch (ParseException ex) {
@@ -1167,6 +3014,16 @@ public class HuaweiCMObjectParser {
                      footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder\n";
                      footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -p\n";
                      footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -p -m\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder --single-pass\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder -t 8\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i Gexport_Dump.xml -o out_folder -t 8 --split-size 128\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder -e scanner\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder -e scanner --pipeline\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder --gzip 1 --async-compression\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder --metrics run.json --prometheus run.prom\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i Gexport_Dump.xml -o out_folder --progress 30 --status-file status.json\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i input_folder -o out_folder --incremental\n";
+                     footer += "java -jar boda-huaweicmobjectparser.jar -i new_folder -o out_folder --delta old_folder\n";
                      footer += "\nCopyright (c) 2018 Bodastage Solutions(http://www.bodastage.com)";
                      formatter.printHelp( "java -jar boda-huaweicmobjectparser.jar", header, options, footer );
                      System.exit(0);
@@ -1188,6 +3045,20 @@ public class HuaweiCMObjectParser {
             }
             
             
+            if(deltaSource != null && outputDirectory != null){
+                SnapshotDelta delta = new SnapshotDelta(deltaSource, inputFile, outputDirectory);
+                delta.setUseScanner("scanner".equals(engine));
+                if(deltaKeyFile != null){
+                    delta.loadKeyParameters(deltaKeyFile);
+                }
+                delta.run();
+                System.out.println("Added: " + delta.getAdded() 
+                        + " Removed: " + delta.getRemoved() 
+                        + " Modified: " + delta.getModified() 
+                        + " Unchanged: " + delta.getUnchanged()
+                        + " Parameter changes: " + delta.getParameterChanges());
+                return;
+            }
 
             //Get parser instance
             HuaweiCMObjectParser cmParser = new HuaweiCMObjectParser();
@@ -1205,6 +3076,83 @@ public class HuaweiCMObjectParser {
                 cmParser.separateIndividualSwitches(true);
             }
             
+            if(extractInSinglePass){
+                cmParser.setSinglePass(true);
+            }
+            
+            if(schemaCacheFile != null){
+                cmParser.setSchemaCacheFile(schemaCacheFile);
+            }
+            
+            if(threads > 1){
+                cmParser.setThreads(threads);
+            }
+            
+            if(splitSize != null){
+                cmParser.setSplitSize((long) (Double.parseDouble(splitSize) * 1024 * 1024));
+            }
+            
+            if(engine != null){
+                if(engine.equals("scanner")){
+                    cmParser.setUseScanner(true);
+                }else if(!engine.equals("stax")){
+                    throw new Exception("Unknown parsing engine: " + engine);
+                }
+            }
+            
+            if(pipeline){
+                cmParser.setPipeline(true);
+            }
+            
+            if(maxOpenFiles > 0){
+                cmParser.setMaxOpenFiles(maxOpenFiles);
+            }
+            
+            if(gzipLevel != null){
+                cmParser.setCompressor(new CsvCompressor(Integer.parseInt(gzipLevel), asyncCompression));
+            }
+            
+            if(mosWithoutSwitches != null){
+                List<String> moList = new ArrayList<String>();
+                for(String mo : mosWithoutSwitches.split(",")){
+                    if(!mo.trim().isEmpty()) moList.add(mo.trim().toUpperCase());
+                }
+                cmParser.setMOListWithoutMVValues(moList);
+            }
+            
+            if(dedupValues){
+                cmParser.setDedupValues(true);
+            }
+            
+            if(metricsFile != null){
+                cmParser.setMetricsFile(metricsFile);
+            }
+            
+            if(prometheusFile != null){
+                cmParser.setPrometheusFile(prometheusFile);
+            }
+            
+            if(manifestFile != null && outputDirectory != null){
+                InputManifest manifest = new InputManifest(manifestFile.isEmpty() 
+                        ? outputDirectory + File.separatorChar + MANIFEST_FILE : manifestFile);
+                manifest.setHashFiles(hashInputs);
+                cmParser.setInputManifest(manifest);
+            }
+            
+            if(progressInterval != null || statusFile != null){
+                ProgressReporter progress = new ProgressReporter(
+                        Double.parseDouble(progressInterval != null ? progressInterval : "10"));
+                progress.setStatusFile(statusFile);
+                
+                //Keep the parameter list on the standard output clean
+                if(onlyExtractParameters){
+                    progress.setOutput(System.err);
+                }else{
+                    progress.setNewLine(true);
+                }
+                cmParser.setProgressReporter(progress);
+            }
+            
             if(  parameterConfigFile != null  ){
                 File f = new File(parameterConfigFile);
                 if(f.isFile()){
@@ -0,0 +1,279 @@
+/*
+ * Manifest of the input files parsed into an output directory.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the input files whose rows are in the csv files of an output
+ * directory so that a later run only parses new and changed files.
+ *
+ * The manifest is a text file with one line per input file with its
+ * absolute path, size, modification time, optional SHA-1 of its content
+ * and the names of the dumps it contained, which are the FILENAME values of
+ * its rows:
+ * <pre>
+ * /data/GExport_BSC1_10.0.0.1_20180101.xml	1048576	1514764800000		GExport_BSC1_10.0.0.1_20180101.xml
+ * </pre>
+ *
+ * A file is changed when its size or modification time differ from the
+ * manifest. When hashes are enabled a file whose content has the recorded
+ * hash is not changed even if it was touched. A file is recorded as pending
+ * with a size of -1 before its rows are written, so a file whose parsing
+ * did not complete is parsed again by the next run.
+ *
+ * @author info@bodastage.com
+ */
+public class InputManifest {
+
+    /**
+     * First line of the manifest file.
+     */
+    private static final String MANIFEST_HEADER = "#boda-huaweicmobjectparser manifest 1";
+
+    /**
+     * Size of a pending file.
+     */
+    private static final long PENDING = -1;
+
+    private File manifestFile;
+
+    private boolean hashFiles = false;
+
+    private Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * A file of the manifest.
+     */
+    private static class Entry {
+
+        long size;
+
+        long lastModified;
+
+        String hash = "";
+
+        Set<String> dumps = new LinkedHashSet<String>();
+    }
+
+    public InputManifest(String manifestFile) {
+        this.manifestFile = new File(manifestFile);
+    }
+
+    /**
+     * Compare the SHA-1 of the content of files whose size or modification
+     * time changed.
+     *
+     * @param hashFiles
+     */
+    public void setHashFiles(boolean hashFiles) {
+        this.hashFiles = hashFiles;
+    }
+
+    public String getManifestFile() {
+        return manifestFile.getPath();
+    }
+
+    /**
+     * Load the manifest file if it exists.
+     *
+     * @throws IOException
+     */
+    public void load() throws IOException {
+        entries.clear();
+        if (!manifestFile.isFile()) {
+            return;
+        }
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(manifestFile), "UTF-8"));
+        try {
+            String line = br.readLine();
+            if (!MANIFEST_HEADER.equals(line)) {
+                throw new IOException("Unsupported manifest file: " + manifestFile);
+            }
+
+            for (; (line = br.readLine()) != null;) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 5) {
+                    continue;
+                }
+                Entry entry = new Entry();
+                entry.size = Long.parseLong(fields[1]);
+                entry.lastModified = Long.parseLong(fields[2]);
+                entry.hash = fields[3];
+                for (String dump : fields[4].split(";")) {
+                    if (dump.length() > 0) {
+                        entry.dumps.add(dump);
+                    }
+                }
+                entries.put(fields[0], entry);
+            }
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Write the manifest file.
+     *
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        File tempFile = new File(manifestFile.getAbsolutePath() + ".tmp");
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), "UTF-8"));
+        try {
+            pw.print(MANIFEST_HEADER + "\n");
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                StringBuilder dumps = new StringBuilder();
+                for (String dump : entry.dumps) {
+                    dumps.append(dumps.length() > 0 ? ";" : "").append(dump);
+                }
+                pw.print(e.getKey() + "\t" + entry.size + "\t" + entry.lastModified
+                        + "\t" + entry.hash + "\t" + dumps + "\n");
+            }
+        } finally {
+            pw.close();
+        }
+
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            throw new IOException("Failed to replace manifest file: " + manifestFile);
+        }
+        if (!tempFile.renameTo(manifestFile)) {
+            throw new IOException("Failed to write manifest file: " + manifestFile);
+        }
+    }
+
+    /**
+     * Returns true if the file is not in the manifest, is pending or has
+     * changed since it was recorded.
+     *
+     * @param file
+     * @return boolean
+     * @throws IOException
+     */
+    public boolean isNewOrChanged(File file) throws IOException {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null || entry.size == PENDING) {
+            return true;
+        }
+        if (entry.size == file.length() && entry.lastModified == file.lastModified()) {
+            return false;
+        }
+        if (hashFiles && entry.size == file.length() && entry.hash.length() > 0
+                && entry.hash.equals(hash(file))) {
+            entry.lastModified = file.lastModified();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the file is in the manifest.
+     *
+     * @param file
+     * @return boolean
+     */
+    public boolean contains(File file) {
+        return entries.containsKey(file.getAbsolutePath());
+    }
+
+    /**
+     * Names of the dumps recorded for a file.
+     *
+     * @param file
+     * @return Collection An empty collection if the file is not recorded
+     */
+    public Collection<String> getDumps(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        return entry == null ? new LinkedHashSet<String>() : entry.dumps;
+    }
+
+    /**
+     * Record a file as pending. Its dumps are added to the dumps already
+     * recorded for it so the rows of both are replaced by the next run.
+     *
+     * @param file
+     * @param dumps Names of the dumps in the file
+     */
+    public void addPending(File file, Collection<String> dumps) {
+        Entry entry = getEntry(file);
+        entry.size = PENDING;
+        entry.lastModified = PENDING;
+        entry.hash = "";
+        entry.dumps.addAll(dumps);
+    }
+
+    /**
+     * Record a file whose rows have all been written.
+     *
+     * @param file
+     * @param dumps Names of the dumps in the file
+     * @throws IOException
+     */
+    public void addParsed(File file, Collection<String> dumps) throws IOException {
+        Entry entry = getEntry(file);
+        entry.size = file.length();
+        entry.lastModified = file.lastModified();
+        entry.hash = hashFiles ? hash(file) : "";
+        entry.dumps.clear();
+        entry.dumps.addAll(dumps);
+    }
+
+    private Entry getEntry(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(file.getAbsolutePath(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * SHA-1 of the content of a file as hex digits.
+     */
+    static String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[64 * 1024];
+            for (int n; (n = in.read(buf)) != -1;) {
+                digest.update(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The parameter columns of a managed object.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered list of the parameter columns of a managed object.
+ *
+ * Each column has an ordinal, its position in the csv after the meta
+ * fields. Columns are only appended so ordinals never change, and the
+ * ordinal of a parameter name is found with one hash lookup. The values of
+ * an MO instance are kept in an array indexed by ordinal so a csv row is
+ * one scan over the array.
+ *
+ * The columns of a managed object may be read by several threads once they
+ * are no longer modified.
+ *
+ * @author info@bodastage.com
+ */
+public class MOColumns implements Iterable<String> {
+
+    private List<String> names = new ArrayList<String>();
+
+    private Map<String, Integer> ordinals = new HashMap<String, Integer>();
+
+    public MOColumns() {
+    }
+
+    public MOColumns(Iterable<String> names) {
+        addAll(names);
+    }
+
+    /**
+     * Add a column if it is not there yet.
+     *
+     * @param name Parameter name
+     * @return int The column's ordinal
+     */
+    public int add(String name) {
+        Integer ordinal = ordinals.get(name);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        ordinals.put(name, names.size());
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    /**
+     * Add the columns that are not there yet in the given order.
+     *
+     * @param names Parameter names
+     */
+    public void addAll(Iterable<String> names) {
+        for (String name : names) {
+            add(name);
+        }
+    }
+
+    /**
+     * Ordinal of a column.
+     *
+     * @param name Parameter name
+     * @return int The ordinal or -1 if there is no such column
+     */
+    public int indexOf(String name) {
+        Integer ordinal = ordinals.get(name);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public boolean contains(String name) {
+        return ordinals.containsKey(name);
+    }
+
+    /**
+     * Name of the column with the given ordinal.
+     *
+     * @param ordinal
+     * @return String
+     */
+    public String get(int ordinal) {
+        return names.get(ordinal);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public Iterator<String> iterator() {
+        return Collections.unmodifiableList(names).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Merges the MO csv files written by the parser workers.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Appends the MO csv files a worker wrote for one input file to the MO csv
+ * files in the output directory.
+ *
+ * Workers parse their files into separate part directories. The parts are
+ * merged in the order of the input files so that the output does not depend
+ * on which worker finishes first. The first part of an MO creates the csv
+ * with its header, the header line of the later parts is skipped.
+ *
+ * @author info@bodastage.com
+ */
+public class MOFileMerger {
+
+    /**
+     * Line separator used by the print writers.
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * The output directory.
+     */
+    private File outputDirectory;
+
+    /**
+     * Csv files created in the output directory.
+     */
+    private Set<String> mergedFiles = new HashSet<String>();
+
+    /**
+     * Compresses the merged csv files. Null when they are not compressed.
+     */
+    private CsvCompressor compressor = null;
+
+    public MOFileMerger(String outputDirectory) {
+        this.outputDirectory = new File(outputDirectory);
+    }
+
+    /**
+     * Compress the parts while they are merged. The parts themselves are
+     * not compressed.
+     *
+     * @since 1.0.15
+     * @param compressor
+     */
+    public void setCompressor(CsvCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * Append the parts of an existing csv file in the output directory
+     * without their header.
+     *
+     * @param csvName
+     */
+    public synchronized void addExistingFile(String csvName) {
+        mergedFiles.add(csvName);
+    }
+
+    /**
+     * Append the csv files of a part directory to the output directory and
+     * delete the part directory.
+     *
+     * @param partDirectory
+     * @throws IOException
+     */
+    public synchronized void merge(File partDirectory) throws IOException {
+        File[] parts = partDirectory.listFiles();
+        if (parts != null) {
+            for (File part : parts) {
+                String csvName = part.getName();
+                boolean append = mergedFiles.contains(csvName);
+                long start = append ? getHeaderLength(part) : 0;
+
+                File csvFile = new File(outputDirectory, csvName);
+                OutputStream out = compressor == null
+                        ? new FileOutputStream(csvFile, append) : compressor.open(csvFile, append);
+                FileInputStream fis = new FileInputStream(part);
+                try {
+                    FileChannel source = fis.getChannel();
+                    WritableByteChannel target = out instanceof FileOutputStream
+                            ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+                    long size = source.size();
+                    for (long position = start; position < size;) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                } finally {
+                    fis.close();
+                    out.close();
+                }
+
+                mergedFiles.add(csvName);
+                part.delete();
+            }
+        }
+        partDirectory.delete();
+    }
+
+    /**
+     * Delete a part directory without merging it.
+     *
+     * @param partDirectory
+     */
+    public static void discard(File partDirectory) {
+        File[] parts = partDirectory.listFiles();
+        if (parts != null) {
+            for (File part : parts) {
+                part.delete();
+            }
+        }
+        partDirectory.delete();
+    }
+
+    /**
+     * Number of bytes in the header line of a csv file including the line
+     * separator.
+     */
+    private long getHeaderLength(File csvFile) throws IOException {
+        byte[] separator = LINE_SEPARATOR.getBytes();
+        InputStream in = new BufferedInputStream(new FileInputStream(csvFile));
+        try {
+            long length = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                length++;
+                if (b == separator[separator.length - 1]) {
+                    break;
+                }
+            }
+            return length;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Updates the MO csv files of a previous run.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Prepares the MO csv files written by a previous run for the rows of an
+ * incremental run.
+ *
+ * The rows of the new dumps are appended to the existing files, so the
+ * columns of an MO can only grow at the end like during a single pass
+ * parse. When new columns were discovered the file is rewritten with the
+ * new header and its rows are padded with empty values. The rows of dumps
+ * that are parsed again are dropped while the file is rewritten; they are
+ * found by the FILENAME column, so they are kept in the files of a
+ * parameter configuration without FILENAME. Files that need neither are not
+ * touched.
+ *
+ * @author info@bodastage.com
+ */
+public class MOFileUpdater {
+
+    /**
+     * Line separator used by the csv writers.
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private File outputDirectory;
+
+    /**
+     * Header line of each csv file by MO.
+     */
+    private Map<String, String> headers = new LinkedHashMap<String, String>();
+
+    private long rowsRemoved = 0;
+
+    private int filesRewritten = 0;
+
+    /**
+     * MOs whose rows could not be dropped because they have no FILENAME
+     * column.
+     */
+    private Set<String> unfilteredFiles = new TreeSet<String>();
+
+    /**
+     * Read the headers of the csv files in the output directory.
+     *
+     * @param outputDirectory
+     * @throws IOException
+     */
+    public MOFileUpdater(String outputDirectory) throws IOException {
+        this.outputDirectory = new File(outputDirectory);
+        File[] files = this.outputDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File f : files) {
+            String name = f.getName();
+            if (f.isFile() && name.endsWith(".csv")) {
+                InputStream in = new BufferedInputStream(new FileInputStream(f));
+                try {
+                    byte[] header = readLine(in);
+                    if (header != null) {
+                        headers.put(name.substring(0, name.length() - 4),
+                                new String(header, 0, contentLength(header)));
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * MOs with a csv file in the output directory.
+     *
+     * @return Collection
+     */
+    public Collection<String> getClassNames() {
+        return headers.keySet();
+    }
+
+    /**
+     * Header line of an MO's csv file.
+     *
+     * @param className
+     * @return String The header or null if the MO has no csv file
+     */
+    public String getHeader(String className) {
+        return headers.get(className);
+    }
+
+    /**
+     * Give an MO's csv file the new header and drop the rows of the given
+     * dumps.
+     *
+     * @param className
+     * @param header The header of the run. It must start with the columns of
+     *               the existing header
+     * @param removedDumps FILENAME values of the rows to drop
+     * @throws IOException If the existing columns are not the first columns
+     *                     of the new header
+     */
+    public void update(String className, String header, Set<String> removedDumps)
+            throws IOException {
+        String oldHeader = headers.get(className);
+        if (oldHeader == null) {
+            return;
+        }
+
+        int padding;
+        if (header.equals(oldHeader)) {
+            padding = 0;
+        } else if (header.startsWith(oldHeader + ",")) {
+            padding = countColumns(header) - countColumns(oldHeader);
+        } else {
+            throw new IOException("The columns of " + className + ".csv have changed. "
+                    + "Parse all the files into a new output directory.");
+        }
+
+        int fileNameColumn = Arrays.asList(oldHeader.split(",", -1)).indexOf("FILENAME");
+        if (fileNameColumn < 0 && !removedDumps.isEmpty()) {
+            unfilteredFiles.add(className);
+        }
+        if (padding == 0 && (removedDumps.isEmpty() || fileNameColumn < 0)) {
+            return;
+        }
+
+        Set<ByteKey> removed = new HashSet<ByteKey>();
+        if (fileNameColumn >= 0) {
+            for (String dump : removedDumps) {
+                byte[] b = dump.getBytes();
+                removed.add(new ByteKey(b, 0, b.length));
+            }
+        }
+
+        byte[] paddingBytes = new byte[padding];
+        Arrays.fill(paddingBytes, (byte) ',');
+        byte[] separator = LINE_SEPARATOR.getBytes();
+
+        File csvFile = new File(outputDirectory, className + ".csv");
+        File tempFile = new File(outputDirectory, "." + className + ".csv.tmp");
+        InputStream in = new BufferedInputStream(new FileInputStream(csvFile), BUFFER_SIZE);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE);
+        try {
+            readLine(in);
+            out.write(header.getBytes());
+            out.write(separator);
+
+            for (byte[] row; (row = readLine(in)) != null;) {
+                int length = contentLength(row);
+                if (!removed.isEmpty() && removed.contains(field(row, length, fileNameColumn))) {
+                    rowsRemoved++;
+                    continue;
+                }
+                out.write(row, 0, length);
+                out.write(paddingBytes);
+                out.write(separator);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+
+        Files.move(tempFile.toPath(), csvFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        headers.put(className, header);
+        filesRewritten++;
+    }
+
+    /**
+     * Number of rows of dumps parsed again that were dropped.
+     */
+    public long getRowsRemoved() {
+        return rowsRemoved;
+    }
+
+    public int getFilesRewritten() {
+        return filesRewritten;
+    }
+
+    /**
+     * MOs whose rows of dumps parsed again were kept because their csv file
+     * has no FILENAME column.
+     */
+    public Set<String> getUnfilteredFiles() {
+        return unfilteredFiles;
+    }
+
+    private static int countColumns(String header) {
+        int columns = 1;
+        for (int i = 0; i < header.length(); i++) {
+            if (header.charAt(i) == ',') {
+                columns++;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Read a line including its line separator.
+     *
+     * @return byte[] The line or null at the end of the file
+     */
+    private static byte[] readLine(InputStream in) throws IOException {
+        byte[] separator = LINE_SEPARATOR.getBytes();
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = in.read()) != -1) {
+            line.write(b);
+            if (b == separator[separator.length - 1]) {
+                break;
+            }
+        }
+        return line.size() == 0 ? null : line.toByteArray();
+    }
+
+    /**
+     * Length of a line without its line separator.
+     */
+    private static int contentLength(byte[] line) {
+        byte[] separator = LINE_SEPARATOR.getBytes();
+        int length = line.length;
+        if (length >= separator.length) {
+            boolean endsWithSeparator = true;
+            for (int i = 0; i < separator.length; i++) {
+                if (line[length - separator.length + i] != separator[i]) {
+                    endsWithSeparator = false;
+                    break;
+                }
+            }
+            if (endsWithSeparator) {
+                return length - separator.length;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * The raw bytes of a field of a csv row. Commas between quotes do not
+     * separate fields.
+     */
+    private static ByteKey field(byte[] row, int length, int column) {
+        int start = 0;
+        int c = 0;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            if (row[i] == '"') {
+                quoted = !quoted;
+            } else if (row[i] == ',' && !quoted) {
+                if (c == column) {
+                    return new ByteKey(row, start, i);
+                }
+                c++;
+                start = i + 1;
+            }
+        }
+        return c == column ? new ByteKey(row, start, length) : null;
+    }
+
+    /**
+     * Bytes compared by content.
+     */
+    private static class ByteKey {
+
+        private byte[] buf;
+
+        private int start;
+
+        private int end;
+
+        private int hash;
+
+        ByteKey(byte[] buf, int start, int end) {
+            this.buf = buf;
+            this.start = start;
+            this.end = end;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buf[i];
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ByteKey)) {
+                return false;
+            }
+            ByteKey k = (ByteKey) o;
+            if (k.end - k.start != end - start) {
+                return false;
+            }
+            for (int i = 0; i < end - start; i++) {
+                if (buf[start + i] != k.buf[k.start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
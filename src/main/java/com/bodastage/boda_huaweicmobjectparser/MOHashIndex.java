@@ -0,0 +1,165 @@
+/*
+ * Compact hash index of MO instances.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+/**
+ * Maps the 64 bit identity hash of an MO instance to the 62 bit
+ * fingerprint of its values and two flags.
+ *
+ * Keys and values are kept in two long arrays with open addressing, 16
+ * bytes per entry at a load factor of at most one half, so millions of
+ * instances fit in a few hundred MB. Entries are never removed; the flags
+ * mark the entries an instance was matched with instead.
+ *
+ * @author info@bodastage.com
+ */
+public class MOHashIndex {
+
+    /**
+     * Flag of an entry matched with an instance of the new snapshot.
+     */
+    public static final long MATCHED = 1L << 63;
+
+    /**
+     * Flag of an entry visited by the second pass over the old snapshot.
+     */
+    public static final long VISITED = 1L << 62;
+
+    /**
+     * Bits of the fingerprint.
+     */
+    public static final long FINGERPRINT = VISITED - 1;
+
+    /**
+     * Start value of {@link #hash(long, String)}.
+     */
+    public static final long HASH_START = 0xcbf29ce484222325L;
+
+    /**
+     * Key of empty slots. Key 0 is stored as 1.
+     */
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[1 << 10];
+
+    private long[] values = new long[1 << 10];
+
+    private int size = 0;
+
+    /**
+     * Value of a key.
+     *
+     * @param key
+     * @return long The value or -1 if the key is not in the index
+     */
+    public long get(long key) {
+        key = key == EMPTY ? 1 : key;
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Set the value of a key.
+     *
+     * @param key
+     * @param value A fingerprint with flags. Must not be -1
+     */
+    public void put(long key, long value) {
+        key = key == EMPTY ? 1 : key;
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                rehash();
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    public boolean contains(long key) {
+        return get(key) != -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimated heap used by the index.
+     */
+    public long getRetainedBytes() {
+        return 16L * keys.length;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) {
+                continue;
+            }
+            int i = index(oldKeys[j], mask);
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int index(long key, int mask) {
+        return (int) (mix(key) & mask);
+    }
+
+    /**
+     * Spread the bits of a hash, the finalizer of MurmurHash3.
+     *
+     * @param h
+     * @return long
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters of a string added to a hash.
+     *
+     * @param h The hash so far. Start with {@link #HASH_START}
+     * @param s
+     * @return long
+     */
+    public static long hash(long h, String s) {
+        for (int i = 0, length = s.length(); i < length; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        //Separate the strings of a hash so "AB","C" and "A","BC" differ
+        h ^= 0x10000;
+        h *= 0x100000001b3L;
+        return h;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Parameter values of the MO instance being parsed.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the parameter values of an MO instance in an array indexed by the
+ * ordinals of its managed object's columns.
+ *
+ * Parameters that are not columns yet can be added while the columns are
+ * being discovered. They get the ordinals following the existing columns
+ * and become columns, in the order they were first seen, when
+ * {@link #commitNewColumns()} is called at the end of the instance.
+ *
+ * @author info@bodastage.com
+ */
+public class MOInstance {
+
+    /**
+     * Managed object of the instance.
+     */
+    private String className;
+
+    /**
+     * Columns the values are indexed by or null if the managed object has
+     * no columns yet.
+     */
+    private MOColumns columns;
+
+    /**
+     * Number of columns when the first new parameter was added. New columns
+     * get the ordinals from here on.
+     */
+    private int base = 0;
+
+    private MOColumns newColumns = new MOColumns();
+
+    private String[] values = new String[64];
+
+    /**
+     * Ordinals of the values set in the order they were first set.
+     */
+    private int[] order = new int[64];
+
+    private int count = 0;
+
+    /**
+     * First parameter that was not a column when new columns were not
+     * allowed.
+     */
+    private String missingColumn = null;
+
+    public String getClassName() {
+        return className;
+    }
+
+    public MOColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Set the managed object of the instance. Values that are already set
+     * are moved to the ordinals of the new columns.
+     *
+     * @param className
+     * @param columns Columns of the managed object or null
+     * @param addColumns Allow parameters that are not columns
+     */
+    public void setClass(String className, MOColumns columns, boolean addColumns) {
+        boolean sameClass = className == null ? this.className == null
+                : className.equals(this.className);
+        if (columns == this.columns && sameClass) {
+            this.className = className;
+            return;
+        }
+
+        List<String> names = getNames();
+        List<String> namesValues = new ArrayList<String>(names.size());
+        for (int i = 0; i < count; i++) {
+            namesValues.add(values[order[i]]);
+        }
+        String missing = missingColumn;
+
+        clear();
+        this.className = className;
+        this.columns = columns;
+        this.missingColumn = missing;
+
+        for (int i = 0; i < names.size(); i++) {
+            put(names.get(i), namesValues.get(i), addColumns);
+        }
+    }
+
+    /**
+     * Set the value of a parameter.
+     *
+     * @param name Parameter name
+     * @param value
+     * @param addColumns Allow parameters that are not columns
+     * @return boolean false if the parameter is not a column and new columns
+     *                 are not allowed
+     */
+    public boolean put(String name, String value, boolean addColumns) {
+        int ordinal = columns == null ? -1 : columns.indexOf(name);
+        if (ordinal < 0) {
+            if (!addColumns) {
+                if (missingColumn == null) {
+                    missingColumn = name;
+                }
+                return false;
+            }
+            if (newColumns.size() == 0) {
+                base = columns == null ? 0 : columns.size();
+            }
+            ordinal = base + newColumns.add(name);
+        }
+
+        if (ordinal >= values.length) {
+            values = Arrays.copyOf(values, Math.max(ordinal + 1, values.length * 2));
+        }
+        if (values[ordinal] == null) {
+            if (count == order.length) {
+                order = Arrays.copyOf(order, order.length * 2);
+            }
+            order[count++] = ordinal;
+        }
+        values[ordinal] = value;
+        return true;
+    }
+
+    /**
+     * Value of the column with the given ordinal.
+     *
+     * @param ordinal
+     * @return String The value or null if it is not set
+     */
+    public String get(int ordinal) {
+        return ordinal < values.length ? values[ordinal] : null;
+    }
+
+    /**
+     * Number of parameters set.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Names of the parameters set in the order they were first set.
+     *
+     * @return List of parameter names
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            int ordinal = order[i];
+            if (columns != null && ordinal < columns.size()) {
+                names.add(columns.get(ordinal));
+            } else {
+                names.add(newColumns.get(ordinal - base));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * First parameter that could not be set because it is not a column.
+     *
+     * @return String The parameter name or null
+     */
+    public String getMissingColumn() {
+        return missingColumn;
+    }
+
+    /**
+     * Append the new parameters to the columns. The columns must not change
+     * while the instance has new parameters.
+     */
+    public void commitNewColumns() {
+        if (newColumns.size() == 0) {
+            return;
+        }
+        for (String name : newColumns) {
+            columns.add(name);
+        }
+        newColumns = new MOColumns();
+    }
+
+    /**
+     * Remove all values. The managed object and its columns are kept.
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            values[order[i]] = null;
+        }
+        count = 0;
+        if (newColumns.size() > 0) {
+            newColumns = new MOColumns();
+        }
+        missingColumn = null;
+    }
+}
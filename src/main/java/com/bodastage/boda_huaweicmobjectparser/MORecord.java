@@ -0,0 +1,271 @@
+/*
+ * An MO instance passed to record listeners.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An MO instance with the meta fields of its dump and NE.
+ *
+ * The values are indexed by the ordinals of the MO's columns, the
+ * parameters of the MO in the order they were discovered. An instance does
+ * not have a value for every column. Switch values are split into one
+ * column per switch unless the MO is listed as without switches.
+ *
+ * The record passed to a listener is reused for the next instance and its
+ * columns may grow during a single pass parse. Use {@link #copy()} to keep
+ * it.
+ *
+ * @author info@bodastage.com
+ */
+public class MORecord {
+
+    /**
+     * Names of the meta fields in the order of the csv files.
+     */
+    public static final String[] META_FIELDS = {"FILENAME", "DATETIME",
+        "NE_TECHNOLOGY", "NE_VENDOR", "NE_VERSION", "NE_TYPE"};
+
+    private String fileName;
+
+    private String dateTime;
+
+    private String technology;
+
+    private String vendor;
+
+    private String version;
+
+    private String nodeTypeVersion;
+
+    private String className;
+
+    private MOColumns columns;
+
+    /**
+     * Values of a record read from the parser. Null for copies.
+     */
+    private MOInstance moi;
+
+    /**
+     * Values of a copy.
+     */
+    private String[] values;
+
+    /**
+     * Number of values of a copy.
+     */
+    private int valueCount;
+
+    MORecord() {
+    }
+
+    /**
+     * Set the meta fields.
+     */
+    void setMetaFields(String fileName, String dateTime, String technology, String vendor,
+            String version, String nodeTypeVersion) {
+        this.fileName = fileName;
+        this.dateTime = dateTime;
+        this.technology = technology;
+        this.vendor = vendor;
+        this.version = version;
+        this.nodeTypeVersion = nodeTypeVersion;
+    }
+
+    /**
+     * Set the MO instance.
+     */
+    void setInstance(String className, MOColumns columns, MOInstance moi) {
+        this.className = className;
+        this.columns = columns;
+        this.moi = moi;
+    }
+
+    /**
+     * Copy a record into this record, reusing its values array. The columns
+     * are shared with the source.
+     */
+    void set(MORecord source) {
+        setMetaFields(source.fileName, source.dateTime, source.technology, source.vendor,
+                source.version, source.nodeTypeVersion);
+        className = source.className;
+        columns = source.columns;
+        moi = null;
+        valueCount = source.size();
+        if (values == null || values.length < valueCount) {
+            values = new String[Math.max(valueCount, 16)];
+        }
+        for (int i = 0; i < valueCount; i++) {
+            values[i] = source.getValue(i);
+        }
+    }
+
+    /**
+     * Base name of the dump.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Date and time of the dump.
+     */
+    public String getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Technique of the NE object.
+     */
+    public String getTechnology() {
+        return technology;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * NE type, the name of the top level class.
+     */
+    public String getNodeTypeVersion() {
+        return nodeTypeVersion;
+    }
+
+    /**
+     * Returns true if the name is the csv column name of a meta field.
+     *
+     * @param name
+     * @return boolean
+     */
+    public static boolean isMetaField(String name) {
+        for (String metaField : META_FIELDS) {
+            if (metaField.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Value of a meta field by its csv column name.
+     *
+     * @param name
+     * @return String The value or null if the name is not a meta field
+     */
+    public String getMetaField(String name) {
+        if (name.equals("FILENAME")) {
+            return fileName;
+        } else if (name.equals("DATETIME")) {
+            return dateTime;
+        } else if (name.equals("NE_TECHNOLOGY")) {
+            return technology;
+        } else if (name.equals("NE_VENDOR")) {
+            return vendor;
+        } else if (name.equals("NE_VERSION")) {
+            return version;
+        } else if (name.equals("NE_TYPE")) {
+            return nodeTypeVersion;
+        }
+        return null;
+    }
+
+    /**
+     * MO of the instance.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Columns of the MO.
+     */
+    public MOColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Number of columns.
+     */
+    public int size() {
+        return values != null ? valueCount : columns.size();
+    }
+
+    /**
+     * Name of a column.
+     *
+     * @param ordinal
+     * @return String
+     */
+    public String getColumn(int ordinal) {
+        return columns.get(ordinal);
+    }
+
+    /**
+     * Value of a column.
+     *
+     * @param ordinal
+     * @return String The value or null if the instance has no value for the
+     *         column
+     */
+    public String getValue(int ordinal) {
+        if (values != null) {
+            return ordinal < valueCount ? values[ordinal] : null;
+        }
+        return moi.get(ordinal);
+    }
+
+    /**
+     * Value of a parameter.
+     *
+     * @param name
+     * @return String The value or null if the instance has no value for the
+     *         parameter
+     */
+    public String getValue(String name) {
+        int ordinal = columns.indexOf(name);
+        return ordinal < 0 ? null : getValue(ordinal);
+    }
+
+    /**
+     * Values of the columns in column order.
+     *
+     * @return List of values with null for missing values
+     */
+    public List<String> getValues() {
+        List<String> list = new ArrayList<String>(size());
+        for (int i = 0, size = size(); i < size; i++) {
+            list.add(getValue(i));
+        }
+        return list;
+    }
+
+    /**
+     * A copy that is not changed by the parser.
+     *
+     * @return MORecord
+     */
+    public MORecord copy() {
+        MORecord copy = new MORecord();
+        copy.setMetaFields(fileName, dateTime, technology, vendor, version, nodeTypeVersion);
+        int size = size();
+        copy.className = className;
+        copy.columns = new MOColumns();
+        copy.values = new String[size];
+        copy.valueCount = size;
+        for (int i = 0; i < size; i++) {
+            copy.columns.add(getColumn(i));
+            copy.values[i] = getValue(i);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Receives the MO instances of the parsed dumps.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+
+/**
+ * Receives each MO instance at the end of its object tag, in the order of
+ * the dumps. The NE object that holds the MO instances is not passed.
+ * {@link CsvRecordWriter} writes them to the MO csv files.
+ *
+ * In the default two pass parse the instances are passed during the values
+ * pass, when the columns of each MO are complete. In a single pass parse
+ * they are passed as they are read with the columns discovered so far.
+ *
+ * @author info@bodastage.com
+ */
+public interface MORecordListener {
+
+    /**
+     * Handle an MO instance.
+     *
+     * @param record The instance. It is reused for the next instance
+     * @throws IOException
+     */
+    void record(MORecord record) throws IOException;
+}
@@ -0,0 +1,267 @@
+/*
+ * Pull reader of the MO instances of dumps.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Iterates over the MO instances of a dump, archive or directory of dumps.
+ *
+ * The XML is read event by event with the StAX parser and passed to the
+ * {@link HuaweiCMObjectParser} state machine only until the next instance
+ * ends, so a consumer that stops early does not parse the rest of the
+ * input. Only the current dump is open and nothing is buffered beyond the
+ * next record.
+ * <pre>
+ * MORecordReader reader = parser.records("input_folder");
+ * try {
+ *     for (MORecord record : reader) {
+ *         ...
+ *     }
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ *
+ * Each record returned is a copy that is not changed by the reader. Parse
+ * errors are thrown as {@link UncheckedIOException}. The reader can be
+ * iterated once and is closed when it is read to the end.
+ *
+ * @author info@bodastage.com
+ */
+public class MORecordReader implements Iterable<MORecord>, Iterator<MORecord>, Closeable {
+
+    private HuaweiCMObjectParser parser;
+
+    /**
+     * Input files not opened yet.
+     */
+    private LinkedList<File> files = new LinkedList<File>();
+
+    private XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    /**
+     * The archive being read or null.
+     */
+    private GExportArchive archive = null;
+
+    private InputStream in = null;
+
+    /**
+     * Reader of the current dump or null between dumps.
+     */
+    private XMLStreamReader reader = null;
+
+    /**
+     * The record read ahead by {@link #hasNext()}.
+     */
+    private MORecord next = null;
+
+    private boolean closed = false;
+
+    MORecordReader(HuaweiCMObjectParser parser, String path) throws IOException {
+        this.parser = parser;
+
+        File input = new File(path);
+        if (input.isDirectory()) {
+            File[] fList = input.listFiles();
+            if (fList != null) {
+                for (File f : fList) {
+                    if (f.isFile()) {
+                        files.add(f);
+                    }
+                }
+            }
+        } else if (input.isFile()) {
+            files.add(input);
+        } else {
+            throw new IOException("No such file or directory: " + path);
+        }
+
+        parser.startRecords(new MORecordListener() {
+            public void record(MORecord record) {
+                next = record.copy();
+            }
+        });
+    }
+
+    /**
+     * This reader. It can only be iterated once.
+     *
+     * @return Iterator
+     */
+    public Iterator<MORecord> iterator() {
+        return this;
+    }
+
+    /**
+     * The records as a sequential stream. Closing the stream closes the
+     * reader.
+     *
+     * @return Stream
+     */
+    public Stream<MORecord> stream() {
+        Stream<MORecord> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        return stream.onClose(new Runnable() {
+            public void run() {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+
+        try {
+            while (next == null) {
+                if (reader == null && !openNextDump()) {
+                    close();
+                    return false;
+                }
+                readEvent();
+            }
+            return true;
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException(e.getMessage(), e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public MORecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MORecord record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Pass the next XML event of the current dump to the parser.
+     */
+    private void readEvent() throws XMLStreamException, IOException {
+        if (!reader.hasNext()) {
+            closeDump();
+            return;
+        }
+
+        switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                parser.startElementEvent(reader);
+                break;
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.CHARACTERS:
+                parser.characterEvent(reader);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                parser.endELementEvent(reader.getLocalName());
+                break;
+            case XMLStreamConstants.COMMENT:
+                parser.commentEvent(reader.getText());
+                break;
+        }
+    }
+
+    /**
+     * Open the next dump of the current archive or the next input file.
+     *
+     * @return boolean false when there are no more dumps
+     */
+    private boolean openNextDump() throws XMLStreamException, IOException {
+        while (true) {
+            if (archive != null) {
+                if (archive.nextEntry()) {
+                    openDump(archive.getInputStream(), archive.getEntryName());
+                    return true;
+                }
+                archive.close();
+                archive = null;
+            }
+
+            if (files.isEmpty()) {
+                return false;
+            }
+
+            String filename = files.removeFirst().getAbsolutePath();
+            if (GExportArchive.isArchive(filename)) {
+                archive = new GExportArchive(filename);
+            } else {
+                openDump(new MappedFileInputStream(filename), filename);
+                return true;
+            }
+        }
+    }
+
+    private void openDump(InputStream dumpIn, String dumpName) throws XMLStreamException {
+        in = dumpIn;
+        parser.resetInternalVariables();
+        parser.startDump(dumpName);
+        reader = factory.createXMLStreamReader(in);
+    }
+
+    private void closeDump() throws XMLStreamException, IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } finally {
+            reader = null;
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * Close the current dump. The records not read yet are skipped.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        files.clear();
+        try {
+            closeDump();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (archive != null) {
+                archive.close();
+                archive = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Spills managed object rows to disk during a single pass parse.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the rows of each managed object while the MO's columns are still
+ * being discovered.
+ *
+ * Columns are only ever appended to an MO, so a row written when the MO had
+ * k columns only lacks the trailing columns discovered later. Rows are
+ * written to segment files, one segment per column count, and the final csv
+ * is assembled once the header is known by copying each segment and padding
+ * its rows with empty values.
+ *
+ * At most a given number of segment files are open. The least recently
+ * written segment is closed when another one is opened and reopened in
+ * append mode when the MO has more rows, like the csv files of
+ * {@link MOWriterPool}.
+ *
+ * @author info@bodastage.com
+ */
+public class MOSpillWriter {
+
+    /**
+     * Line separator used by the print writers.
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * Directory in which the spill files are created.
+     */
+    private File spillDirectory;
+
+    /**
+     * Spill segments per managed object.
+     */
+    private Map<String, List<Segment>> moSegments
+            = new LinkedHashMap<String, List<Segment>>();
+
+    /**
+     * Segments with an open writer in least recently used order.
+     */
+    private LinkedHashMap<Segment, Segment> openSegments
+            = new LinkedHashMap<Segment, Segment>(16, 0.75f, true);
+
+    private int maxOpenFiles;
+
+    /**
+     * Compresses the final csv files. Null when they are not compressed.
+     */
+    private CsvCompressor compressor = null;
+
+    public MOSpillWriter(String spillDirectory) {
+        this(spillDirectory, MOWriterPool.DEFAULT_MAX_OPEN_FILES);
+    }
+
+    /**
+     * @since 1.0.15
+     * @param spillDirectory
+     * @param maxOpenFiles Maximum number of spill files kept open
+     */
+    public MOSpillWriter(String spillDirectory, int maxOpenFiles) {
+        this.spillDirectory = new File(spillDirectory);
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+    }
+
+    /**
+     * Write the final csv files compressed. The spill files are not
+     * compressed.
+     *
+     * @since 1.0.15
+     * @param compressor
+     */
+    public void setCompressor(CsvCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * Spill a row of the given managed object.
+     *
+     * @param className Managed object
+     * @param row Csv row without the line separator
+     * @param columnCount Number of MO columns the row was built with
+     * @throws FileNotFoundException
+     */
+    public void println(String className, CharSequence row, int columnCount)
+            throws FileNotFoundException, IOException {
+        List<Segment> segments = moSegments.get(className);
+        if (segments == null) {
+            segments = new ArrayList<Segment>();
+            moSegments.put(className, segments);
+        }
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.columnCount != columnCount) {
+            if (segment != null) {
+                closeSegment(segment);
+            }
+            segment = new Segment(className, columnCount);
+            segments.add(segment);
+        }
+        CsvWriter writer = openSegment(segment);
+
+        //Rows with embedded line breaks can not be split on the line separator
+        if (hasLineBreak(row)) {
+            segment.irregularRows.add(new long[]{segment.rows,
+                row.toString().getBytes().length});
+        }
+
+        writer.writeRow(row);
+        segment.rows++;
+    }
+
+    /**
+     * The writer of a segment. The least recently used segment is closed
+     * if the segment has to be reopened and too many are open.
+     */
+    private CsvWriter openSegment(Segment segment) throws IOException {
+        if (openSegments.get(segment) != null) {
+            return segment.pw;
+        }
+
+        if (openSegments.size() >= maxOpenFiles) {
+            closeSegment(openSegments.keySet().iterator().next());
+        }
+        segment.pw = new CsvWriter(new FileOutputStream(segment.file, true));
+        openSegments.put(segment, segment);
+        return segment.pw;
+    }
+
+    private void closeSegment(Segment segment) throws IOException {
+        if (segment.pw != null) {
+            openSegments.remove(segment);
+            CsvWriter writer = segment.pw;
+            segment.pw = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns true if rows have been spilled for the managed object.
+     *
+     * @param className
+     * @return boolean
+     */
+    public boolean hasRows(String className) {
+        return moSegments.containsKey(className);
+    }
+
+    /**
+     * Spilled managed objects in the order they were first seen.
+     *
+     * @return Iterable of MO names
+     */
+    public Iterable<String> getClassNames() {
+        return moSegments.keySet();
+    }
+
+    /**
+     * Write the header and the spilled rows of a managed object to its csv.
+     *
+     * @param className Managed object
+     * @param csvFile Target csv file
+     * @param header Csv header
+     * @param columnCount Final number of MO columns
+     * @throws IOException
+     */
+    public void writeCsv(String className, File csvFile, String header,
+            int columnCount) throws IOException {
+        writeCsv(className, csvFile, header, columnCount, false);
+    }
+
+    /**
+     * Write the spilled rows of a managed object to its csv.
+     *
+     * @since 1.0.15
+     * @param className Managed object
+     * @param csvFile Target csv file
+     * @param header Csv header
+     * @param columnCount Final number of MO columns
+     * @param append Append the rows to the existing csv without the header
+     * @throws IOException
+     */
+    public void writeCsv(String className, File csvFile, String header,
+            int columnCount, boolean append) throws IOException {
+        List<Segment> segments = moSegments.get(className);
+
+        if (compressor != null) {
+            OutputStream out = compressor.open(csvFile, append);
+            try {
+                if (!append) {
+                    out.write((header + LINE_SEPARATOR).getBytes());
+                }
+                if (segments != null) {
+                    writeSegments(segments, out, Channels.newChannel(out), columnCount);
+                }
+            } finally {
+                out.close();
+            }
+            return;
+        }
+
+        if (!append) {
+            PrintWriter headerWriter = new PrintWriter(csvFile);
+            headerWriter.println(header);
+            headerWriter.close();
+        }
+
+        if (segments == null) {
+            return;
+        }
+
+        FileOutputStream fos = new FileOutputStream(csvFile, true);
+        try {
+            writeSegments(segments, fos, fos.getChannel(), columnCount);
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Copy the segments of an MO padding the rows with fewer columns.
+     *
+     * @param target The channel of the stream
+     */
+    private void writeSegments(List<Segment> segments, OutputStream stream,
+            WritableByteChannel target, int columnCount) throws IOException {
+        for (Segment segment : segments) {
+            closeSegment(segment);
+            if (segment.columnCount == columnCount) {
+                copySegment(segment, target);
+            } else {
+                OutputStream out = new BufferedOutputStream(stream, 1 << 16);
+                padSegment(segment, out, columnCount - segment.columnCount);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Delete all spill files.
+     */
+    public void close() {
+        Iterator<Map.Entry<String, List<Segment>>> iter
+                = moSegments.entrySet().iterator();
+        while (iter.hasNext()) {
+            for (Segment segment : iter.next().getValue()) {
+                try {
+                    closeSegment(segment);
+                } catch (IOException e) {
+                    //The spill file is deleted anyway
+                }
+                segment.file.delete();
+            }
+        }
+        moSegments.clear();
+        openSegments.clear();
+    }
+
+    /**
+     * Copy a segment whose rows already have all the columns.
+     */
+    private void copySegment(Segment segment, WritableByteChannel target) throws IOException {
+        FileInputStream fis = new FileInputStream(segment.file);
+        try {
+            FileChannel source = fis.getChannel();
+            long position = 0;
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Copy a segment adding the empty values of the missing trailing columns
+     * to each row.
+     */
+    private void padSegment(Segment segment, OutputStream out, int missingColumns)
+            throws IOException {
+        byte[] padding = new byte[missingColumns];
+        for (int i = 0; i < missingColumns; i++) {
+            padding[i] = ',';
+        }
+        byte[] separator = LINE_SEPARATOR.getBytes();
+
+        InputStream in = new BufferedInputStream(new FileInputStream(segment.file), 1 << 16);
+        try {
+            int irregularIndex = 0;
+            for (long row = 0; row < segment.rows; row++) {
+                if (irregularIndex < segment.irregularRows.size()
+                        && segment.irregularRows.get(irregularIndex)[0] == row) {
+                    long length = segment.irregularRows.get(irregularIndex)[1];
+                    for (long i = 0; i < length; i++) {
+                        out.write(in.read());
+                    }
+                    in.read();
+                    irregularIndex++;
+                } else {
+                    int b;
+                    while ((b = in.read()) != -1 && b != separator[0]) {
+                        out.write(b);
+                    }
+                }
+
+                //Skip the remaining separator bytes
+                for (int i = 1; i < separator.length; i++) {
+                    in.read();
+                }
+                out.write(padding);
+                out.write(separator);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static boolean hasLineBreak(CharSequence row) {
+        for (int i = 0, length = row.length(); i < length; i++) {
+            char c = row.charAt(i);
+            if (c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rows of an MO spilled with the same column count.
+     */
+    private class Segment {
+
+        File file;
+
+        /**
+         * Writer of the segment file. Null when the file is closed.
+         */
+        CsvWriter pw = null;
+
+        int columnCount;
+
+        long rows = 0;
+
+        /**
+         * Row index and byte length of rows containing line breaks.
+         */
+        List<long[]> irregularRows = new ArrayList<long[]>();
+
+        Segment(String className, int columnCount) throws IOException {
+            this.columnCount = columnCount;
+            this.file = File.createTempFile(className + "_", ".spill", spillDirectory);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Bounded pool of open MO csv writers.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps at most a given number of MO csv files open.
+ *
+ * When the pool is full the least recently used writer is closed. Its file
+ * is reopened in append mode the next time a row is written to the MO.
+ * The hit, miss and eviction counters show whether the limit is too low
+ * for the number of MOs written at the same time.
+ *
+ * @author info@bodastage.com
+ */
+public class MOWriterPool {
+
+    /**
+     * Default maximum number of open csv files.
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 512;
+
+    private String outputDirectory;
+
+    private int maxOpenFiles;
+
+    /**
+     * Compresses the csv files. Null when they are not compressed.
+     */
+    private CsvCompressor compressor = null;
+
+    /**
+     * Open writers in least recently used order.
+     */
+    private LinkedHashMap<String, CsvWriter> writers
+            = new LinkedHashMap<String, CsvWriter>(16, 0.75f, true);
+
+    /**
+     * MOs whose csv file has been created.
+     */
+    private Set<String> createdFiles = new HashSet<String>();
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long evictions = 0;
+
+    public MOWriterPool(String outputDirectory, int maxOpenFiles) {
+        this.outputDirectory = outputDirectory;
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+    }
+
+    /**
+     * Write the csv files compressed.
+     *
+     * @since 1.0.15
+     * @param compressor
+     */
+    public void setCompressor(CsvCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * Returns true if the csv file of the MO has been created.
+     *
+     * @param className
+     * @return boolean
+     */
+    public boolean hasFile(String className) {
+        return createdFiles.contains(className);
+    }
+
+    /**
+     * Append the rows of an MO to its existing csv file without writing a
+     * header.
+     *
+     * @since 1.0.15
+     * @param className
+     */
+    public void addExistingFile(String className) {
+        createdFiles.add(className);
+    }
+
+    /**
+     * Get the writer of an MO's csv file. The file is created the first
+     * time and reopened in append mode after it has been evicted.
+     *
+     * @param className
+     * @return CsvWriter
+     * @throws IOException
+     */
+    public CsvWriter getWriter(String className) throws IOException {
+        CsvWriter writer = writers.get(className);
+        if (writer != null) {
+            hits++;
+            return writer;
+        }
+
+        misses++;
+        if (writers.size() >= maxOpenFiles) {
+            Iterator<Map.Entry<String, CsvWriter>> eldest = writers.entrySet().iterator();
+            CsvWriter evicted = eldest.next().getValue();
+            eldest.remove();
+            evictions++;
+            evicted.close();
+        }
+
+        File moiFile = new File(outputDirectory, className + ".csv");
+        boolean append = !createdFiles.add(className);
+        OutputStream out = compressor == null
+                ? new FileOutputStream(moiFile, append) : compressor.open(moiFile, append);
+        writer = new CsvWriter(out);
+        writers.put(className, writer);
+        return writer;
+    }
+
+    /**
+     * Close all writers. Rows written to an MO after closing the pool start
+     * a new csv file.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        IOException error = null;
+        for (CsvWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        writers.clear();
+        createdFiles.clear();
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Add the counters of another pool to the counters of this pool.
+     *
+     * @param pool
+     */
+    public void addCounters(MOWriterPool pool) {
+        hits += pool.hits;
+        misses += pool.misses;
+        evictions += pool.evictions;
+    }
+
+    public int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    /**
+     * Number of rows written to an open writer.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of times a csv file was opened.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of writers closed to stay within the limit.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+}
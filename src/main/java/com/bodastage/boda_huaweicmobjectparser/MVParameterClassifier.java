@@ -0,0 +1,259 @@
+/*
+ * Detects multi-valued (switch) parameters.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides whether parameter values are multi-valued switch values such as
+ * BIT1-0&amp;BIT2-1 and splits them into their children.
+ *
+ * A value is multi-valued when it matches the regular expression
+ * <code>[^-]+-[^-]+.*</code>, the parameter is not ACTION and the managed
+ * object, up to the first underscore of its name, is not in the list of
+ * MOs without multi-valued parameters. The value is scanned by hand instead
+ * of with the regular expression and the decisions that only depend on the
+ * MO and parameter names are cached per MO and parameter.
+ *
+ * Instances are not thread safe.
+ *
+ * @author info@bodastage.com
+ */
+public class MVParameterClassifier {
+
+    /**
+     * MOs whose parameters are never multi-valued.
+     */
+    public static final List<String> DEFAULT_MOS_WITHOUT_MV_VALUES = Arrays.asList(
+            "GCELL", "GCELLHOINTERRATLDB", "INVENTORYBOARD", "S1INTERFACE");
+
+    private Set<String> mosWithoutMVValues;
+
+    /**
+     * Parameters per MO and name attribute.
+     */
+    private Map<String, Map<String, Parameter>> classParameters
+            = new HashMap<String, Map<String, Parameter>>();
+
+    private String currentClassName;
+
+    private Map<String, Parameter> currentParameters;
+
+    public MVParameterClassifier() {
+        this(DEFAULT_MOS_WITHOUT_MV_VALUES);
+    }
+
+    /**
+     * @param mosWithoutMVValues MOs whose parameters are never multi-valued
+     */
+    public MVParameterClassifier(Collection<String> mosWithoutMVValues) {
+        this.mosWithoutMVValues = new HashSet<String>(mosWithoutMVValues);
+    }
+
+    public Set<String> getMOsWithoutMVValues() {
+        return mosWithoutMVValues;
+    }
+
+    /**
+     * Get a parameter of an MO.
+     *
+     * @param className MO name in upper case
+     * @param nameAttr The parameter's name attribute
+     * @return Parameter
+     */
+    public Parameter getParameter(String className, String nameAttr) {
+        if (className != currentClassName || currentParameters == null) {
+            currentParameters = classParameters.get(className);
+            if (currentParameters == null) {
+                currentParameters = new HashMap<String, Parameter>();
+                classParameters.put(className, currentParameters);
+            }
+            currentClassName = className;
+        }
+
+        Parameter parameter = currentParameters.get(nameAttr);
+        if (parameter == null) {
+            String name = nameAttr.toUpperCase();
+            int underscore = className.indexOf('_');
+            String moName = underscore < 0 ? className : className.substring(0, underscore);
+            boolean canBeMV = !name.equals("ACTION") && !mosWithoutMVValues.contains(moName);
+
+            parameter = new Parameter(name, className + "_" + name, canBeMV);
+            currentParameters.put(nameAttr, parameter);
+        }
+        return parameter;
+    }
+
+    /**
+     * Returns true if the value matches <code>[^-]+-[^-]+.*</code>.
+     *
+     * @param value
+     * @return boolean
+     */
+    public static boolean isMVValue(String value) {
+        int length = value.length();
+        int dash = value.indexOf('-');
+        if (dash < 1 || dash + 1 >= length || value.charAt(dash + 1) == '-') {
+            return false;
+        }
+
+        //The second [^-]+ stops at the next dash. The rest is matched by .*
+        //which does not match line terminators.
+        int rest = value.indexOf('-', dash + 1);
+        if (rest < 0) {
+            return true;
+        }
+        for (int i = rest; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split a multi-valued value into child names and values. The children
+     * are the same as from splitting the value on &amp; and each part on -.
+     *
+     * @param value e.g. BIT1-0&amp;BIT2-1
+     * @param names Child names e.g. BIT1, BIT2
+     * @param values Child values e.g. 0, 1
+     */
+    public static void split(String value, List<String> names, List<String> values) {
+        names.clear();
+        values.clear();
+
+        int length = value.length();
+
+        //Trailing empty parts are dropped like String.split does
+        int end = length;
+        while (end > 0 && value.charAt(end - 1) == '&') {
+            end--;
+        }
+
+        int start = 0;
+        while (start < end) {
+            int partEnd = value.indexOf('&', start);
+            if (partEnd < 0 || partEnd > end) {
+                partEnd = end;
+            }
+
+            int dash = value.indexOf('-', start);
+            int valueEnd = dash < 0 || dash >= partEnd ? -1 : value.indexOf('-', dash + 1);
+            if (valueEnd < 0 || valueEnd > partEnd) {
+                valueEnd = partEnd;
+            }
+
+            //Parts that String.split turns into less than two fields
+            if (dash < 0 || dash >= partEnd || !hasNonDash(value, dash + 1, partEnd)) {
+                splitWithRegex(value, names, values);
+                return;
+            }
+
+            names.add(value.substring(start, dash));
+            values.add(value.substring(dash + 1, valueEnd));
+            start = partEnd + 1;
+        }
+
+        //Empty first part
+        if (end > 0 && value.charAt(0) == '&') {
+            splitWithRegex(value, names, values);
+        }
+    }
+
+    private static boolean hasNonDash(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) != '-') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Split a value with String.split. Malformed values fail with the same
+     * exception as in earlier versions.
+     */
+    private static void splitWithRegex(String value, List<String> names, List<String> values) {
+        names.clear();
+        values.clear();
+
+        String[] valueArray = value.split("&");
+        for (int j = 0; j < valueArray.length; j++) {
+            String[] vArray = valueArray[j].split("-");
+            String childParameter = vArray[0];
+            String childParameterValue = vArray[1];
+            names.add(childParameter);
+            values.add(childParameterValue);
+        }
+    }
+
+    /**
+     * A parameter of an MO.
+     */
+    public static class Parameter {
+
+        private String name;
+
+        private String mvParameter;
+
+        private boolean canBeMV;
+
+        /**
+         * Column names of the children.
+         */
+        private Map<String, String> childColumns = new HashMap<String, String>();
+
+        Parameter(String name, String mvParameter, boolean canBeMV) {
+            this.name = name;
+            this.mvParameter = mvParameter;
+            this.canBeMV = canBeMV;
+        }
+
+        /**
+         * Parameter name in upper case.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * MO and parameter name, the key of the parameter's children.
+         */
+        public String getMVParameter() {
+            return mvParameter;
+        }
+
+        /**
+         * Returns false if the parameter's values are never multi-valued.
+         */
+        public boolean canBeMV() {
+            return canBeMV;
+        }
+
+        /**
+         * Column name of a child, PARAMETER_CHILD in upper case.
+         *
+         * @param child Child name
+         * @return String
+         */
+        public String getChildColumn(String child) {
+            String column = childColumns.get(child);
+            if (column == null) {
+                column = (name + "_" + child).toUpperCase();
+                childColumns.put(child, column);
+            }
+            return column;
+        }
+    }
+}
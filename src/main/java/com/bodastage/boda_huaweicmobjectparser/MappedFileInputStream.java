@@ -0,0 +1,127 @@
+/*
+ * Reads a file through memory mapped segments.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream reading a file from memory mapped segments of its channel.
+ *
+ * The file's pages are copied once from the page cache into the caller's
+ * array instead of through the intermediate buffers of FileInputStream and
+ * a reader. Files larger than 2GB are mapped one segment at a time. A
+ * region of a file can be read as if it were the whole file.
+ *
+ * @author info@bodastage.com
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /**
+     * Size of the mapped segments.
+     */
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private RandomAccessFile file;
+
+    private FileChannel channel;
+
+    /**
+     * File position of the end of the file or region.
+     */
+    private long size;
+
+    /**
+     * File position of the end of the current segment.
+     */
+    private long segmentEnd = 0;
+
+    private MappedByteBuffer segment;
+
+    public MappedFileInputStream(String filename) throws IOException {
+        file = new RandomAccessFile(filename, "r");
+        channel = file.getChannel();
+        size = channel.size();
+    }
+
+    /**
+     * Read a region of a file.
+     *
+     * @param filename
+     * @param offset File position of the first byte
+     * @param length Number of bytes
+     * @throws IOException
+     */
+    public MappedFileInputStream(String filename, long offset, long length) throws IOException {
+        this(filename);
+        segmentEnd = Math.min(offset, size);
+        size = Math.min(offset + length, size);
+    }
+
+    /**
+     * Map the next segment. Returns false at the end of the file.
+     */
+    private boolean nextSegment() throws IOException {
+        if (segmentEnd >= size) {
+            return false;
+        }
+        long length = Math.min(SEGMENT_SIZE, size - segmentEnd);
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentEnd, length);
+        segmentEnd += length;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((segment == null || !segment.hasRemaining()) && !nextSegment()) {
+            return -1;
+        }
+        return segment.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if ((segment == null || !segment.hasRemaining()) && !nextSegment()) {
+            return -1;
+        }
+        int n = Math.min(len, segment.remaining());
+        segment.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            if ((segment == null || !segment.hasRemaining()) && !nextSegment()) {
+                break;
+            }
+            int count = (int) Math.min(n - skipped, segment.remaining());
+            segment.position(segment.position() + count);
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        long remaining = size - segmentEnd + (segment == null ? 0 : segment.remaining());
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Selects the MOs and parameters listed in a parameter file.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The MO and parameter selection of a parameter file.
+ *
+ * Each line of the file is MO:PARAMETER1,PARAMETER2. The MO and the
+ * parameters can be glob patterns with '*' and '?', for example
+ * *_BSC6900GSM:CELLID or GCELL*:*, and a parameter * selects all the
+ * parameters of the MO. Names are not case sensitive. Blank lines and
+ * lines starting with # are ignored.
+ *
+ * The MO names of all the lines are compiled into one {@link GlobMatcher}
+ * and the parameter patterns of each line into another, once, when the
+ * file is read. The {@link Selection} of a class merges the lines matching
+ * the class name and is kept per class name, and a selection keeps the
+ * results of the parameter patterns per parameter name, so the cost of a
+ * class or parameter tag does not depend on the number of lines.
+ *
+ * The compiled patterns are shared by the copies made for worker parsers.
+ * The cached selections are not thread safe.
+ *
+ * @author info@bodastage.com
+ */
+public class ParameterSelector {
+
+    /**
+     * A line of the parameter file.
+     */
+    private static class Rule {
+
+        /**
+         * Parameters without patterns in the order of the line.
+         */
+        List<String> parameters = new ArrayList<String>();
+
+        GlobMatcher parameterPatterns = new GlobMatcher();
+
+        boolean allParameters = false;
+    }
+
+    /**
+     * Class names that are not selected.
+     */
+    private static final Selection NONE = new Selection();
+
+    private List<Rule> rules;
+
+    private Set<String> mos;
+
+    private GlobMatcher moPatterns;
+
+    private boolean patterns;
+
+    private Map<String, Selection> selections = new HashMap<String, Selection>();
+
+    /**
+     * Selected parameters of a class.
+     */
+    public static class Selection {
+
+        private Set<String> columns = new LinkedHashSet<String>();
+
+        /**
+         * The listed parameters and the multi-valued parameters whose
+         * children are listed.
+         */
+        private Set<String> names = new HashSet<String>();
+
+        private List<GlobMatcher> parameterPatterns = new ArrayList<GlobMatcher>();
+
+        private boolean allParameters = false;
+
+        private Map<String, Boolean> matched = new HashMap<String, Boolean>();
+
+        /**
+         * The parameters listed without patterns, in the order of the lines
+         * and without duplicates. These are the first columns of the MO.
+         *
+         * @return Set
+         */
+        public Set<String> getColumns() {
+            return columns;
+        }
+
+        /**
+         * Returns true if the parameter is listed or matches a pattern.
+         *
+         * @param parameter Parameter name in upper case
+         * @return boolean
+         */
+        public boolean isSelected(String parameter) {
+            return names.contains(parameter) || isMatched(parameter);
+        }
+
+        /**
+         * Returns true if the parameter matches a pattern. The columns of
+         * these parameters are found when the dumps are parsed.
+         *
+         * @param parameter Parameter name in upper case
+         * @return boolean
+         */
+        public boolean isMatched(String parameter) {
+            if (allParameters) {
+                return true;
+            }
+            if (parameterPatterns.isEmpty()) {
+                return false;
+            }
+
+            Boolean result = matched.get(parameter);
+            if (result == null) {
+                result = Boolean.FALSE;
+                for (GlobMatcher matcher : parameterPatterns) {
+                    if (!matcher.match(parameter).isEmpty()) {
+                        result = Boolean.TRUE;
+                        break;
+                    }
+                }
+                matched.put(parameter, result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns true if the parameters of the class are not all listed.
+         *
+         * @return boolean
+         */
+        public boolean hasPatterns() {
+            return allParameters || !parameterPatterns.isEmpty();
+        }
+
+        private void add(Rule rule) {
+            for (String parameter : rule.parameters) {
+                columns.add(parameter);
+                names.add(parameter);
+
+                //PARAMETER_CHILD columns are the children of a multi-valued
+                //parameter
+                for (int i = parameter.indexOf('_'); i > 0; i = parameter.indexOf('_', i + 1)) {
+                    names.add(parameter.substring(0, i));
+                }
+            }
+            if (rule.parameterPatterns.size() > 0) {
+                parameterPatterns.add(rule.parameterPatterns);
+            }
+            allParameters |= rule.allParameters;
+        }
+    }
+
+    public ParameterSelector() {
+        rules = new ArrayList<Rule>();
+        mos = new LinkedHashSet<String>();
+        moPatterns = new GlobMatcher();
+        patterns = false;
+    }
+
+    /**
+     * Selector sharing the lines of another selector with its own cache of
+     * selections.
+     */
+    private ParameterSelector(ParameterSelector selector) {
+        rules = selector.rules;
+        mos = selector.mos;
+        moPatterns = selector.moPatterns;
+        patterns = selector.patterns;
+    }
+
+    /**
+     * Add a line of the parameter file.
+     *
+     * @param line
+     * @throws Exception if the line is not MO:PARAMETERS
+     */
+    public void addLine(String line) throws Exception {
+        String trimmed = line.trim();
+        if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+            return;
+        }
+        if (!line.contains(":")) {
+            throw new Exception("Wrong format. Contents:" + line);
+        }
+
+        String[] moAndParameters = line.split(":");
+        String mo = moAndParameters[0].toUpperCase();
+        String[] parameters = moAndParameters[1].split(",");
+
+        Rule rule = new Rule();
+        for (int i = 0; i < parameters.length; i++) {
+            String parameter = parameters[i].toUpperCase();
+            if (parameter.equals("*")) {
+                rule.allParameters = true;
+            } else if (GlobMatcher.isPattern(parameter)) {
+                rule.parameterPatterns.add(parameter);
+            } else {
+                rule.parameters.add(parameter);
+            }
+        }
+
+        patterns |= GlobMatcher.isPattern(mo) || rule.allParameters
+                || rule.parameterPatterns.size() > 0;
+        moPatterns.add(mo);
+        mos.add(mo);
+        rules.add(rule);
+        selections.clear();
+    }
+
+    /**
+     * Returns true if a line has a pattern or selects all the parameters of
+     * an MO. The MOs and columns are then found by parsing the dumps.
+     *
+     * @return boolean
+     */
+    public boolean hasPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Selection of a class.
+     *
+     * @param className Class name in upper case
+     * @return Selection or null if no line selects the class
+     */
+    public Selection getSelection(String className) {
+        Selection selection = selections.get(className);
+        if (selection == null) {
+            BitSet matched = moPatterns.match(className);
+            selection = matched.isEmpty() ? NONE : new Selection();
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+                selection.add(rules.get(i));
+            }
+            selections.put(className, selection);
+        }
+        return selection == NONE ? null : selection;
+    }
+
+    /**
+     * MO names and patterns of the lines in the order of the lines.
+     *
+     * @return Set
+     */
+    public Set<String> getMOs() {
+        return mos;
+    }
+
+    /**
+     * Selector for a worker parser.
+     *
+     * @return ParameterSelector
+     */
+    public ParameterSelector copy() {
+        return new ParameterSelector(this);
+    }
+}
@@ -23,4 +23,9 @@ public final class ParserStates {
      * Parsing completed
      */
     public static final int EXTRACTING_DONE = 3;
+    
+    /**
+     * Single pass extraction of the parameters and their values
+     */
+    public static final int EXTRACTING_PARAMETERS_AND_VALUES = 4;
 }
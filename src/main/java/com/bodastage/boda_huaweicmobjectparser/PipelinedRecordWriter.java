@@ -0,0 +1,251 @@
+/*
+ * Hands the MO records to a writer thread in batches.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * The write stage of the parse pipeline. The records are copied into
+ * batches that a writer thread passes to another listener, usually the
+ * {@link CsvRecordWriter}, so the csv formatting, encoding and file writes
+ * overlap with the parsing.
+ *
+ * The batches go to the writer thread through a {@link StageQueue} and come
+ * back through a second one to be reused, so the records and their values
+ * arrays are not allocated again and at most {@link #BATCHES} batches are
+ * in flight. The columns of the records are shared with the parser, so the
+ * columns must not change while the records are written. This is the case
+ * in the values pass and with a parameter configuration.
+ *
+ * The listener is only called by the writer thread. {@link #flush()} waits
+ * until it has been passed all the records. Any exception or error of the
+ * writer thread is thrown to the parser as an IOException, and the parser
+ * stops waiting for the writer thread when it has stopped.
+ *
+ * @author info@bodastage.com
+ */
+public class PipelinedRecordWriter implements MORecordListener, Closeable {
+
+    /**
+     * Records per batch.
+     */
+    public static final int BATCH_SIZE = 256;
+
+    /**
+     * Number of batches, the batches waiting to be written and the batch
+     * being filled.
+     */
+    public static final int BATCHES = 8;
+
+    /**
+     * Batch stopping the writer thread.
+     */
+    private static final Batch STOP = new Batch();
+
+    private MORecordListener listener;
+
+    private StageQueue<Batch> full = new StageQueue<Batch>(BATCHES);
+
+    private StageQueue<Batch> free = new StageQueue<Batch>(BATCHES);
+
+    private Thread writer;
+
+    /**
+     * First error of the writer thread.
+     */
+    private volatile IOException error = null;
+
+    /**
+     * Number of batches written by the writer thread.
+     */
+    private volatile long written = 0;
+
+    private long sent = 0;
+
+    private Batch batch = null;
+
+    private RunMetrics.StageMetrics writeStage;
+
+    private RunMetrics.StageMetrics parseStage;
+
+    /**
+     * Batch of records.
+     */
+    private static class Batch {
+
+        MORecord[] records = new MORecord[BATCH_SIZE];
+
+        int size = 0;
+
+        Batch() {
+            for (int i = 0; i < records.length; i++) {
+                records[i] = new MORecord();
+            }
+        }
+    }
+
+    /**
+     * Start the writer thread.
+     *
+     * @param listener Listener called by the writer thread
+     * @param writeStage Metrics of the writer thread
+     * @param parseStage Metrics of the thread passing the records. Its
+     *                   blocked time is increased by the time it waits for
+     *                   the writer thread
+     */
+    public PipelinedRecordWriter(MORecordListener listener, RunMetrics.StageMetrics writeStage,
+            RunMetrics.StageMetrics parseStage) {
+        this.listener = listener;
+        this.writeStage = writeStage;
+        this.parseStage = parseStage;
+        for (int i = 0; i < BATCHES; i++) {
+            free.offer(new Batch());
+        }
+
+        writer = new Thread(new Runnable() {
+            public void run() {
+                writeBatches();
+            }
+        }, "csv-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Body of the writer thread. After an error of the listener the batches
+     * are only recycled. Other errors stop the thread.
+     */
+    private void writeBatches() {
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                Batch b = full.take();
+                if (b == STOP) {
+                    break;
+                }
+                try {
+                    for (int i = 0; i < b.size && error == null; i++) {
+                        listener.record(b.records[i]);
+                    }
+                } catch (IOException e) {
+                    setError(e);
+                } catch (RuntimeException e) {
+                    setError(new IOException(e));
+                }
+                b.size = 0;
+                writeStage.items++;
+                free.put(b);
+                written++;
+            }
+        } catch (InterruptedIOException e) {
+            setError(e);
+        } catch (Throwable e) {
+            setError(new IOException(e));
+        } finally {
+            writeStage.idleNanos += full.getTakeWaitNanos();
+            writeStage.busyNanos += System.nanoTime() - start - full.getTakeWaitNanos();
+        }
+    }
+
+    /**
+     * Copy a record into the current batch and hand the batch to the writer
+     * thread when it is full.
+     *
+     * @param record
+     * @throws IOException The first error of the writer thread
+     */
+    public void record(MORecord record) throws IOException {
+        checkError();
+        if (batch == null) {
+            batch = takeFreeBatch();
+        }
+        batch.records[batch.size++].set(record);
+        if (batch.size == BATCH_SIZE) {
+            send();
+        }
+    }
+
+    private void send() throws IOException {
+        long waited = full.getPutWaitNanos();
+        try {
+            full.put(batch, writer);
+        } catch (IOException e) {
+            checkError();
+            throw e;
+        }
+        parseStage.blockedNanos += full.getPutWaitNanos() - waited;
+        batch = null;
+        sent++;
+    }
+
+    private Batch takeFreeBatch() throws IOException {
+        try {
+            return free.take(writer);
+        } catch (IOException e) {
+            checkError();
+            throw e;
+        }
+    }
+
+    private void setError(IOException e) {
+        if (error == null) {
+            error = e;
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Wait until the listener has been passed all the records.
+     *
+     * @throws IOException The first error of the writer thread
+     */
+    public void flush() throws IOException {
+        if (batch != null && batch.size > 0) {
+            send();
+        }
+
+        long start = System.nanoTime();
+        while (written < sent && writer.isAlive()) {
+            Thread.yield();
+        }
+        parseStage.blockedNanos += System.nanoTime() - start;
+        checkError();
+        if (written < sent) {
+            throw new IOException("Thread " + writer.getName() + " stopped");
+        }
+    }
+
+    /**
+     * Write the remaining records and stop the writer thread.
+     *
+     * @throws IOException The first error of the writer thread
+     */
+    public void close() throws IOException {
+        if (!writer.isAlive()) {
+            checkError();
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            try {
+                full.put(STOP, writer);
+                writer.join();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            } catch (IOException e) {
+                //The writer thread stopped. Its error is thrown by flush
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Reads a dump ahead of the parser on a separate thread.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * The read stage of the parse pipeline. A reader thread reads the dump in
+ * blocks and hands them to the parser through a {@link StageQueue}, so
+ * disk reads, page faults of memory mapped files and the decompression of
+ * gzip and zip entries overlap with the parsing. The blocks are recycled
+ * through a second queue, which bounds the bytes read ahead.
+ *
+ * Closing the stream stops the reader thread. The underlying stream is not
+ * closed, as it may be an entry of an archive.
+ *
+ * @author info@bodastage.com
+ */
+public class PrefetchInputStream extends InputStream {
+
+    /**
+     * Size of the blocks read ahead.
+     */
+    public static final int BLOCK_SIZE = 256 * 1024;
+
+    /**
+     * Number of blocks, the blocks read ahead and the block being parsed.
+     */
+    public static final int BLOCKS = 8;
+
+    /**
+     * Block marking the end of the input.
+     */
+    private static final Block END = new Block(0);
+
+    private InputStream in;
+
+    private StageQueue<Block> full = new StageQueue<Block>(BLOCKS);
+
+    private StageQueue<Block> free = new StageQueue<Block>(BLOCKS);
+
+    private Thread reader;
+
+    private volatile boolean stopped = false;
+
+    /**
+     * First error of the reader thread.
+     */
+    private volatile IOException error = null;
+
+    private RunMetrics.StageMetrics readStage;
+
+    private RunMetrics.StageMetrics parseStage;
+
+    /**
+     * Block being read by the parser.
+     */
+    private Block block = null;
+
+    private int pos = 0;
+
+    private boolean eof = false;
+
+    /**
+     * A block of the input.
+     */
+    private static class Block {
+
+        byte[] data;
+
+        int length = 0;
+
+        Block(int size) {
+            data = new byte[size];
+        }
+    }
+
+    /**
+     * Start reading a stream ahead.
+     *
+     * @param in The dump
+     * @param readStage Metrics of the reader thread
+     * @param parseStage Metrics of the thread reading this stream. Its idle
+     *                   time is increased by the time it waits for blocks
+     */
+    public PrefetchInputStream(InputStream in, RunMetrics.StageMetrics readStage,
+            RunMetrics.StageMetrics parseStage) {
+        this.in = in;
+        this.readStage = readStage;
+        this.parseStage = parseStage;
+        for (int i = 0; i < BLOCKS; i++) {
+            free.offer(new Block(BLOCK_SIZE));
+        }
+
+        reader = new Thread(new Runnable() {
+            public void run() {
+                readBlocks();
+            }
+        }, "dump-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Body of the reader thread.
+     */
+    private void readBlocks() {
+        long start = System.nanoTime();
+        long items = 0;
+        try {
+            while (!stopped) {
+                Block b = free.take();
+                b.length = 0;
+                int n = 0;
+                while (b.length < b.data.length
+                        && (n = in.read(b.data, b.length, b.data.length - b.length)) > 0) {
+                    b.length += n;
+                }
+                if (b.length > 0) {
+                    full.put(b);
+                    items++;
+                }
+                if (n < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (Throwable e) {
+            error = new IOException(e);
+        } finally {
+            readStage.items += items;
+            readStage.idleNanos += free.getTakeWaitNanos();
+            readStage.blockedNanos += full.getPutWaitNanos();
+            readStage.busyNanos += System.nanoTime() - start 
+                    - free.getTakeWaitNanos() - full.getPutWaitNanos();
+            if (!stopped) {
+                while (!full.offer(END)) {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the next block current. Returns false at the end of the input.
+     */
+    private boolean nextBlock() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (block != null) {
+            free.put(block);
+            block = null;
+        }
+
+        long waited = full.getTakeWaitNanos();
+        Block b = full.take();
+        parseStage.idleNanos += full.getTakeWaitNanos() - waited;
+        if (b == END) {
+            eof = true;
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+        block = b;
+        pos = 0;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((block == null || pos == block.length) && !nextBlock()) {
+            return -1;
+        }
+        return block.data[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if ((block == null || pos == block.length) && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, block.length - pos);
+        System.arraycopy(block.data, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return block == null ? 0 : block.length - pos;
+    }
+
+    /**
+     * Stop the reader thread and wait for it. The thread is not interrupted
+     * as that would close the channel of a memory mapped file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        if (block != null) {
+            free.offer(block);
+            block = null;
+        }
+        try {
+            while (reader.isAlive()) {
+                //Give the blocks read ahead back so the reader is not stuck
+                Block b;
+                while ((b = full.poll()) != null) {
+                    if (b != END) {
+                        free.offer(b);
+                    }
+                }
+                reader.join(1);
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Progress of the dump being parsed.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Prints the bytes read out of the size of the dump, the MB and objects per
+ * second and the estimated time remaining at a fixed interval and
+ * optionally writes them to a status file.
+ *
+ * The bytes read are the position of the stream the parser reads so the
+ * dump is not scanned for its size. The parser calls {@link #objectEnded()}
+ * at the end of every object and the clock is only read every
+ * {@link #CHECK_OBJECTS} objects, so the cost in the parsing loop is a
+ * decrement and a compare. The size of a dump is not known when it is read
+ * from a gzip file; the percentage and the time remaining are then left
+ * out.
+ *
+ * The status file is replaced on each report and at the end of each dump
+ * and of the run. The stream is kept after the end of a dump for the final
+ * status. Instances are not thread safe. Each worker parser reports
+ * with its own instance.
+ *
+ * @author info@bodastage.com
+ */
+public class ProgressReporter {
+
+    /**
+     * Objects between reads of the clock.
+     */
+    public static final int CHECK_OBJECTS = 1024;
+
+    private static final double MB = 1024 * 1024;
+
+    private long intervalNanos;
+
+    private String statusFile = null;
+
+    private PrintStream out = System.out;
+
+    /**
+     * Start the first line of a dump on a new line, after the
+     * "Parsing ..." message.
+     */
+    private boolean newLine = false;
+
+    private String dump;
+
+    private String pass;
+
+    private long totalBytes;
+
+    private CountingInputStream in;
+
+    private long startTime;
+
+    private long endTime;
+
+    private long nextReport;
+
+    private long objects;
+
+    private int countdown;
+
+    private boolean reported;
+
+    /**
+     * @param intervalSeconds Seconds between reports
+     */
+    public ProgressReporter(double intervalSeconds) {
+        this.intervalNanos = Math.max(1L, (long) (intervalSeconds * 1e9));
+    }
+
+    /**
+     * Also write each report as JSON to a file.
+     *
+     * @param statusFile
+     */
+    public void setStatusFile(String statusFile) {
+        this.statusFile = statusFile;
+    }
+
+    public String getStatusFile() {
+        return statusFile;
+    }
+
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    public void setNewLine(boolean newLine) {
+        this.newLine = newLine;
+    }
+
+    public double getIntervalSeconds() {
+        return intervalNanos / 1e9;
+    }
+
+    /**
+     * Reporter for a worker parser. It prints its lines like this reporter
+     * but only this reporter writes the status file.
+     *
+     * @return ProgressReporter
+     */
+    ProgressReporter createWorkerReporter() {
+        ProgressReporter reporter = new ProgressReporter(getIntervalSeconds());
+        reporter.out = out;
+        return reporter;
+    }
+
+    /**
+     * Start reporting the progress of a dump.
+     *
+     * @param dump Name of the dump
+     * @param pass Name of the pass over the dump
+     * @param totalBytes Size of the dump or -1 if not known
+     * @param in Stream the dump is read from
+     */
+    public void start(String dump, String pass, long totalBytes, CountingInputStream in) {
+        this.dump = dump;
+        this.pass = pass;
+        this.totalBytes = totalBytes;
+        this.in = in;
+        this.objects = 0;
+        this.countdown = CHECK_OBJECTS;
+        this.reported = false;
+        this.startTime = System.nanoTime();
+        this.endTime = 0;
+        this.nextReport = startTime + intervalNanos;
+    }
+
+    /**
+     * Count an object and report if the interval has passed.
+     */
+    public void objectEnded() {
+        if (--countdown > 0) {
+            return;
+        }
+        objects += CHECK_OBJECTS;
+        countdown = CHECK_OBJECTS;
+
+        long now = System.nanoTime();
+        if (now - nextReport >= 0) {
+            nextReport = now + intervalNanos;
+            report(now);
+        }
+    }
+
+    /**
+     * Stop reporting the progress of the dump. The status file is updated
+     * with the final position.
+     */
+    public void end() {
+        if (in == null || endTime != 0) {
+            return;
+        }
+        objects += CHECK_OBJECTS - countdown;
+        countdown = CHECK_OBJECTS;
+        endTime = System.nanoTime();
+        writeStatus(endTime, "running");
+    }
+
+    /**
+     * Mark the end of the run in the status file.
+     */
+    public void done() {
+        if (in == null) {
+            return;
+        }
+        writeStatus(endTime != 0 ? endTime : System.nanoTime(), "done");
+    }
+
+    private void report(long now) {
+        if (!reported && newLine) {
+            out.println();
+        }
+        reported = true;
+
+        long bytes = in.getCount();
+        double seconds = (now - startTime) / 1e9;
+        StringBuilder line = new StringBuilder("  ").append(dump).append(": ");
+        if (totalBytes > 0) {
+            line.append(String.format(Locale.ROOT, "%.1f of %.1f MB (%d%%)",
+                    bytes / MB, totalBytes / MB, percent(bytes)));
+        } else {
+            line.append(String.format(Locale.ROOT, "%.1f MB", bytes / MB));
+        }
+        line.append(String.format(Locale.ROOT, ", %.1f MB/s, %.0f objects/s",
+                bytes / MB / seconds, objects / seconds));
+        long eta = eta(bytes, seconds);
+        if (eta >= 0) {
+            line.append(", ETA ").append(formatSeconds(eta));
+        }
+        out.println(line);
+
+        writeStatus(now, "running");
+    }
+
+    private int percent(long bytes) {
+        return (int) Math.min(100, bytes * 100 / totalBytes);
+    }
+
+    /**
+     * Seconds until the end of the dump at the average rate so far or -1.
+     */
+    private long eta(long bytes, double seconds) {
+        if (totalBytes <= 0 || bytes <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil(Math.max(0, totalBytes - bytes) * seconds / bytes);
+    }
+
+    static String formatSeconds(long seconds) {
+        return String.format(Locale.ROOT, "%d:%02d:%02d",
+                seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    private void writeStatus(long now, String state) {
+        if (statusFile == null) {
+            return;
+        }
+
+        long bytes = in.getCount();
+        double seconds = (now - startTime) / 1e9;
+        long eta = eta(bytes, seconds);
+        StringBuilder json = new StringBuilder("{\"state\": \"").append(state).append('"')
+                .append(", \"file\": ").append(quote(dump))
+                .append(", \"pass\": \"").append(pass).append('"')
+                .append(", \"bytes_read\": ").append(bytes)
+                .append(", \"total_bytes\": ").append(totalBytes);
+        if (totalBytes > 0) {
+            json.append(", \"percent\": ").append(percent(bytes));
+        }
+        json.append(String.format(Locale.ROOT, ", \"mb_per_second\": %.3f, \"objects_per_second\": %.3f",
+                seconds > 0 ? bytes / MB / seconds : 0, seconds > 0 ? objects / seconds : 0));
+        if (eta >= 0) {
+            json.append(", \"eta_seconds\": ").append(eta);
+        }
+        json.append(", \"updated\": \"")
+                .append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.ROOT).format(new Date()))
+                .append("\"}\n");
+
+        //Replace the file so a reader never sees a partly written status
+        File file = new File(statusFile);
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".tmp");
+        try {
+            Writer w = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8");
+            try {
+                w.write(json.toString());
+            } finally {
+                w.close();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            //A status that cannot be written does not stop the parsing
+            tmp.delete();
+        }
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
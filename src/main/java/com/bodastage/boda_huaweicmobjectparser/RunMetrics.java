@@ -0,0 +1,548 @@
+/*
+ * Metrics of a parser run.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bytes, objects, parameters, rows, times and errors of a run per dump and
+ * per MO class, the objects and bytes of the classes skipped as they are
+ * not in the parameter file, and the utilisation of the read, parse and write stages
+ * when the dumps are parsed in a pipeline.
+ *
+ * Times are summed over the passes of a dump. The write time is the time
+ * spent writing csv rows and the parse time the rest of the time spent on
+ * the dump. The metrics are written as a JSON report and as a Prometheus
+ * text format file.
+ *
+ * Instances are not thread safe. Each worker parser keeps its own metrics
+ * which are added to the metrics of the run.
+ *
+ * @author info@bodastage.com
+ */
+public class RunMetrics {
+
+    private static final String PREFIX = "boda_huaweicm_";
+
+    private long startTime = System.currentTimeMillis();
+
+    private long endTime = 0;
+
+    private Map<String, FileMetrics> files = new LinkedHashMap<String, FileMetrics>();
+
+    private Map<String, MOMetrics> mos = new TreeMap<String, MOMetrics>();
+
+    private Map<String, StageMetrics> stages = new LinkedHashMap<String, StageMetrics>();
+
+    /**
+     * Metrics of a dump.
+     */
+    public static class FileMetrics {
+
+        private String file;
+
+        private String neType = "";
+
+        long bytesRead = 0;
+
+        long objects = 0;
+
+        long parameters = 0;
+
+        long rows = 0;
+
+        long skippedObjects = 0;
+
+        long skippedBytes = 0;
+
+        long timeNanos = 0;
+
+        long writeNanos = 0;
+
+        long errors = 0;
+
+        private String lastError = null;
+
+        FileMetrics(String file) {
+            this.file = file;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public String getNEType() {
+            return neType;
+        }
+
+        void setNEType(String neType) {
+            if (neType != null && neType.length() > 0) {
+                this.neType = neType;
+            }
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getObjects() {
+            return objects;
+        }
+
+        public long getParameters() {
+            return parameters;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Objects of the classes that are not in the parameter file.
+         */
+        public long getSkippedObjects() {
+            return skippedObjects;
+        }
+
+        /**
+         * Bytes of the classes that are not in the parameter file. These are
+         * characters when the dump is parsed with the StAX parser.
+         */
+        public long getSkippedBytes() {
+            return skippedBytes;
+        }
+
+        public double getParseSeconds() {
+            return (timeNanos - writeNanos) / 1e9;
+        }
+
+        public double getWriteSeconds() {
+            return writeNanos / 1e9;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        void addError(Exception e) {
+            errors++;
+            lastError = e.getMessage() == null ? e.toString() : e.getMessage();
+        }
+
+        /**
+         * Message of the last error or null.
+         */
+        public String getLastError() {
+            return lastError;
+        }
+
+        void add(FileMetrics m) {
+            setNEType(m.neType);
+            bytesRead += m.bytesRead;
+            objects += m.objects;
+            parameters += m.parameters;
+            rows += m.rows;
+            skippedObjects += m.skippedObjects;
+            skippedBytes += m.skippedBytes;
+            timeNanos += m.timeNanos;
+            writeNanos += m.writeNanos;
+            errors += m.errors;
+            if (m.lastError != null) {
+                lastError = m.lastError;
+            }
+        }
+    }
+
+    /**
+     * Metrics of an MO class over all dumps.
+     */
+    public static class MOMetrics {
+
+        private String mo;
+
+        long objects = 0;
+
+        long parameters = 0;
+
+        long rows = 0;
+
+        long writeNanos = 0;
+
+        MOMetrics(String mo) {
+            this.mo = mo;
+        }
+
+        public String getMO() {
+            return mo;
+        }
+
+        public long getObjects() {
+            return objects;
+        }
+
+        public long getParameters() {
+            return parameters;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getWriteSeconds() {
+            return writeNanos / 1e9;
+        }
+
+        void add(MOMetrics m) {
+            objects += m.objects;
+            parameters += m.parameters;
+            rows += m.rows;
+            writeNanos += m.writeNanos;
+        }
+    }
+
+    /**
+     * Metrics of a pipeline stage. A stage is busy, idle while it waits for
+     * the previous stage or blocked while it waits for room in the queue to
+     * the next stage.
+     */
+    public static class StageMetrics {
+
+        private String stage;
+
+        long items = 0;
+
+        long busyNanos = 0;
+
+        long idleNanos = 0;
+
+        long blockedNanos = 0;
+
+        StageMetrics(String stage) {
+            this.stage = stage;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        /**
+         * Blocks read, dumps parsed or batches of rows written by the stage.
+         */
+        public long getItems() {
+            return items;
+        }
+
+        public double getBusySeconds() {
+            return busyNanos / 1e9;
+        }
+
+        public double getIdleSeconds() {
+            return idleNanos / 1e9;
+        }
+
+        public double getBlockedSeconds() {
+            return blockedNanos / 1e9;
+        }
+
+        /**
+         * Fraction of the stage's time it was busy.
+         */
+        public double getUtilisation() {
+            long total = busyNanos + idleNanos + blockedNanos;
+            return total > 0 ? (double) busyNanos / total : 0;
+        }
+
+        void add(StageMetrics m) {
+            items += m.items;
+            busyNanos += m.busyNanos;
+            idleNanos += m.idleNanos;
+            blockedNanos += m.blockedNanos;
+        }
+    }
+
+    /**
+     * Metrics of a dump, created if there are none yet.
+     *
+     * @param file Base name of the dump
+     * @return FileMetrics
+     */
+    public FileMetrics getFile(String file) {
+        FileMetrics m = files.get(file);
+        if (m == null) {
+            m = new FileMetrics(file);
+            files.put(file, m);
+        }
+        return m;
+    }
+
+    /**
+     * Metrics of an MO class, created if there are none yet.
+     *
+     * @param mo
+     * @return MOMetrics
+     */
+    public MOMetrics getMO(String mo) {
+        MOMetrics m = mos.get(mo);
+        if (m == null) {
+            m = new MOMetrics(mo);
+            mos.put(mo, m);
+        }
+        return m;
+    }
+
+    /**
+     * Metrics of a pipeline stage, created if there are none yet.
+     *
+     * @param stage
+     * @return StageMetrics
+     */
+    public StageMetrics getStage(String stage) {
+        StageMetrics m = stages.get(stage);
+        if (m == null) {
+            m = new StageMetrics(stage);
+            stages.put(stage, m);
+        }
+        return m;
+    }
+
+    public Iterable<StageMetrics> getStages() {
+        return stages.values();
+    }
+
+    public Iterable<FileMetrics> getFiles() {
+        return files.values();
+    }
+
+    public Iterable<MOMetrics> getMOs() {
+        return mos.values();
+    }
+
+    /**
+     * Add the metrics of a worker.
+     *
+     * @param metrics
+     */
+    public void add(RunMetrics metrics) {
+        for (FileMetrics m : metrics.files.values()) {
+            getFile(m.file).add(m);
+        }
+        for (MOMetrics m : metrics.mos.values()) {
+            getMO(m.mo).add(m);
+        }
+        for (StageMetrics m : metrics.stages.values()) {
+            getStage(m.stage).add(m);
+        }
+    }
+
+    /**
+     * Mark the end of the run.
+     */
+    public void end() {
+        endTime = System.currentTimeMillis();
+    }
+
+    private double getSeconds() {
+        return ((endTime == 0 ? System.currentTimeMillis() : endTime) - startTime) / 1000.0;
+    }
+
+    /**
+     * Write the metrics as JSON.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void writeJson(String filename) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(filename), "UTF-8");
+        try {
+            writeJson(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public void writeJson(Writer out) throws IOException {
+        FileMetrics total = new FileMetrics(null);
+        for (FileMetrics m : files.values()) {
+            total.add(m);
+        }
+
+        out.write("{\n  \"seconds\": " + format(getSeconds()) + ",\n");
+        out.write("  \"totals\": ");
+        writeJson(out, total);
+        out.write(",\n  \"files\": [");
+        boolean first = true;
+        for (FileMetrics m : files.values()) {
+            out.write(first ? "\n    " : ",\n    ");
+            writeJson(out, m);
+            first = false;
+        }
+        out.write("\n  ],\n  \"mos\": [");
+        first = true;
+        for (MOMetrics m : mos.values()) {
+            out.write(first ? "\n    " : ",\n    ");
+            out.write("{\"mo\": " + quote(m.mo)
+                    + ", \"objects\": " + m.objects
+                    + ", \"parameters\": " + m.parameters
+                    + ", \"rows\": " + m.rows
+                    + ", \"write_seconds\": " + format(m.getWriteSeconds()) + "}");
+            first = false;
+        }
+        out.write("\n  ]");
+        if (!stages.isEmpty()) {
+            out.write(",\n  \"stages\": [");
+            first = true;
+            for (StageMetrics m : stages.values()) {
+                out.write(first ? "\n    " : ",\n    ");
+                out.write("{\"stage\": " + quote(m.stage)
+                        + ", \"items\": " + m.items
+                        + ", \"busy_seconds\": " + format(m.getBusySeconds())
+                        + ", \"idle_seconds\": " + format(m.getIdleSeconds())
+                        + ", \"blocked_seconds\": " + format(m.getBlockedSeconds())
+                        + ", \"utilisation\": " + format(m.getUtilisation()) + "}");
+                first = false;
+            }
+            out.write("\n  ]");
+        }
+        out.write("\n}\n");
+    }
+
+    private void writeJson(Writer out, FileMetrics m) throws IOException {
+        double seconds = m.timeNanos / 1e9;
+        out.write("{");
+        if (m.file != null) {
+            out.write("\"file\": " + quote(m.file) + ", \"ne_type\": " + quote(m.neType) + ", ");
+        }
+        out.write("\"bytes_read\": " + m.bytesRead
+                + ", \"objects\": " + m.objects
+                + ", \"parameters\": " + m.parameters
+                + ", \"rows\": " + m.rows
+                + ", \"skipped_objects\": " + m.skippedObjects
+                + ", \"skipped_bytes\": " + m.skippedBytes
+                + ", \"parse_seconds\": " + format(m.getParseSeconds())
+                + ", \"write_seconds\": " + format(m.getWriteSeconds())
+                + ", \"mb_per_second\": " + format(seconds > 0 ? m.bytesRead / seconds / (1024 * 1024) : 0)
+                + ", \"objects_per_second\": " + format(seconds > 0 ? m.objects / seconds : 0)
+                + ", \"errors\": " + m.errors);
+        if (m.lastError != null) {
+            out.write(", \"last_error\": " + quote(m.lastError));
+        }
+        out.write("}");
+    }
+
+    /**
+     * Write the metrics in the Prometheus text format.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void writePrometheus(String filename) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(filename), "UTF-8");
+        try {
+            writePrometheus(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public void writePrometheus(Writer out) throws IOException {
+        metric(out, "run_seconds", "gauge", "Duration of the run in seconds.");
+        out.write(PREFIX + "run_seconds " + format(getSeconds()) + "\n");
+
+        String[] names = {"bytes_read_total", "objects_total", "parameters_total", "rows_total",
+            "skipped_objects_total", "skipped_bytes_total", "parse_seconds_total", 
+            "write_seconds_total", "errors_total"};
+        String[] help = {"Bytes read from the dump.", "MO objects parsed.", "Parameters parsed.",
+            "Csv rows written.", "MO objects skipped as their class is not in the parameter file.",
+            "Bytes skipped as their class is not in the parameter file.", "Seconds spent parsing.", 
+            "Seconds spent writing csv rows.", "Errors that stopped the parsing of the dump."};
+        for (int i = 0; i < names.length; i++) {
+            metric(out, "file_" + names[i], "counter", help[i]);
+            for (FileMetrics m : files.values()) {
+                out.write(PREFIX + "file_" + names[i] + "{file=" + label(m.file)
+                        + ",ne_type=" + label(m.neType) + "} " + fileValue(m, i) + "\n");
+            }
+        }
+
+        String[] moNames = {"objects_total", "parameters_total", "rows_total", "write_seconds_total"};
+        String[] moHelp = {"MO objects parsed.", "Parameters parsed.", "Csv rows written.",
+            "Seconds spent writing csv rows."};
+        for (int i = 0; i < moNames.length; i++) {
+            metric(out, "mo_" + moNames[i], "counter", moHelp[i]);
+            for (MOMetrics m : mos.values()) {
+                String value = i == 0 ? String.valueOf(m.objects) : i == 1 ? String.valueOf(m.parameters)
+                        : i == 2 ? String.valueOf(m.rows) : format(m.getWriteSeconds());
+                out.write(PREFIX + "mo_" + moNames[i] + "{mo=" + label(m.mo) + "} " + value + "\n");
+            }
+        }
+
+        if (stages.isEmpty()) {
+            return;
+        }
+        String[] stageNames = {"items_total", "busy_seconds_total", "idle_seconds_total",
+            "blocked_seconds_total"};
+        String[] stageHelp = {"Blocks read, dumps parsed or batches of rows written by the pipeline stage.",
+            "Seconds the pipeline stage was busy.",
+            "Seconds the pipeline stage waited for the previous stage.",
+            "Seconds the pipeline stage waited for the next stage."};
+        for (int i = 0; i < stageNames.length; i++) {
+            metric(out, "stage_" + stageNames[i], "counter", stageHelp[i]);
+            for (StageMetrics m : stages.values()) {
+                String value = i == 0 ? String.valueOf(m.items) : i == 1 ? format(m.getBusySeconds())
+                        : i == 2 ? format(m.getIdleSeconds()) : format(m.getBlockedSeconds());
+                out.write(PREFIX + "stage_" + stageNames[i] + "{stage=" + label(m.stage) + "} " + value + "\n");
+            }
+        }
+    }
+
+    private static String fileValue(FileMetrics m, int i) {
+        switch (i) {
+            case 0: return String.valueOf(m.bytesRead);
+            case 1: return String.valueOf(m.objects);
+            case 2: return String.valueOf(m.parameters);
+            case 3: return String.valueOf(m.rows);
+            case 4: return String.valueOf(m.skippedObjects);
+            case 5: return String.valueOf(m.skippedBytes);
+            case 6: return format(m.getParseSeconds());
+            case 7: return format(m.getWriteSeconds());
+            default: return String.valueOf(m.errors);
+        }
+    }
+
+    private static void metric(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + PREFIX + name + " " + help + "\n");
+        out.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    private static String format(double d) {
+        return String.format(Locale.ROOT, "%.3f", d);
+    }
+
+    private static String label(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * On-disk cache of the MO parameters discovered per NE type and version.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the managed object columns and the parameter children discovered
+ * in the dumps of an NE type and version, e.g. BSC6900GSM V900R019.
+ *
+ * The cache is a gzipped text file with one line per NE, MO and parameter
+ * with children:
+ * <pre>
+ * NE	BSC6900GSM	V900R019
+ * MO	GCELL_BSC6900GSM	ACTSTATUS,ADMSTAT,BCC
+ * PC	CELLALGOSWITCH_BSC6900GSM_SW	BIT1,BIT2
+ * </pre>
+ * Tabs, commas, line breaks and '%' in names are written as %09, %2C,
+ * %0A, %0D and %25.
+ *
+ * The columns of a cached MO are merged when the first dump of the NE type
+ * and version is read. They are all the columns found by earlier runs in
+ * the order they were found, so a cached run can have more columns or
+ * another column order than an uncached run when its dumps are not the
+ * dumps of the run that filled the cache, or when the dumps of several
+ * versions of an NE type have the same MOs.
+ *
+ * @author info@bodastage.com
+ */
+public class SchemaCache {
+
+    /**
+     * First line of the cache file.
+     */
+    private static final String CACHE_HEADER = "#boda-huaweicmobjectparser schema cache 1";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The cache file.
+     */
+    private File cacheFile;
+
+    /**
+     * MO columns per NE key.
+     */
+    private Map<String, Map<String, MOColumns>> neMOColumns
+            = new LinkedHashMap<String, Map<String, MOColumns>>();
+
+    /**
+     * Parameter children per NE key.
+     */
+    private Map<String, Map<String, Stack<String>>> neParameterChildMap
+            = new LinkedHashMap<String, Map<String, Stack<String>>>();
+
+    /**
+     * NE keys loaded from the cache file. The parameters of the dumps of
+     * these NEs do not have to be discovered.
+     */
+    private Set<String> loadedKeys = new HashSet<String>();
+
+    /**
+     * Set to true when the cached schema has to be written back to disk.
+     */
+    private boolean modified = false;
+
+    /**
+     * Set once the cache file has been read.
+     */
+    private boolean loaded = false;
+
+    public SchemaCache(String cacheFile) {
+        this.cacheFile = new File(cacheFile);
+    }
+
+    /**
+     * Build the key of an NE type and version. A missing type or version
+     * is keyed as an empty string.
+     *
+     * @param neType e.g BSC6900GSM
+     * @param version e.g V900R019
+     * @return String
+     */
+    public static String getKey(String neType, String version) {
+        return escape(neType == null ? "" : neType) + "\t"
+                + escape(version == null ? "" : version);
+    }
+
+    /**
+     * Load the cache file if it exists.
+     *
+     * @throws IOException
+     */
+    public void load() throws IOException {
+        if (loaded || !cacheFile.isFile()) {
+            return;
+        }
+        loaded = true;
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(cacheFile)), "UTF-8"));
+        try {
+            String line = br.readLine();
+            if (!CACHE_HEADER.equals(line)) {
+                throw new IOException("Unsupported schema cache file: " + cacheFile);
+            }
+
+            String key = null;
+            for (; (line = br.readLine()) != null;) {
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equals("NE")) {
+                    key = fields[1] + "\t" + fields[2];
+                    neMOColumns.put(key, new LinkedHashMap<String, MOColumns>());
+                    neParameterChildMap.put(key, new LinkedHashMap<String, Stack<String>>());
+                    loadedKeys.add(key);
+                } else if (fields[0].equals("MO")) {
+                    neMOColumns.get(key).put(unescape(fields[1]), new MOColumns(toStack(fields[2])));
+                } else if (fields[0].equals("PC")) {
+                    neParameterChildMap.get(key).put(unescape(fields[1]), toStack(fields[2]));
+                }
+            }
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Write the cache file if new schemas have been discovered.
+     *
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+
+        File tempFile = new File(cacheFile.getAbsolutePath() + ".tmp");
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(tempFile)), "UTF-8"));
+        try {
+            pw.print(CACHE_HEADER + "\n");
+            for (Map.Entry<String, Map<String, MOColumns>> ne : neMOColumns.entrySet()) {
+                pw.print("NE\t" + ne.getKey() + "\n");
+                for (Map.Entry<String, MOColumns> mo : ne.getValue().entrySet()) {
+                    pw.print("MO\t" + escape(mo.getKey()) + "\t" + toString(mo.getValue()) + "\n");
+                }
+
+                Iterator<Map.Entry<String, Stack<String>>> iter
+                        = neParameterChildMap.get(ne.getKey()).entrySet().iterator();
+                while (iter.hasNext()) {
+                    Map.Entry<String, Stack<String>> pc = iter.next();
+                    pw.print("PC\t" + escape(pc.getKey()) + "\t" + toString(pc.getValue()) + "\n");
+                }
+            }
+        } finally {
+            pw.close();
+        }
+
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            throw new IOException("Failed to replace schema cache file: " + cacheFile);
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            throw new IOException("Failed to write schema cache file: " + cacheFile);
+        }
+        modified = false;
+    }
+
+    /**
+     * Returns true if the schema of the NE was loaded from the cache file.
+     *
+     * @param key NE key
+     * @return boolean
+     */
+    public boolean isCached(String key) {
+        return loadedKeys.contains(key);
+    }
+
+    /**
+     * Drop the cached schema of an NE so that it is discovered again.
+     *
+     * @param key NE key
+     */
+    public void invalidate(String key) {
+        loadedKeys.remove(key);
+        neMOColumns.remove(key);
+        neParameterChildMap.remove(key);
+        modified = true;
+    }
+
+    /**
+     * Add the cached schema of an NE to the MO columns and parameter
+     * children being built by the parser. The columns are added after the
+     * columns the MOs already have.
+     *
+     * @param key NE key
+     * @param moColumns
+     * @param parameterChildMap
+     */
+    public void mergeInto(String key, Map<String, MOColumns> moColumns,
+            Map<String, ? super Stack<String>> parameterChildMap) {
+        for (Map.Entry<String, MOColumns> mo : neMOColumns.get(key).entrySet()) {
+            MOColumns moiAttributes = moColumns.get(mo.getKey());
+            if (moiAttributes == null) {
+                moiAttributes = new MOColumns();
+                moColumns.put(mo.getKey(), moiAttributes);
+            }
+
+            moiAttributes.addAll(mo.getValue());
+        }
+
+        parameterChildMap.putAll(neParameterChildMap.get(key));
+    }
+
+    /**
+     * Record the columns of an MO instance discovered in the dump of an NE.
+     *
+     * @param key NE key
+     * @param className MO name
+     * @param parameters MO instance parameters
+     */
+    public void addMOColumns(String key, String className, Iterable<String> parameters) {
+        Map<String, MOColumns> moColumns = getNEMOColumns(key);
+
+        MOColumns moiAttributes = moColumns.get(className);
+        if (moiAttributes == null) {
+            moiAttributes = new MOColumns();
+            moColumns.put(className, moiAttributes);
+        }
+
+        moiAttributes.addAll(parameters);
+    }
+
+    /**
+     * Record the children of a multi-valued parameter discovered in the dump
+     * of an NE.
+     *
+     * @param key NE key
+     * @param mvParameter MO name and parameter name
+     * @param children
+     */
+    public void addParameterChildren(String key, String mvParameter, Iterable<?> children) {
+        Stack<String> stack = new Stack<String>();
+        for (Object child : children) {
+            stack.push(String.valueOf(child));
+        }
+        getNEMOColumns(key);
+        neParameterChildMap.get(key).put(mvParameter, stack);
+    }
+
+    private Map<String, MOColumns> getNEMOColumns(String key) {
+        Map<String, MOColumns> moColumns = neMOColumns.get(key);
+        if (moColumns == null) {
+            moColumns = new LinkedHashMap<String, MOColumns>();
+            neMOColumns.put(key, moColumns);
+            neParameterChildMap.put(key, new LinkedHashMap<String, Stack<String>>());
+        }
+        modified = true;
+        return moColumns;
+    }
+
+    private static Stack<String> toStack(String values) {
+        Stack<String> stack = new Stack<String>();
+        if (values.length() == 0) {
+            return stack;
+        }
+        for (String value : values.split(",", -1)) {
+            stack.push(unescape(value));
+        }
+        return stack;
+    }
+
+    private static String toString(Iterable<String> values) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append(escape(value));
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replace the separators of the cache file in a name with %XX.
+     */
+    static String escape(String name) {
+        StringBuilder sb = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\t' || c == ',' || c == '\n' || c == '\r' || c == '%') {
+                if (sb == null) {
+                    sb = new StringBuilder(name.length() + 8).append(name, 0, i);
+                }
+                sb.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? name : sb.toString();
+    }
+
+    /**
+     * Decode the %XX sequences of an escaped name.
+     */
+    static String unescape(String name) {
+        int i = name.indexOf('%');
+        if (i < 0) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name.length()).append(name, 0, i);
+        for (; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '%' && i + 2 < name.length()) {
+                sb.append((char) Integer.parseInt(name.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
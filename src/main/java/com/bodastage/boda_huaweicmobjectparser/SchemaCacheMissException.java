@@ -0,0 +1,31 @@
+/*
+ * Cached schema of an NE is out of date.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+/**
+ * Thrown when a dump contains an MO or parameter that is not in the cached
+ * schema of its NE type and version.
+ *
+ * @author info@bodastage.com
+ */
+public class SchemaCacheMissException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Key of the NE whose cached schema is out of date.
+     */
+    private final String neKey;
+
+    public SchemaCacheMissException(String neKey, String message) {
+        super(message);
+        this.neKey = neKey;
+    }
+
+    public String getNEKey() {
+        return neKey;
+    }
+}
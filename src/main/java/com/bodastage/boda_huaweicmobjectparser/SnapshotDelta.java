@@ -0,0 +1,443 @@
+/*
+ * Changes between two snapshots of the same NEs.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Writes the MO instances that were added, removed or modified between an
+ * old and a new snapshot of the same NEs, one csv file per MO with one row
+ * per parameter:
+ * <pre>
+ * CHANGE,NE,KEY,PARAMETER,OLD_VALUE,NEW_VALUE
+ * MODIFIED,GExport_BSC1_10.0.0.1,CELLID=1,BCCHNO,10,12
+ * </pre>
+ *
+ * An instance is identified by its NE, the dump name without its
+ * timestamp, its MO and the values of its key parameters. The key
+ * parameters of an MO are read from a configuration file with lines like
+ * GCELL_BSC6900GSM:CELLID. Without one, the parameters whose names end with
+ * ID, IDX or INDEX are the key. Instances with the same key are told apart
+ * by their order in the dump.
+ *
+ * The old snapshot is read twice and the new one once. The first pass
+ * indexes the identity hash and values fingerprint of each old instance in
+ * a {@link MOHashIndex}. The pass over the new snapshot writes the added
+ * instances and keeps the values of the modified ones. The second pass over
+ * the old snapshot writes the removed instances and the changed parameters
+ * of the modified ones. The memory used is 32 bytes or less per old
+ * instance plus the values of the modified instances.
+ *
+ * @author info@bodastage.com
+ */
+public class SnapshotDelta {
+
+    public static final String ADDED = "ADDED";
+
+    public static final String REMOVED = "REMOVED";
+
+    public static final String MODIFIED = "MODIFIED";
+
+    private String oldSource;
+
+    private String newSource;
+
+    private String outputDirectory;
+
+    private boolean useScanner = false;
+
+    /**
+     * Key parameters by MO.
+     */
+    private Map<String, List<String>> keyParameters = new HashMap<String, List<String>>();
+
+    private MOHashIndex index = new MOHashIndex();
+
+    /**
+     * Names and values of the new instances that were modified by index
+     * key.
+     */
+    private Map<Long, String[]> modifiedValues = new HashMap<Long, String[]>();
+
+    private MOWriterPool writers;
+
+    private StringBuilder row = new StringBuilder();
+
+    private long added = 0;
+
+    private long removed = 0;
+
+    private long modified = 0;
+
+    private long unchanged = 0;
+
+    private long parameterChanges = 0;
+
+    /**
+     * @param oldSource Old dump or directory
+     * @param newSource New dump or directory
+     * @param outputDirectory Directory of the delta csv files
+     */
+    public SnapshotDelta(String oldSource, String newSource, String outputDirectory) {
+        this.oldSource = oldSource;
+        this.newSource = newSource;
+        this.outputDirectory = outputDirectory;
+    }
+
+    public void setUseScanner(boolean useScanner) {
+        this.useScanner = useScanner;
+    }
+
+    /**
+     * Set the key parameters of an MO.
+     *
+     * @param className
+     * @param parameters
+     */
+    public void setKeyParameters(String className, List<String> parameters) {
+        List<String> keys = new ArrayList<String>();
+        for (String parameter : parameters) {
+            keys.add(parameter.trim().toUpperCase());
+        }
+        keyParameters.put(className.trim().toUpperCase(), keys);
+    }
+
+    /**
+     * Read the key parameters of MOs from a file with lines like
+     * MO:PARAMETER1,PARAMETER2.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void loadKeyParameters(String filename) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(filename));
+        try {
+            for (String line; (line = br.readLine()) != null;) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    throw new IOException("Wrong format. Contents:" + line);
+                }
+                setKeyParameters(line.substring(0, colon),
+                        Arrays.asList(line.substring(colon + 1).split(",")));
+            }
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Compare the snapshots and write the delta csv files.
+     *
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    public void run() throws XMLStreamException, IOException {
+        writers = new MOWriterPool(outputDirectory, MOWriterPool.DEFAULT_MAX_OPEN_FILES);
+        try {
+            parse(oldSource, new MORecordListener() {
+                public void record(MORecord record) {
+                    indexOldInstance(record);
+                }
+            });
+            parse(newSource, new MORecordListener() {
+                public void record(MORecord record) throws IOException {
+                    matchNewInstance(record);
+                }
+            });
+            parse(oldSource, new MORecordListener() {
+                public void record(MORecord record) throws IOException {
+                    compareOldInstance(record);
+                }
+            });
+        } finally {
+            writers.close();
+        }
+    }
+
+    private void parse(String dataSource, MORecordListener listener)
+            throws XMLStreamException, IOException {
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dataSource);
+        parser.setUseScanner(useScanner);
+        parser.setSinglePass(true);
+        parser.setRecordListener(listener);
+        parser.setQuiet(true);
+        parser.parse();
+    }
+
+    private void indexOldInstance(MORecord record) {
+        long identity = identity(record);
+        int n = 0;
+        while (index.contains(key(identity, n))) {
+            n++;
+        }
+        index.put(key(identity, n), fingerprint(record));
+    }
+
+    private void matchNewInstance(MORecord record) throws IOException {
+        long identity = identity(record);
+        for (int n = 0; ; n++) {
+            long key = key(identity, n);
+            long value = index.get(key);
+            if (value == -1) {
+                added++;
+                for (int i = 0; i < record.size(); i++) {
+                    if (record.getValue(i) != null) {
+                        writeRow(ADDED, record, n, record.getColumn(i), null, record.getValue(i));
+                    }
+                }
+                return;
+            }
+            if ((value & MOHashIndex.MATCHED) != 0) {
+                continue;
+            }
+
+            index.put(key, value | MOHashIndex.MATCHED);
+            if ((value & MOHashIndex.FINGERPRINT) == fingerprint(record)) {
+                unchanged++;
+                return;
+            }
+
+            modified++;
+            String[] namesValues = new String[countValues(record) * 2];
+            int j = 0;
+            for (int i = 0; i < record.size(); i++) {
+                if (record.getValue(i) != null) {
+                    namesValues[j++] = record.getColumn(i);
+                    namesValues[j++] = record.getValue(i);
+                }
+            }
+            modifiedValues.put(key, namesValues);
+            return;
+        }
+    }
+
+    private void compareOldInstance(MORecord record) throws IOException {
+        long identity = identity(record);
+        for (int n = 0; ; n++) {
+            long key = key(identity, n);
+            long value = index.get(key);
+            if ((value & MOHashIndex.VISITED) != 0) {
+                continue;
+            }
+            index.put(key, value | MOHashIndex.VISITED);
+
+            if ((value & MOHashIndex.MATCHED) == 0) {
+                removed++;
+                for (int i = 0; i < record.size(); i++) {
+                    if (record.getValue(i) != null) {
+                        writeRow(REMOVED, record, n, record.getColumn(i), record.getValue(i), null);
+                    }
+                }
+                return;
+            }
+
+            String[] namesValues = modifiedValues.remove(key);
+            if (namesValues != null) {
+                writeChanges(record, n, namesValues);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Write the parameters of a modified instance whose values differ.
+     */
+    private void writeChanges(MORecord record, int n, String[] namesValues) throws IOException {
+        Map<String, String> newValues = new HashMap<String, String>();
+        for (int j = 0; j < namesValues.length; j += 2) {
+            newValues.put(namesValues[j], namesValues[j + 1]);
+        }
+
+        for (int i = 0; i < record.size(); i++) {
+            String oldValue = record.getValue(i);
+            if (oldValue == null) {
+                continue;
+            }
+            String newValue = newValues.remove(record.getColumn(i));
+            if (!oldValue.equals(newValue)) {
+                parameterChanges++;
+                writeRow(MODIFIED, record, n, record.getColumn(i), oldValue, newValue);
+            }
+        }
+
+        //Parameters the old instance did not have
+        for (int j = 0; j < namesValues.length; j += 2) {
+            if (newValues.containsKey(namesValues[j])) {
+                parameterChanges++;
+                writeRow(MODIFIED, record, n, namesValues[j], null, namesValues[j + 1]);
+            }
+        }
+    }
+
+    private void writeRow(String change, MORecord record, int n, String parameter,
+            String oldValue, String newValue) throws IOException {
+        boolean newFile = !writers.hasFile(record.getClassName());
+        CsvWriter writer = writers.getWriter(record.getClassName());
+        if (newFile) {
+            writer.writeRow("CHANGE,NE,KEY,PARAMETER,OLD_VALUE,NEW_VALUE");
+        }
+
+        row.setLength(0);
+        row.append(change).append(',');
+        CsvWriter.appendValue(row, getNE(record.getFileName())).append(',');
+        CsvWriter.appendValue(row, getKey(record, n)).append(',');
+        row.append(parameter).append(',');
+        if (oldValue != null) {
+            CsvWriter.appendValue(row, oldValue);
+        }
+        row.append(',');
+        if (newValue != null) {
+            CsvWriter.appendValue(row, newValue);
+        }
+        writer.writeRow(row);
+    }
+
+    /**
+     * NE of a dump, its name without the timestamp and extension.
+     *
+     * @param dumpName
+     * @return String
+     */
+    public static String getNE(String dumpName) {
+        return dumpName.replaceFirst("(_\\d+)?\\.[^.]*$", "");
+    }
+
+    /**
+     * Returns true if a parameter is a key of MOs without configured keys.
+     *
+     * @param parameter
+     * @return boolean
+     */
+    public static boolean isKeyParameter(String parameter) {
+        return parameter.endsWith("ID") || parameter.endsWith("IDX") || parameter.endsWith("INDEX");
+    }
+
+    /**
+     * Key parameters and values of an instance, followed by its position
+     * among the instances with the same key.
+     */
+    private String getKey(MORecord record, int n) {
+        StringBuilder key = new StringBuilder();
+        List<String> keys = keyParameters.get(record.getClassName());
+        for (int i = 0; i < record.size(); i++) {
+            String name = record.getColumn(i);
+            if (record.getValue(i) != null && (keys == null ? isKeyParameter(name) : keys.contains(name))) {
+                key.append(key.length() > 0 ? ";" : "").append(name).append('=').append(record.getValue(i));
+            }
+        }
+        if (n > 0) {
+            key.append('#').append(n + 1);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Hash of the NE, MO and key values of an instance.
+     */
+    private long identity(MORecord record) {
+        long h = MOHashIndex.hash(MOHashIndex.HASH_START, getNE(record.getFileName()));
+        h = MOHashIndex.hash(h, record.getClassName());
+
+        List<String> keys = keyParameters.get(record.getClassName());
+        if (keys != null) {
+            for (String name : keys) {
+                String value = record.getValue(name);
+                h = MOHashIndex.hash(h, value == null ? "" : value);
+            }
+            return h;
+        }
+
+        //The key parameters in name order so the column order does not matter
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < record.size(); i++) {
+            if (record.getValue(i) != null && isKeyParameter(record.getColumn(i))) {
+                names.add(record.getColumn(i));
+            }
+        }
+        if (names.size() > 1) {
+            Collections.sort(names);
+        }
+        for (String name : names) {
+            h = MOHashIndex.hash(h, name);
+            h = MOHashIndex.hash(h, record.getValue(name));
+        }
+        return h;
+    }
+
+    private static int countValues(MORecord record) {
+        int count = 0;
+        for (int i = 0; i < record.size(); i++) {
+            if (record.getValue(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Index key of the n-th instance with the same identity.
+     */
+    private static long key(long identity, int n) {
+        return n == 0 ? identity : MOHashIndex.mix(identity + n);
+    }
+
+    /**
+     * Hash of the names and values of an instance that does not depend on
+     * their order.
+     */
+    private static long fingerprint(MORecord record) {
+        long fingerprint = 0;
+        for (int i = 0; i < record.size(); i++) {
+            String value = record.getValue(i);
+            if (value != null) {
+                long h = MOHashIndex.hash(MOHashIndex.HASH_START, record.getColumn(i));
+                fingerprint += MOHashIndex.mix(MOHashIndex.hash(h, value));
+            }
+        }
+        fingerprint &= MOHashIndex.FINGERPRINT;
+        return fingerprint == MOHashIndex.FINGERPRINT ? 0 : fingerprint;
+    }
+
+    public long getAdded() {
+        return added;
+    }
+
+    public long getRemoved() {
+        return removed;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Number of parameters whose value changed in the modified instances.
+     */
+    public long getParameterChanges() {
+        return parameterChanges;
+    }
+
+    public MOHashIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Bounded hand-off queue between two pipeline stages.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring buffer between one producer thread and one consumer
+ * thread.
+ *
+ * The producer only writes the tail and the consumer only writes the head,
+ * so the volatile indices are enough to hand the items over. A thread that
+ * finds the ring full or empty spins briefly and then parks for short
+ * intervals instead of being signalled. The time each side waited is kept
+ * for the utilisation metrics of the stages. A thread can also wait on the
+ * condition that the thread of the other stage is alive, so it does not
+ * wait forever for a stage that stopped.
+ *
+ * @param <T> Type of the items
+ * @author info@bodastage.com
+ */
+public class StageQueue<T> {
+
+    /**
+     * Number of times a waiting thread yields before it parks.
+     */
+    private static final int SPINS = 64;
+
+    private static final long PARK_NANOS = 20000;
+
+    private final Object[] items;
+
+    private final int mask;
+
+    /**
+     * Position of the next item to take.
+     */
+    private volatile long head = 0;
+
+    /**
+     * Position of the next item to put.
+     */
+    private volatile long tail = 0;
+
+    private long putWaitNanos = 0;
+
+    private long takeWaitNanos = 0;
+
+    /**
+     * @param capacity Maximum number of items, rounded up to a power of 2
+     */
+    public StageQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        items = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Add an item if the queue is not full. Only called by the producer.
+     *
+     * @param item
+     * @return boolean false if the queue is full
+     */
+    public boolean offer(T item) {
+        long t = tail;
+        if (t - head == items.length) {
+            return false;
+        }
+        items[(int) t & mask] = item;
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Remove the next item. Only called by the consumer.
+     *
+     * @return The item or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head;
+        if (h == tail) {
+            return null;
+        }
+        int i = (int) h & mask;
+        T item = (T) items[i];
+        items[i] = null;
+        head = h + 1;
+        return item;
+    }
+
+    /**
+     * Add an item, waiting while the queue is full.
+     *
+     * @param item
+     * @throws InterruptedIOException
+     */
+    public void put(T item) throws InterruptedIOException {
+        if (offer(item)) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (int spins = 0; !offer(item); spins++) {
+            pause(spins);
+        }
+        putWaitNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Remove the next item, waiting while the queue is empty.
+     *
+     * @return T
+     * @throws InterruptedIOException
+     */
+    public T take() throws InterruptedIOException {
+        T item = poll();
+        if (item != null) {
+            return item;
+        }
+        long start = System.nanoTime();
+        for (int spins = 0; (item = poll()) == null; spins++) {
+            pause(spins);
+        }
+        takeWaitNanos += System.nanoTime() - start;
+        return item;
+    }
+
+    /**
+     * Add an item, waiting while the queue is full and the consumer thread
+     * is alive.
+     *
+     * @param item
+     * @param consumer Thread taking the items
+     * @throws IOException if the consumer thread stopped
+     */
+    public void put(T item, Thread consumer) throws IOException {
+        if (offer(item)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            for (int spins = 0; !offer(item); spins++) {
+                checkAlive(consumer);
+                pause(spins);
+            }
+        } finally {
+            putWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Remove the next item, waiting while the queue is empty and the
+     * producer thread is alive.
+     *
+     * @param producer Thread putting the items
+     * @return T
+     * @throws IOException if the producer thread stopped
+     */
+    public T take(Thread producer) throws IOException {
+        T item = poll();
+        if (item != null) {
+            return item;
+        }
+        long start = System.nanoTime();
+        try {
+            for (int spins = 0; (item = poll()) == null; spins++) {
+                checkAlive(producer);
+                pause(spins);
+            }
+        } finally {
+            takeWaitNanos += System.nanoTime() - start;
+        }
+        return item;
+    }
+
+    private static void checkAlive(Thread thread) throws IOException {
+        if (!thread.isAlive()) {
+            throw new IOException("Thread " + thread.getName() + " stopped");
+        }
+    }
+
+    private static void pause(int spins) throws InterruptedIOException {
+        if (spins < SPINS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Nanoseconds the producer waited for room. Only read by the producer
+     * or after it stopped.
+     */
+    public long getPutWaitNanos() {
+        return putWaitNanos;
+    }
+
+    /**
+     * Nanoseconds the consumer waited for items. Only read by the consumer
+     * or after it stopped.
+     */
+    public long getTakeWaitNanos() {
+        return takeWaitNanos;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Canonical strings for names and repeated values.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the text of class names, parameter names and, optionally, short
+ * parameter values to one canonical string each.
+ *
+ * A dump repeats the same few thousand names on every object. The scanner
+ * looks names up by their bytes so a name that is already in the table is
+ * not decoded into a new string. Bytes below 0x80 are looked up directly in
+ * an open addressing table; other text is decoded first. Upper case names
+ * are cached per canonical name.
+ *
+ * Values are only deduplicated when enabled. Values up to
+ * {@link #MAX_VALUE_LENGTH} bytes are kept until the table holds
+ * {@link #MAX_VALUES} of them so a dump with many distinct values does not
+ * fill the heap. The counters estimate the bytes that were not allocated
+ * because a lookup found its string.
+ *
+ * Instances are not thread safe.
+ *
+ * @author info@bodastage.com
+ */
+public class SymbolTable {
+
+    /**
+     * Longest value in bytes that is deduplicated.
+     */
+    public static final int MAX_VALUE_LENGTH = 32;
+
+    /**
+     * Maximum number of distinct values kept.
+     */
+    public static final int MAX_VALUES = 1 << 16;
+
+    private Symbols names = new Symbols(Integer.MAX_VALUE);
+
+    private Symbols values;
+
+    /**
+     * Upper case names by canonical name.
+     */
+    private Map<String, String> upperCaseNames = new HashMap<String, String>();
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long bytesSaved = 0;
+
+    /**
+     * @param dedupValues Deduplicate short values
+     */
+    public SymbolTable(boolean dedupValues) {
+        if (dedupValues) {
+            values = new Symbols(MAX_VALUES);
+        }
+    }
+
+    public boolean isDedupValues() {
+        return values != null;
+    }
+
+    /**
+     * Canonical string of the name between buf[start] and buf[end].
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @param charset Encoding of the bytes. Must decode bytes below 0x80 as
+     *                ASCII
+     * @return String
+     */
+    public String name(byte[] buf, int start, int end, Charset charset) {
+        return names.lookup(buf, start, end, charset);
+    }
+
+    /**
+     * Canonical upper case of a name.
+     *
+     * @param name
+     * @return String
+     */
+    public String upperCase(String name) {
+        String upperCase = upperCaseNames.get(name);
+        if (upperCase == null) {
+            upperCase = names.lookup(name.toUpperCase());
+            upperCaseNames.put(name, upperCase);
+            misses++;
+        } else {
+            hits++;
+            if (upperCase != name) {
+                bytesSaved += stringSize(name.length());
+            }
+        }
+        return upperCase;
+    }
+
+    /**
+     * The value between buf[start] and buf[end], deduplicated if enabled.
+     *
+     * @param buf
+     * @param start
+     * @param end
+     * @param charset Encoding of the bytes. Must decode bytes below 0x80 as
+     *                ASCII
+     * @return String
+     */
+    public String value(byte[] buf, int start, int end, Charset charset) {
+        if (values == null || end - start > MAX_VALUE_LENGTH) {
+            return new String(buf, start, end - start, charset);
+        }
+        return values.lookup(buf, start, end, charset);
+    }
+
+    /**
+     * Add the counters of another table to the counters of this table.
+     *
+     * @param table
+     */
+    public void addCounters(SymbolTable table) {
+        hits += table.hits + table.names.hits + (table.values == null ? 0 : table.values.hits);
+        misses += table.misses + table.names.misses + (table.values == null ? 0 : table.values.misses);
+        bytesSaved += table.bytesSaved + table.names.bytesSaved
+                + (table.values == null ? 0 : table.values.bytesSaved);
+    }
+
+    /**
+     * Number of lookups that found their string.
+     */
+    public long getHits() {
+        return hits + names.hits + (values == null ? 0 : values.hits);
+    }
+
+    /**
+     * Number of lookups that created a string.
+     */
+    public long getMisses() {
+        return misses + names.misses + (values == null ? 0 : values.misses);
+    }
+
+    /**
+     * Estimated bytes of the strings that were not allocated.
+     */
+    public long getBytesSaved() {
+        return bytesSaved + names.bytesSaved + (values == null ? 0 : values.bytesSaved);
+    }
+
+    /**
+     * Number of distinct names and values in the table.
+     */
+    public int size() {
+        return names.size + (values == null ? 0 : values.size);
+    }
+
+    /**
+     * Estimated heap used by the strings in the table.
+     */
+    public long getRetainedBytes() {
+        return names.retainedBytes + (values == null ? 0 : values.retainedBytes);
+    }
+
+    /**
+     * Estimated size of a string of Latin-1 characters on a 64 bit JVM with
+     * compressed pointers, the object and its byte array.
+     */
+    static long stringSize(int length) {
+        return 24 + ((16 + length + 7) & ~7);
+    }
+
+    /**
+     * Open addressing table of strings keyed by their characters.
+     */
+    private static class Symbols {
+
+        private int maxSize;
+
+        private String[] strings = new String[1024];
+
+        private int[] hashes = new int[1024];
+
+        private int size = 0;
+
+        private long hits = 0;
+
+        private long misses = 0;
+
+        private long bytesSaved = 0;
+
+        private long retainedBytes = 0;
+
+        Symbols(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        String lookup(byte[] buf, int start, int end, Charset charset) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buf[i];
+                if (b < 0) {
+                    return lookup(new String(buf, start, end - start, charset));
+                }
+                hash = 31 * hash + b;
+            }
+
+            //ASCII bytes are the string's characters so this is its hash
+            int mask = strings.length - 1;
+            int length = end - start;
+            for (int i = index(hash, mask); ; i = (i + 1) & mask) {
+                String s = strings[i];
+                if (s == null) {
+                    return add(i, new String(buf, start, length, charset), hash);
+                }
+                if (hashes[i] == hash && s.length() == length && sameChars(s, buf, start)) {
+                    hits++;
+                    bytesSaved += stringSize(length);
+                    return s;
+                }
+            }
+        }
+
+        String lookup(String string) {
+            int hash = string.hashCode();
+            int mask = strings.length - 1;
+            for (int i = index(hash, mask); ; i = (i + 1) & mask) {
+                String s = strings[i];
+                if (s == null) {
+                    return add(i, string, hash);
+                }
+                if (hashes[i] == hash && s.equals(string)) {
+                    hits++;
+                    return s;
+                }
+            }
+        }
+
+        private String add(int i, String s, int hash) {
+            misses++;
+            if (size >= maxSize) {
+                return s;
+            }
+
+            strings[i] = s;
+            hashes[i] = hash;
+            size++;
+            retainedBytes += stringSize(s.length());
+            if (size * 2 > strings.length) {
+                rehash();
+            }
+            return s;
+        }
+
+        private void rehash() {
+            String[] oldStrings = strings;
+            int[] oldHashes = hashes;
+            strings = new String[oldStrings.length * 2];
+            hashes = new int[oldStrings.length * 2];
+            int mask = strings.length - 1;
+            for (int j = 0; j < oldStrings.length; j++) {
+                if (oldStrings[j] == null) {
+                    continue;
+                }
+                int i = index(oldHashes[j], mask);
+                while (strings[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                strings[i] = oldStrings[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+
+        private static int index(int hash, int mask) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private static boolean sameChars(String s, byte[] buf, int start) {
+            for (int i = 0, length = s.length(); i < length; i++) {
+                if (s.charAt(i) != buf[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
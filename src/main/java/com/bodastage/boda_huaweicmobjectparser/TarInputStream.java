@@ -0,0 +1,287 @@
+/*
+ * Reads the entries of a tar archive.
+ * @version 1.0.0
+ * @since 1.0.15
+ */
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the regular file entries of a ustar, GNU or pax tar stream.
+ *
+ * {@link #getNextEntry()} moves to the next file and the read methods
+ * return the data of the current file. Directories, links and the other
+ * entry types are skipped. Long names are read from GNU long name and pax
+ * path headers.
+ *
+ * @author info@bodastage.com
+ */
+public class TarInputStream extends FilterInputStream {
+
+    private static final int BLOCK_SIZE = 512;
+
+    /**
+     * The current header block.
+     */
+    private byte[] header = new byte[BLOCK_SIZE];
+
+    /**
+     * Bytes of the current entry not read yet.
+     */
+    private long remaining = 0;
+
+    /**
+     * Padding after the data of the current entry.
+     */
+    private long padding = 0;
+
+    /**
+     * Size of the current entry.
+     */
+    private long entrySize = -1;
+
+    public TarInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Move to the next regular file of the archive.
+     *
+     * @return String The name of the file or null at the end of the archive
+     * @throws IOException
+     */
+    public String getNextEntry() throws IOException {
+        String longName = null;
+
+        while (true) {
+            skipFully(remaining + padding);
+            remaining = 0;
+            padding = 0;
+
+            if (!readBlock(header) || isZeroBlock(header)) {
+                return null;
+            }
+
+            long size = parseSize(header, 124, 12);
+            char type = (char) header[156];
+
+            remaining = size;
+            padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+
+            if (type == 'L') {
+                longName = trimName(readEntryData());
+                continue;
+            }
+
+            if (type == 'x') {
+                String path = getPaxPath(readEntryData());
+                if (path != null) {
+                    longName = path;
+                }
+                continue;
+            }
+
+            if (type != '0' && type != '\0' && type != '7') {
+                longName = null;
+                continue;
+            }
+
+            entrySize = size;
+            if (longName != null) {
+                return longName;
+            }
+
+            String name = parseString(header, 0, 100);
+            String prefix = parseString(header, 345, 155);
+            if (parseString(header, 257, 5).equals("ustar") && prefix.length() > 0) {
+                name = prefix + "/" + name;
+            }
+            return name;
+        }
+    }
+
+    /**
+     * Size in bytes of the current entry.
+     *
+     * @return long
+     * @since 1.0.15
+     */
+    public long getEntrySize() {
+        return entrySize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of tar archive");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n == -1) {
+            throw new EOFException("Unexpected end of tar archive");
+        }
+        remaining -= n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Read the data of the current entry.
+     */
+    private byte[] readEntryData() throws IOException {
+        if (remaining > Integer.MAX_VALUE) {
+            throw new IOException("Tar header entry is too large");
+        }
+        byte[] data = new byte[(int) remaining];
+        int n = 0;
+        while (n < data.length) {
+            n += read(data, n, data.length - n);
+        }
+        return data;
+    }
+
+    /**
+     * Read a block. Returns false at the end of the stream.
+     */
+    private boolean readBlock(byte[] block) throws IOException {
+        int n = 0;
+        while (n < block.length) {
+            int count = in.read(block, n, block.length - n);
+            if (count == -1) {
+                if (n == 0) {
+                    return false;
+                }
+                throw new EOFException("Unexpected end of tar archive");
+            }
+            n += count;
+        }
+        return true;
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException("Unexpected end of tar archive");
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse an octal size field or a base-256 one for files of 8GB and more.
+     */
+    private static long parseSize(byte[] block, int offset, int length) throws IOException {
+        long size = 0;
+        if ((block[offset] & 0x80) != 0) {
+            size = block[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                size = (size << 8) | (block[i] & 0xff);
+            }
+            return size;
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            byte b = block[i];
+            if (b == 0 || b == ' ') {
+                if (size > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid tar header");
+            }
+            size = (size << 3) + (b - '0');
+        }
+        return size;
+    }
+
+    private static String parseString(byte[] block, int offset, int length) throws IOException {
+        int end = offset;
+        while (end < offset + length && block[end] != 0) {
+            end++;
+        }
+        return new String(block, offset, end - offset, "UTF-8");
+    }
+
+    private static String trimName(byte[] data) throws IOException {
+        return parseString(data, 0, data.length);
+    }
+
+    /**
+     * Get the path from the records of a pax header, "length path=value\n".
+     * The length counts the whole record including the length and the line
+     * break.
+     */
+    private static String getPaxPath(byte[] data) throws IOException {
+        int start = 0;
+        while (start < data.length) {
+            int space = start;
+            int length = 0;
+            while (space < data.length && data[space] >= '0' && data[space] <= '9') {
+                length = length * 10 + (data[space] - '0');
+                if (length > data.length) {
+                    throw new IOException("Invalid pax header");
+                }
+                space++;
+            }
+            if (space == start || space == data.length || data[space] != ' '
+                    || length < space - start + 2 || start + length > data.length
+                    || data[start + length - 1] != '\n') {
+                throw new IOException("Invalid pax header");
+            }
+
+            String record = new String(data, space + 1, start + length - space - 2, "UTF-8");
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            start += length;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Matches names against glob patterns.
+ */
+public class GlobMatcherTest
+    extends TestCase
+{
+    public GlobMatcherTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GlobMatcherTest.class );
+    }
+
+    public void testIsPattern()
+    {
+        assertTrue(GlobMatcher.isPattern("GCELL*"));
+        assertTrue(GlobMatcher.isPattern("CELL?D"));
+        assertFalse(GlobMatcher.isPattern("GCELL_BSC6900GSM"));
+    }
+
+    public void testConsecutiveStars()
+    {
+        GlobMatcher matcher = new GlobMatcher();
+        matcher.add("A**B");
+        matcher.add("***");
+        assertEquals(bits(0, 1), matcher.match("AB"));
+        assertEquals(bits(0, 1), matcher.match("AXYB"));
+        assertEquals(bits(1), matcher.match("AXYBC"));
+        assertEquals(bits(1), matcher.match(""));
+    }
+
+    public void testQuestionMarkAfterStar()
+    {
+        GlobMatcher matcher = new GlobMatcher();
+        matcher.add("*?");
+        matcher.add("A*?B");
+        matcher.add("*??");
+        assertEquals(bits(), matcher.match(""));
+        assertEquals(bits(0), matcher.match("X"));
+        assertEquals(bits(0, 2), matcher.match("XY"));
+        assertEquals(bits(0, 2), matcher.match("AB"));
+        assertEquals(bits(0, 1, 2), matcher.match("AXB"));
+        assertEquals(bits(0, 1, 2), matcher.match("AXYB"));
+    }
+
+    public void testOverlappingPatterns()
+    {
+        GlobMatcher matcher = new GlobMatcher();
+        assertEquals(0, matcher.add("GCELL*"));
+        assertEquals(1, matcher.add("GCELL"));
+        assertEquals(2, matcher.add("*_BSC6900GSM"));
+        assertEquals(3, matcher.add("GCELL*"));
+        assertEquals(4, matcher.add("G?ELL*GSM"));
+        assertEquals(5, matcher.size());
+
+        assertEquals(bits(0, 1, 3), matcher.match("GCELL"));
+        assertEquals(bits(0, 2, 3, 4), matcher.match("GCELL_BSC6900GSM"));
+        assertEquals(bits(2), matcher.match("BTS_BSC6900GSM"));
+        assertEquals(bits(), matcher.match("GCEL"));
+    }
+
+    public void testMatchesRegex()
+    {
+        String[] patterns = {"*A*B*", "?*?", "A?*", "*AB", "AB*AB", "*", "A*A*A"};
+        String[] names = {"", "A", "AB", "BA", "AAB", "ABAB", "ABXAB", "AXAXA", "AAA", "ABBA"};
+        GlobMatcher matcher = new GlobMatcher();
+        for (String pattern : patterns) {
+            matcher.add(pattern);
+        }
+        for (String name : names) {
+            BitSet expected = new BitSet();
+            for (int i = 0; i < patterns.length; i++) {
+                String regex = patterns[i].replace("?", ".").replace("*", ".*");
+                if (Pattern.matches(regex, name)) {
+                    expected.set(i);
+                }
+            }
+            assertEquals(name, expected, matcher.match(name));
+        }
+    }
+
+    private static BitSet bits(int... indexes)
+    {
+        BitSet bits = new BitSet();
+        for (int i : indexes) {
+            bits.set(i);
+        }
+        return bits;
+    }
+}
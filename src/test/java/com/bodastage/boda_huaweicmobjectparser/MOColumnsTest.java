@@ -0,0 +1,72 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Assigns ordinals to MO columns.
+ */
+public class MOColumnsTest
+    extends TestCase
+{
+    public MOColumnsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MOColumnsTest.class );
+    }
+
+    public void testOrdinalsInInsertionOrder()
+    {
+        MOColumns columns = new MOColumns();
+        assertEquals(0, columns.add("CELLID"));
+        assertEquals(1, columns.add("BCCHNO"));
+        assertEquals(0, columns.add("CELLID"));
+        assertEquals(2, columns.add("LAC"));
+
+        assertEquals(3, columns.size());
+        assertEquals(1, columns.indexOf("BCCHNO"));
+        assertEquals(-1, columns.indexOf("NCC"));
+        assertTrue(columns.contains("LAC"));
+        assertFalse(columns.contains("NCC"));
+        assertEquals("LAC", columns.get(2));
+        assertEquals(Arrays.asList("CELLID", "BCCHNO", "LAC"), toList(columns));
+    }
+
+    public void testAddAllSkipsDuplicates()
+    {
+        MOColumns columns = new MOColumns(Arrays.asList("A", "B", "A"));
+        columns.addAll(Arrays.asList("C", "B", "D"));
+        assertEquals(Arrays.asList("A", "B", "C", "D"), toList(columns));
+        assertEquals(3, columns.indexOf("D"));
+    }
+
+    public void testIteratorIsReadOnly()
+    {
+        Iterator<String> iter = new MOColumns(Arrays.asList("A")).iterator();
+        iter.next();
+        try {
+            iter.remove();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    private static List<String> toList(MOColumns columns)
+    {
+        List<String> list = new ArrayList<String>();
+        for (String name : columns) {
+            list.add(name);
+        }
+        return list;
+    }
+}
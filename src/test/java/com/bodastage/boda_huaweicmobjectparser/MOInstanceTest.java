@@ -0,0 +1,119 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.Arrays;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Stores the values of an MO instance by column ordinal.
+ */
+public class MOInstanceTest
+    extends TestCase
+{
+    public MOInstanceTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MOInstanceTest.class );
+    }
+
+    public void testValuesByOrdinal()
+    {
+        MOColumns columns = new MOColumns(Arrays.asList("CELLID", "BCCHNO", "LAC"));
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", columns, false);
+
+        assertTrue(moi.put("LAC", "10", false));
+        assertTrue(moi.put("CELLID", "1", false));
+        assertEquals(2, moi.size());
+        assertEquals("1", moi.get(0));
+        assertNull(moi.get(1));
+        assertEquals("10", moi.get(2));
+        assertNull(moi.get(1000));
+
+        //Names in the order the values were put
+        assertEquals(Arrays.asList("LAC", "CELLID"), moi.getNames());
+    }
+
+    public void testReplaceValue()
+    {
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", new MOColumns(Arrays.asList("A")), false);
+        moi.put("A", "1", false);
+        moi.put("A", "2", false);
+        assertEquals(1, moi.size());
+        assertEquals("2", moi.get(0));
+    }
+
+    public void testMissingColumn()
+    {
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", new MOColumns(Arrays.asList("A")), false);
+        assertFalse(moi.put("B", "1", false));
+        assertFalse(moi.put("C", "1", false));
+        assertEquals("B", moi.getMissingColumn());
+        assertEquals(0, moi.size());
+
+        moi.clear();
+        assertNull(moi.getMissingColumn());
+    }
+
+    public void testNewColumnsFollowExistingOrdinals()
+    {
+        MOColumns columns = new MOColumns(Arrays.asList("A", "B"));
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", columns, true);
+
+        moi.put("C", "3", true);
+        moi.put("A", "1", true);
+        moi.put("D", "4", true);
+        assertEquals(2, columns.size());
+        assertEquals("3", moi.get(2));
+        assertEquals("4", moi.get(3));
+        assertEquals(Arrays.asList("C", "A", "D"), moi.getNames());
+
+        moi.commitNewColumns();
+        assertEquals(4, columns.size());
+        assertEquals(2, columns.indexOf("C"));
+        assertEquals(3, columns.indexOf("D"));
+        assertEquals("4", moi.get(columns.indexOf("D")));
+    }
+
+    public void testClearDropsUncommittedColumns()
+    {
+        MOColumns columns = new MOColumns(Arrays.asList("A"));
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", columns, true);
+        moi.put("B", "2", true);
+        moi.clear();
+
+        assertEquals(0, moi.size());
+        assertNull(moi.get(1));
+        moi.commitNewColumns();
+        assertEquals(1, columns.size());
+
+        moi.put("C", "3", true);
+        assertEquals("3", moi.get(1));
+        assertEquals(Arrays.asList("C"), moi.getNames());
+    }
+
+    public void testSetClassMovesValuesToNewColumns()
+    {
+        MOInstance moi = new MOInstance();
+        moi.setClass(null, null, true);
+        moi.put("B", "2", true);
+        moi.put("A", "1", true);
+
+        MOColumns columns = new MOColumns(Arrays.asList("A", "B"));
+        moi.setClass("GCELL", columns, false);
+        assertEquals("GCELL", moi.getClassName());
+        assertSame(columns, moi.getColumns());
+        assertEquals("1", moi.get(0));
+        assertEquals("2", moi.get(1));
+        assertEquals(Arrays.asList("B", "A"), moi.getNames());
+    }
+}
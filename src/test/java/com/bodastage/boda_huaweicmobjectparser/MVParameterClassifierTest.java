@@ -0,0 +1,130 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Compares the multi-valued parameter detection and splitting with the
+ * regular expression and String.split they replace.
+ */
+public class MVParameterClassifierTest
+    extends TestCase
+{
+    private static final String[] VALUES = {
+        "BIT1-0&BIT2-1", "BIT1-0", "A-B-C", "A-B-C&D-E", "A-B&", "A-B&&",
+        "-A", "A-", "-", "--", "A--B", "-A-B", "A", "", "ABC", "A B-1",
+        "A-1&B", "A-1&B-", "A-1&-B", "&A-1", "A-1&&B-2", "A-1-\n", "A-1\n",
+        "A-\n", "A-1-2-3", "10.0.0.1-10.0.0.2", "A-&B-1", "A-1&B--",
+    };
+
+    public MVParameterClassifierTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MVParameterClassifierTest.class );
+    }
+
+    public void testIsMVValueMatchesRegex()
+    {
+        for (String value : VALUES) {
+            assertEquals(value, value.matches("[^-]+-[^-]+.*"),
+                    MVParameterClassifier.isMVValue(value));
+        }
+    }
+
+    public void testEdgeValues()
+    {
+        assertTrue(MVParameterClassifier.isMVValue("BIT1-0&BIT2-1"));
+        assertFalse(MVParameterClassifier.isMVValue("-A"));
+        assertFalse(MVParameterClassifier.isMVValue("A-"));
+        assertFalse(MVParameterClassifier.isMVValue("A--B"));
+        assertFalse(MVParameterClassifier.isMVValue("ENABLE"));
+        assertFalse(MVParameterClassifier.isMVValue(""));
+    }
+
+    public void testSplitMatchesStringSplit()
+    {
+        List<String> names = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+        for (String value : VALUES) {
+            if (!value.matches("[^-]+-[^-]+.*")) {
+                continue;
+            }
+
+            List<String> expectedNames = new ArrayList<String>();
+            List<String> expectedValues = new ArrayList<String>();
+            Class<?> expectedError = null;
+            try {
+                for (String part : value.split("&")) {
+                    String[] nameValue = part.split("-");
+                    expectedNames.add(nameValue[0]);
+                    expectedValues.add(nameValue[1]);
+                }
+            } catch (RuntimeException e) {
+                expectedError = e.getClass();
+            }
+
+            try {
+                MVParameterClassifier.split(value, names, values);
+                assertNull(value, expectedError);
+                assertEquals(value, expectedNames, names);
+                assertEquals(value, expectedValues, values);
+            } catch (RuntimeException e) {
+                assertEquals(value, expectedError, e.getClass());
+            }
+        }
+    }
+
+    public void testSplitFallback()
+    {
+        List<String> names = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+
+        //Parts without a dash or a value fail like String.split
+        for (String value : new String[]{"A-1&B", "A-1&&B-2", "&A-1", "A-1&B--"}) {
+            try {
+                MVParameterClassifier.split(value, names, values);
+                fail(value);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                //expected
+            }
+        }
+
+        //Leading dashes of a part give an empty name
+        MVParameterClassifier.split("A-1&-B", names, values);
+        assertEquals(Arrays.asList("A", ""), names);
+        assertEquals(Arrays.asList("1", "B"), values);
+    }
+
+    public void testExcludedParameters()
+    {
+        MVParameterClassifier classifier = new MVParameterClassifier();
+        assertFalse(classifier.getParameter("GCELL_BSC6900GSM", "SW").canBeMV());
+        assertFalse(classifier.getParameter("S1INTERFACE", "SW").canBeMV());
+        assertFalse(classifier.getParameter("BTS_BSC6900GSM", "action").canBeMV());
+        assertTrue(classifier.getParameter("BTS_BSC6900GSM", "sw").canBeMV());
+        assertTrue(classifier.getParameter("GCELLX_BSC6900GSM", "SW").canBeMV());
+
+        classifier = new MVParameterClassifier(Arrays.asList("BTS"));
+        assertFalse(classifier.getParameter("BTS_BSC6900GSM", "SW").canBeMV());
+        assertTrue(classifier.getParameter("GCELL_BSC6900GSM", "SW").canBeMV());
+    }
+
+    public void testParameterNames()
+    {
+        MVParameterClassifier classifier = new MVParameterClassifier();
+        MVParameterClassifier.Parameter parameter = classifier.getParameter("BTS_BSC6900GSM", "sw");
+        assertEquals("SW", parameter.getName());
+        assertEquals("BTS_BSC6900GSM_SW", parameter.getMVParameter());
+        assertEquals("SW_BIT1", parameter.getChildColumn("bit1"));
+        assertSame(parameter, classifier.getParameter("BTS_BSC6900GSM", "sw"));
+        assertNotSame(parameter, classifier.getParameter("BTS_BSC6900UMTS", "sw"));
+    }
+}
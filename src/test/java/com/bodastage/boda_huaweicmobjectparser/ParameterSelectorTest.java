@@ -0,0 +1,75 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Selects the MOs and parameters of a parameter file.
+ */
+public class ParameterSelectorTest
+    extends TestCase
+{
+    public ParameterSelectorTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ParameterSelectorTest.class );
+    }
+
+    public void testCaseFolding() throws Exception
+    {
+        ParameterSelector selector = new ParameterSelector();
+        selector.addLine("gcell*:cellId,bcch*");
+        selector.addLine("  # comment");
+        selector.addLine("");
+        assertTrue(selector.hasPatterns());
+
+        ParameterSelector.Selection selection = selector.getSelection("GCELL_BSC6900GSM");
+        assertNotNull(selection);
+        assertEquals("[CELLID]", selection.getColumns().toString());
+        assertTrue(selection.isSelected("CELLID"));
+        assertTrue(selection.isSelected("BCCHNO"));
+        assertFalse(selection.isSelected("LAC"));
+        assertNull(selector.getSelection("BTS_BSC6900GSM"));
+    }
+
+    public void testMergedLines() throws Exception
+    {
+        ParameterSelector selector = new ParameterSelector();
+        selector.addLine("GCELL_BSC6900GSM:CELLID,LAC");
+        selector.addLine("*_BSC6900GSM:LAC,SW_BIT1");
+
+        //The MOs are found by parsing the dumps
+        assertTrue(selector.hasPatterns());
+
+        ParameterSelector.Selection selection = selector.getSelection("GCELL_BSC6900GSM");
+        assertEquals("[CELLID, LAC, SW_BIT1]", selection.getColumns().toString());
+        assertTrue(selection.isSelected("SW"));
+        assertFalse(selection.hasPatterns());
+        assertEquals("[LAC, SW_BIT1]", selector.getSelection("BTS_BSC6900GSM").getColumns().toString());
+        assertEquals("[GCELL_BSC6900GSM, *_BSC6900GSM]", selector.getMOs().toString());
+    }
+
+    public void testAllParameters() throws Exception
+    {
+        ParameterSelector selector = new ParameterSelector();
+        selector.addLine("BTS*:*");
+        ParameterSelector.Selection selection = selector.copy().getSelection("BTS_BSC6900GSM");
+        assertTrue(selection.hasPatterns());
+        assertTrue(selection.isMatched("ANYTHING"));
+    }
+
+    public void testWrongFormat()
+    {
+        try {
+            new ParameterSelector().addLine("GCELL_BSC6900GSM");
+            fail();
+        } catch (Exception e) {
+            assertTrue(e.getMessage().startsWith("Wrong format."));
+        }
+    }
+}
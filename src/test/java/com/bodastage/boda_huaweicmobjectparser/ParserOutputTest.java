@@ -0,0 +1,748 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Compares the csv output of the different parsing modes against the default
+ * two pass parse.
+ */
+public class ParserOutputTest
+    extends TestCase
+{
+    public ParserOutputTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ParserOutputTest.class );
+    }
+
+    /**
+     * Directory with the test GExport dumps.
+     */
+    private String getDumpsDirectory()
+    {
+        ClassLoader classLoader = getClass().getClassLoader();
+        return new File(classLoader.getResource("dumps").getFile()).getAbsolutePath();
+    }
+
+    /**
+     * Create an empty output directory.
+     */
+    private File createOutputDirectory() throws IOException
+    {
+        return Files.createTempDirectory("boda_huaweicmobjectparser_").toFile();
+    }
+
+    /**
+     * Read the csv files in the output directory.
+     */
+    private Map<String, String> readOutput(File outputDirectory) throws IOException
+    {
+        Map<String, String> csvFiles = new TreeMap<String, String>();
+        for (File f : outputDirectory.listFiles()) {
+            csvFiles.put(f.getName(), new String(Files.readAllBytes(f.toPath()), "UTF-8"));
+            f.delete();
+        }
+        outputDirectory.delete();
+        return csvFiles;
+    }
+
+    /**
+     * Parse the test dumps with the default two pass parser.
+     */
+    private Map<String, String> parseTwoPass() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.parse();
+        return readOutput(outputDirectory);
+    }
+
+    public void testSinglePass() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setSinglePass(true);
+        parser.parse();
+
+        Map<String, String> expected = parseTwoPass();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, readOutput(outputDirectory));
+    }
+
+    public void testSchemaCache() throws Exception
+    {
+        File cacheFile = File.createTempFile("schema_cache_", ".gz");
+        cacheFile.delete();
+
+        Map<String, String> expected = parseTwoPass();
+        for (int run = 0; run < 2; run++) {
+            assertEquals(expected, parseWithSchemaCache(getDumpsDirectory(), cacheFile));
+            assertTrue(cacheFile.isFile());
+        }
+
+        //An NE object without a version attribute, alone in its directory
+        //since the previous NE's version is reused for it
+        File dumpsDirectory = createOutputDirectory();
+        File noVersion = new File(dumpsDirectory, "GExport_RNC2_10.0.0.4_20180102030405.xml");
+        String dump = new String(Files.readAllBytes(new File(getDumpsDirectory(), 
+                "GExport_RNC1_10.0.0.2_20180102030405.xml").toPath()), "UTF-8");
+        Files.write(noVersion.toPath(), dump.replace(" version=\"V900R019\"", "").getBytes("UTF-8"));
+
+        expected = parse(noVersion.getAbsolutePath());
+        assertFalse(expected.isEmpty());
+        for (int run = 0; run < 2; run++) {
+            assertEquals(expected, parseWithSchemaCache(noVersion.getAbsolutePath(), cacheFile));
+            assertEquals(expected, parseWithSchemaCache(dumpsDirectory.getAbsolutePath(), cacheFile));
+        }
+        noVersion.delete();
+        dumpsDirectory.delete();
+        cacheFile.delete();
+    }
+
+    /**
+     * Parse a file or directory with a schema cache file.
+     */
+    private Map<String, String> parseWithSchemaCache(String dataSource, File cacheFile) throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dataSource);
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setSchemaCacheFile(cacheFile.getAbsolutePath());
+        parser.parse();
+        return readOutput(outputDirectory);
+    }
+
+    public void testParallel() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setThreads(4);
+        parser.parse();
+
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    public void testSplitFiles() throws Exception
+    {
+        File dump = new File(getDumpsDirectory(), "GExport_BSC1_10.0.0.1_20171211060843.xml");
+        assertTrue(GExportSplitter.split(dump.getAbsolutePath(), 200).size() > 2);
+
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setThreads(3);
+        parser.setSplitSize(200);
+        parser.parse();
+
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    public void testScanner() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setUseScanner(true);
+        parser.parse();
+
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    public void testPipeline() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setPipeline(true);
+        parser.parse();
+
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+
+        List<String> stages = new ArrayList<String>();
+        for (RunMetrics.StageMetrics stage : parser.getMetrics().getStages()) {
+            stages.add(stage.getStage());
+            assertTrue(stage.getItems() > 0);
+        }
+        assertEquals(Arrays.asList("read", "parse", "write"), stages);
+    }
+
+    public void testDedupValues() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setUseScanner(true);
+        parser.setDedupValues(true);
+        parser.parse();
+
+        assertTrue(parser.getSymbolTable().getHits() > 0);
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    public void testMetrics() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.parse();
+        readOutput(outputDirectory);
+
+        long objects = 0;
+        long rows = 0;
+        int files = 0;
+        for (RunMetrics.FileMetrics m : parser.getMetrics().getFiles()) {
+            assertTrue(m.getBytesRead() > 0);
+            assertEquals(0, m.getErrors());
+            objects += m.getObjects();
+            rows += m.getRows();
+            files++;
+        }
+        assertEquals(3, files);
+        assertEquals(14, objects);
+        //Each NE object's end writes a row
+        assertEquals(17, rows);
+
+        StringWriter json = new StringWriter();
+        parser.getMetrics().writeJson(json);
+        assertTrue(json.toString().contains("\"ne_type\": \"BSC6900UMTS\""));
+        StringWriter prometheus = new StringWriter();
+        parser.getMetrics().writePrometheus(prometheus);
+        assertTrue(prometheus.toString().contains("boda_huaweicm_mo_objects_total{mo=\"UCELL_BSC6900UMTS\"} 2"));
+    }
+
+    public void testSkipClasses() throws Exception
+    {
+        File parameterFile = File.createTempFile("boda_huaweicmobjectparser_", ".cfg");
+        Files.write(parameterFile.toPath(),
+                "UCELL_BSC6900UMTS:CELLID,SW_A\nMONAME_BSC6900GSM:PARAMETER1,PARAMETER3_SWITCH1\n"
+                .getBytes("UTF-8"));
+
+        List<Map<String, String>> outputs = new ArrayList<Map<String, String>>();
+        for (boolean scanner : new boolean[]{false, true}) {
+            File outputDirectory = createOutputDirectory();
+            HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+            parser.getParametersToExtract(parameterFile.getAbsolutePath());
+            parser.setParameterFile(parameterFile.getAbsolutePath());
+            parser.setDataSource(getDumpsDirectory());
+            parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+            parser.setUseScanner(scanner);
+            parser.parse();
+            outputs.add(readOutput(outputDirectory));
+
+            long skippedObjects = 0;
+            for (RunMetrics.FileMetrics m : parser.getMetrics().getFiles()) {
+                skippedObjects += m.getSkippedObjects();
+            }
+            assertEquals(8, skippedObjects);
+        }
+        parameterFile.delete();
+
+        Map<String, String> csvFiles = outputs.get(0);
+        assertEquals(Arrays.asList("MONAME_BSC6900GSM.csv", "UCELL_BSC6900UMTS.csv"),
+                new ArrayList<String>(csvFiles.keySet()));
+        assertTrue(csvFiles.get("UCELL_BSC6900UMTS.csv").startsWith("CELLID,SW_A"));
+        assertTrue(csvFiles.get("UCELL_BSC6900UMTS.csv").contains("2,0"));
+        assertEquals(csvFiles, outputs.get(1));
+    }
+
+    public void testParameterPatterns() throws Exception
+    {
+        File parameterFile = File.createTempFile("boda_huaweicmobjectparser_", ".cfg");
+        Files.write(parameterFile.toPath(),
+                "# All the parameters of the 3G MOs\n*_BSC6900UMTS:*\n\nmoname*:PARAMETER1,PARAMETER3*\n"
+                .getBytes("UTF-8"));
+
+        List<Map<String, String>> outputs = new ArrayList<Map<String, String>>();
+        for (boolean scanner : new boolean[]{false, true}) {
+            File outputDirectory = createOutputDirectory();
+            HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+            parser.getParametersToExtract(parameterFile.getAbsolutePath());
+            parser.setParameterFile(parameterFile.getAbsolutePath());
+            parser.setDataSource(getDumpsDirectory());
+            parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+            parser.setUseScanner(scanner);
+            parser.parse();
+            outputs.add(readOutput(outputDirectory));
+        }
+        parameterFile.delete();
+
+        Map<String, String> csvFiles = outputs.get(0);
+        assertEquals(Arrays.asList("MONAME2_BSC6900GSM.csv", "MONAME_BSC6900GSM.csv",
+                "UCELL_BSC6900UMTS.csv"), new ArrayList<String>(csvFiles.keySet()));
+        assertTrue(csvFiles.get("MONAME_BSC6900GSM.csv").startsWith("PARAMETER1,PARAMETER3_SWITCH1"));
+        assertEquals(csvFiles, outputs.get(1));
+
+        //All the columns of the MO without the meta fields
+        StringBuilder expected = new StringBuilder();
+        for (String line : parseTwoPass().get("UCELL_BSC6900UMTS.csv").split("\n")) {
+            expected.append(line.split(",", 7)[6]).append('\n');
+        }
+        assertEquals(expected.toString(), csvFiles.get("UCELL_BSC6900UMTS.csv"));
+    }
+
+    public void testMaxOpenFiles() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setMaxOpenFiles(2);
+        parser.parse();
+
+        assertTrue(parser.getMOWriterPool().getEvictions() > 0);
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    public void testSinglePassMaxOpenFiles() throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setSinglePass(true);
+        parser.setMaxOpenFiles(1);
+        parser.parse();
+
+        assertEquals(parseTwoPass(), readOutput(outputDirectory));
+    }
+
+    /**
+     * Parse a file or directory with the default two pass parser.
+     */
+    private Map<String, String> parse(String dataSource) throws Exception
+    {
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dataSource);
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.parse();
+        return readOutput(outputDirectory);
+    }
+
+    /**
+     * Write a ustar entry.
+     */
+    private void writeTarEntry(OutputStream out, String name, byte[] data) throws IOException
+    {
+        byte[] header = new byte[512];
+        System.arraycopy(name.getBytes("UTF-8"), 0, header, 0, name.length());
+        System.arraycopy(String.format("%07o", 0644).getBytes("US-ASCII"), 0, header, 100, 7);
+        System.arraycopy(String.format("%011o", data.length).getBytes("US-ASCII"), 0, header, 124, 11);
+        System.arraycopy(String.format("%011o", 0).getBytes("US-ASCII"), 0, header, 136, 11);
+        header[156] = '0';
+        System.arraycopy("ustar\u000000".getBytes("US-ASCII"), 0, header, 257, 8);
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        System.arraycopy(String.format("%06o\u0000", checksum).getBytes("US-ASCII"), 0, header, 148, 7);
+
+        out.write(header);
+        out.write(data);
+        out.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    public void testCompressedInput() throws Exception
+    {
+        File[] dumps = new File(getDumpsDirectory()).listFiles();
+        File archiveDirectory = createOutputDirectory();
+        Map<String, String> expected = parseTwoPass();
+
+        File zipFile = new File(archiveDirectory, "dumps.zip");
+        ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zipFile));
+        zipOut.putNextEntry(new ZipEntry("readme.txt"));
+        zipOut.closeEntry();
+        for (File dump : dumps) {
+            zipOut.putNextEntry(new ZipEntry("export/" + dump.getName()));
+            zipOut.write(Files.readAllBytes(dump.toPath()));
+            zipOut.closeEntry();
+        }
+        zipOut.close();
+        assertEquals(expected, parse(zipFile.getAbsolutePath()));
+        zipFile.delete();
+
+        File tarFile = new File(archiveDirectory, "dumps.tar.gz");
+        OutputStream tarOut = new GZIPOutputStream(new FileOutputStream(tarFile));
+        for (File dump : dumps) {
+            writeTarEntry(tarOut, "export/" + dump.getName(), Files.readAllBytes(dump.toPath()));
+        }
+        tarOut.write(new byte[1024]);
+        tarOut.close();
+        assertEquals(expected, parse(tarFile.getAbsolutePath()));
+        tarFile.delete();
+
+        File gzipFile = new File(archiveDirectory, dumps[0].getName() + ".gz");
+        OutputStream gzipOut = new GZIPOutputStream(new FileOutputStream(gzipFile));
+        gzipOut.write(Files.readAllBytes(dumps[0].toPath()));
+        gzipOut.close();
+        assertEquals(parse(dumps[0].getAbsolutePath()), parse(gzipFile.getAbsolutePath()));
+        gzipFile.delete();
+
+        archiveDirectory.delete();
+    }
+
+    /**
+     * Number of MO instances in the test dumps, the object tags that are not
+     * NE objects.
+     */
+    private static final int MO_INSTANCES = 14;
+
+    /**
+     * Check that every record has a value. The end of the NE object is not
+     * an MO instance.
+     */
+    private void assertHasValues(String record, List<String> values)
+    {
+        for (String value : values) {
+            if (value != null) {
+                return;
+            }
+        }
+        fail("Record without values: " + record);
+    }
+
+    /**
+     * Remove the csv rows without values, written at the end of each NE
+     * object.
+     */
+    private Map<String, String> removeEmptyRows(Map<String, String> csvFiles)
+    {
+        Map<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, String> e : csvFiles.entrySet()) {
+            StringBuilder sb = new StringBuilder();
+            for (String row : e.getValue().split("(?<=\n)")) {
+                if (!row.matches("([^,]*,){6},*\r?\n")) {
+                    sb.append(row);
+                }
+            }
+            result.put(e.getKey(), sb.toString());
+        }
+        return result;
+    }
+
+    public void testRecordListener() throws Exception
+    {
+        Map<String, String> expected = removeEmptyRows(parseTwoPass());
+
+        //Write the records with the csv writer of the parser
+        final File outputDirectory = createOutputDirectory();
+        final CsvRecordWriter csvWriter = new CsvRecordWriter(
+                new MOWriterPool(outputDirectory.getAbsolutePath(), MOWriterPool.DEFAULT_MAX_OPEN_FILES));
+        final List<MORecord> records = new ArrayList<MORecord>();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setRecordListener(new MORecordListener() {
+            public void record(MORecord record) throws IOException {
+                records.add(record.copy());
+                csvWriter.record(record);
+            }
+        });
+        parser.parse();
+        csvWriter.getWriterPool().close();
+        assertEquals(expected, readOutput(outputDirectory));
+        assertEquals(MO_INSTANCES, records.size());
+
+        MORecord cell = null;
+        for (MORecord record : records) {
+            assertHasValues(record.getClassName(), record.getValues());
+            if (record.getClassName().equals("UCELL_BSC6900UMTS") && "2".equals(record.getValue("CELLID"))) {
+                cell = record;
+            }
+        }
+        assertEquals("x", cell.getValue("EXTRA"));
+        assertEquals("WCDMA", cell.getTechnology());
+        assertEquals("BSC6900UMTS", cell.getNodeTypeVersion());
+        assertEquals(cell.getValues().size(), cell.getColumns().size());
+    }
+
+    public void testRecordReader() throws Exception
+    {
+        //The records of a single pass parse
+        final List<String> expected = new ArrayList<String>();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(getDumpsDirectory());
+        parser.setSinglePass(true);
+        parser.setRecordListener(new MORecordListener() {
+            public void record(MORecord record) {
+                expected.add(record.getFileName() + " " + record.getClassName() + " " + record.getValues());
+            }
+        });
+        parser.parse();
+
+        List<String> records = new ArrayList<String>();
+        MORecordReader reader = new HuaweiCMObjectParser().records(getDumpsDirectory());
+        for (MORecord record : reader) {
+            records.add(record.getFileName() + " " + record.getClassName() + " " + record.getValues());
+        }
+        assertFalse(reader.hasNext());
+        assertEquals(expected, records);
+        assertEquals(MO_INSTANCES, records.size());
+
+        int count = 0;
+        for (MORecord record : new HuaweiCMObjectParser().records(getDumpsDirectory())) {
+            assertHasValues(record.getClassName(), record.getValues());
+            count++;
+        }
+        assertEquals(MO_INSTANCES, count);
+        assertEquals(MO_INSTANCES, new HuaweiCMObjectParser().records(getDumpsDirectory()).stream().count());
+
+        //Stop at the first cell
+        Stream<MORecord> stream = new HuaweiCMObjectParser().records(getDumpsDirectory()).stream();
+        MORecord cell = stream.filter(r -> r.getClassName().startsWith("UCELL")).findFirst().get();
+        stream.close();
+        assertEquals("1", cell.getValue("CELLID"));
+    }
+
+    public void testCompressedOutput() throws Exception
+    {
+        Map<String, String> expected = parseTwoPass();
+        for (boolean async : new boolean[]{false, true}) {
+            File outputDirectory = createOutputDirectory();
+            HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+            parser.setDataSource(getDumpsDirectory());
+            parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+            parser.setCompressor(new CsvCompressor(1, async));
+            //Evicted files are appended as new gzip members
+            parser.setMaxOpenFiles(2);
+            parser.parse();
+
+            Map<String, String> csvFiles = new TreeMap<String, String>();
+            for (File f : outputDirectory.listFiles()) {
+                assertTrue(f.getName().endsWith(".csv.gz"));
+                InputStream in = new GZIPInputStream(new FileInputStream(f));
+                ByteArrayOutputStream csv = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                for (int n; (n = in.read(buf)) != -1;) {
+                    csv.write(buf, 0, n);
+                }
+                in.close();
+                csvFiles.put(f.getName().substring(0, f.getName().length() - 3), csv.toString("UTF-8"));
+            }
+            readOutput(outputDirectory);
+            assertEquals(expected, csvFiles);
+        }
+    }
+
+    public void testGeneratedDumps() throws Exception
+    {
+        File dumps = createOutputDirectory();
+        GExportGenerator generator = new GExportGenerator();
+        generator.setOutputDirectory(dumps.getAbsolutePath());
+        generator.setNEs(3);
+        generator.setClasses(6);
+        generator.setObjectsPerClass(5);
+        generator.setSwitchPercentage(30);
+        generator.setComments(true);
+        generator.setTimestamp("20180301120000");
+        assertEquals(3, generator.generate().size());
+
+        File outputDirectory = createOutputDirectory();
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dumps.getAbsolutePath());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setUseScanner(true);
+        parser.parse();
+
+        Map<String, String> csvFiles = readOutput(outputDirectory);
+        assertEquals(18, csvFiles.size());
+        assertEquals(csvFiles, parse(dumps.getAbsolutePath()));
+        readOutput(dumps);
+    }
+
+    public void testProgress() throws Exception
+    {
+        File dumps = createOutputDirectory();
+        GExportGenerator generator = new GExportGenerator();
+        generator.setOutputDirectory(dumps.getAbsolutePath());
+        generator.setNEs(1);
+        generator.setClasses(2);
+        generator.setObjectsPerClass(3 * ProgressReporter.CHECK_OBJECTS);
+        File dump = generator.generate().get(0);
+
+        File outputDirectory = createOutputDirectory();
+        File statusFile = new File(outputDirectory, "status.json");
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        ProgressReporter progress = new ProgressReporter(0);
+        progress.setOutput(new PrintStream(lines, true));
+        progress.setStatusFile(statusFile.getAbsolutePath());
+
+        HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+        parser.setDataSource(dumps.getAbsolutePath());
+        parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+        parser.setProgressReporter(progress);
+        parser.parse();
+
+        //Both passes report each interval
+        assertTrue(lines.toString("UTF-8").split("\n").length >= 10);
+        assertTrue(lines.toString("UTF-8").contains("objects/s, ETA "));
+        String status = new String(Files.readAllBytes(statusFile.toPath()), "UTF-8");
+        assertTrue(status.contains("\"state\": \"done\""));
+        assertTrue(status.contains("\"pass\": \"values\""));
+        assertTrue(status.contains("\"bytes_read\": " + dump.length() + ", \"total_bytes\": " + dump.length()));
+        readOutput(outputDirectory);
+        readOutput(dumps);
+    }
+
+    /**
+     * Csv files with their rows sorted.
+     */
+    private Map<String, String> sortRows(Map<String, String> csvFiles)
+    {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for (Map.Entry<String, String> e : csvFiles.entrySet()) {
+            String[] lines = e.getValue().split("\n");
+            Arrays.sort(lines, 1, lines.length);
+            sorted.put(e.getKey(), Arrays.toString(lines));
+        }
+        return sorted;
+    }
+
+    public void testIncremental() throws Exception
+    {
+        File dumps = createOutputDirectory();
+        for (File f : new File(getDumpsDirectory()).listFiles()) {
+            Files.copy(f.toPath(), new File(dumps, f.getName()).toPath());
+        }
+        Map<String, String> expected = parse(dumps.getAbsolutePath());
+
+        File outputDirectory = createOutputDirectory();
+        File manifestDirectory = createOutputDirectory();
+        String manifestFile = new File(manifestDirectory, "manifest").getAbsolutePath();
+        for (int run = 0; run < 3; run++) {
+            if (run == 2) {
+                //A changed file replaces its rows
+                File changed = dumps.listFiles()[0];
+                changed.setLastModified(changed.lastModified() - 60000);
+            }
+
+            HuaweiCMObjectParser parser = new HuaweiCMObjectParser();
+            parser.setDataSource(dumps.getAbsolutePath());
+            parser.setOutputDirectory(outputDirectory.getAbsolutePath());
+            parser.setInputManifest(new InputManifest(manifestFile));
+            parser.parse();
+
+            Map<String, String> csvFiles = new TreeMap<String, String>();
+            for (File f : outputDirectory.listFiles()) {
+                csvFiles.put(f.getName(), new String(Files.readAllBytes(f.toPath()), "UTF-8"));
+            }
+            if (run < 2) {
+                assertEquals(expected, csvFiles);
+            } else {
+                assertEquals(sortRows(expected), sortRows(csvFiles));
+            }
+        }
+        readOutput(outputDirectory);
+        readOutput(manifestDirectory);
+        readOutput(dumps);
+    }
+
+    public void testDelta() throws Exception
+    {
+        File oldDumps = createOutputDirectory();
+        File newDumps = createOutputDirectory();
+        for (File f : new File(getDumpsDirectory()).listFiles()) {
+            Files.copy(f.toPath(), new File(oldDumps, f.getName()).toPath());
+            String dump = new String(Files.readAllBytes(f.toPath()), "UTF-8");
+            dump = dump.replace("\"CELLID\" value=\"1\"", "\"CELLID\" value=\"3\"")
+                    .replace("\"EXTRA\" value=\"x\"", "\"EXTRA\" value=\"y\"");
+            //The timestamp of the new dump differs
+            Files.write(new File(newDumps, f.getName().replace("_2018", "_2019")).toPath(),
+                    dump.getBytes("UTF-8"));
+        }
+
+        File outputDirectory = createOutputDirectory();
+        SnapshotDelta delta = new SnapshotDelta(oldDumps.getAbsolutePath(),
+                newDumps.getAbsolutePath(), outputDirectory.getAbsolutePath());
+        delta.run();
+
+        Map<String, String> csvFiles = readOutput(outputDirectory);
+        assertEquals(1, delta.getAdded());
+        assertEquals(1, delta.getRemoved());
+        assertEquals(1, delta.getModified());
+        assertEquals(1, delta.getParameterChanges());
+        assertEquals("CHANGE,NE,KEY,PARAMETER,OLD_VALUE,NEW_VALUE\n"
+                + "ADDED,GExport_RNC1_10.0.0.2,CELLID=3,CELLID,,3\n"
+                + "ADDED,GExport_RNC1_10.0.0.2,CELLID=3,CELLNAME,,\"Cell, \"\"one\"\"\"\n"
+                + "ADDED,GExport_RNC1_10.0.0.2,CELLID=3,SW_A,,1\n"
+                + "ADDED,GExport_RNC1_10.0.0.2,CELLID=3,SW_B,,0\n"
+                + "REMOVED,GExport_RNC1_10.0.0.2,CELLID=1,CELLID,1,\n"
+                + "REMOVED,GExport_RNC1_10.0.0.2,CELLID=1,CELLNAME,\"Cell, \"\"one\"\"\",\n"
+                + "REMOVED,GExport_RNC1_10.0.0.2,CELLID=1,SW_A,1,\n"
+                + "REMOVED,GExport_RNC1_10.0.0.2,CELLID=1,SW_B,0,\n"
+                + "MODIFIED,GExport_RNC1_10.0.0.2,CELLID=2,EXTRA,x,y\n",
+                csvFiles.get("UCELL_BSC6900UMTS.csv"));
+        assertEquals(1, csvFiles.size());
+        readOutput(oldDumps);
+        readOutput(newDumps);
+    }
+
+    public void testDeltaReorderedClasses() throws Exception
+    {
+        File newDumps = createOutputDirectory();
+        for (File f : new File(getDumpsDirectory()).listFiles()) {
+            String dump = new String(Files.readAllBytes(f.toPath()), "UTF-8");
+            //Move the last class of the RNC before the first one
+            int first = dump.indexOf("<class name=\"UCELL_BSC6900UMTS\">");
+            int last = dump.indexOf("<class name=\"MONAME_BSC6900GSM\">");
+            if (f.getName().startsWith("GExport_RNC1")) {
+                int end = dump.indexOf("</class>", last) + "</class>".length();
+                dump = dump.substring(0, first) + dump.substring(last, end) + "\n"
+                        + dump.substring(first, last) + dump.substring(end);
+            }
+            Files.write(new File(newDumps, f.getName()).toPath(), dump.getBytes("UTF-8"));
+        }
+
+        File outputDirectory = createOutputDirectory();
+        SnapshotDelta delta = new SnapshotDelta(getDumpsDirectory(),
+                newDumps.getAbsolutePath(), outputDirectory.getAbsolutePath());
+        delta.run();
+
+        assertTrue(readOutput(outputDirectory).isEmpty());
+        assertEquals(0, delta.getAdded());
+        assertEquals(0, delta.getRemoved());
+        assertEquals(0, delta.getModified());
+        assertEquals(MO_INSTANCES, delta.getUnchanged());
+        readOutput(newDumps);
+    }
+}
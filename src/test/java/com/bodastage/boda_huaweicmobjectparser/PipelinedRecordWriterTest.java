@@ -0,0 +1,121 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Passes records to a listener on the writer thread.
+ */
+public class PipelinedRecordWriterTest
+    extends TestCase
+{
+    public PipelinedRecordWriterTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PipelinedRecordWriterTest.class );
+    }
+
+    public void testRecordsInOrder() throws Exception
+    {
+        final List<String> values = new ArrayList<String>();
+        PipelinedRecordWriter writer = createWriter(new MORecordListener() {
+            public void record(MORecord record) {
+                values.add(record.getValue(0));
+            }
+        });
+
+        int count = PipelinedRecordWriter.BATCH_SIZE * PipelinedRecordWriter.BATCHES * 3 + 1;
+        for (int i = 0; i < count; i++) {
+            writer.record(createRecord(String.valueOf(i)));
+        }
+        writer.flush();
+        assertEquals(count, values.size());
+        assertEquals("0", values.get(0));
+        assertEquals(String.valueOf(count - 1), values.get(count - 1));
+        writer.close();
+    }
+
+    public void testListenerException() throws Exception
+    {
+        PipelinedRecordWriter writer = createWriter(new MORecordListener() {
+            public void record(MORecord record) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+
+        try {
+            writeUntilError(writer);
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        try {
+            writer.close();
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    public void testWriterThreadError() throws Exception
+    {
+        PipelinedRecordWriter writer = createWriter(new MORecordListener() {
+            public void record(MORecord record) {
+                throw new OutOfMemoryError("test");
+            }
+        });
+
+        try {
+            writeUntilError(writer);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof OutOfMemoryError);
+        }
+        try {
+            writer.close();
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof OutOfMemoryError);
+        }
+    }
+
+    /**
+     * Write records and flush until the writer thread's error is thrown.
+     */
+    private static void writeUntilError(PipelinedRecordWriter writer) throws IOException
+    {
+        MORecord record = createRecord("1");
+        for (int i = 0; i < PipelinedRecordWriter.BATCH_SIZE * PipelinedRecordWriter.BATCHES * 4; i++) {
+            writer.record(record);
+        }
+        writer.flush();
+    }
+
+    private static PipelinedRecordWriter createWriter(MORecordListener listener)
+    {
+        RunMetrics metrics = new RunMetrics();
+        return new PipelinedRecordWriter(listener, metrics.getStage("write"),
+                metrics.getStage("parse"));
+    }
+
+    private static MORecord createRecord(String value)
+    {
+        MOColumns columns = new MOColumns(Arrays.asList("CELLID"));
+        MOInstance moi = new MOInstance();
+        moi.setClass("GCELL", columns, false);
+        moi.put("CELLID", value, false);
+
+        MORecord record = new MORecord();
+        record.setInstance("GCELL", columns, moi);
+        return record;
+    }
+}
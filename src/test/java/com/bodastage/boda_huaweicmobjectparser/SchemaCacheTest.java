@@ -0,0 +1,66 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Saves and loads schema cache files.
+ */
+public class SchemaCacheTest
+    extends TestCase
+{
+    public SchemaCacheTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SchemaCacheTest.class );
+    }
+
+    public void testEscape()
+    {
+        assertEquals("GCELL", SchemaCache.escape("GCELL"));
+        assertEquals("A%2CB%09C%0A%0D%25", SchemaCache.escape("A,B\tC\n\r%"));
+        assertEquals("A,B\tC\n\r%", SchemaCache.unescape("A%2CB%09C%0A%0D%25"));
+        assertEquals("50%", SchemaCache.unescape("50%"));
+    }
+
+    public void testSaveAndLoadSeparators() throws Exception
+    {
+        File file = File.createTempFile("schema_cache_", ".gz");
+        file.delete();
+
+        String key = SchemaCache.getKey("BSC\t6900", "V900,R019");
+        SchemaCache cache = new SchemaCache(file.getAbsolutePath());
+        cache.addMOColumns(key, "GCELL,1", Arrays.asList("A,B", "C\tD", "E%F"));
+        Stack<String> children = new Stack<String>();
+        children.push("BIT,1");
+        children.push("BIT2");
+        cache.addParameterChildren(key, "GCELL,1_SW", children);
+        cache.save();
+
+        SchemaCache loaded = new SchemaCache(file.getAbsolutePath());
+        loaded.load();
+        assertTrue(loaded.isCached(key));
+
+        Map<String, MOColumns> moColumns = new LinkedHashMap<String, MOColumns>();
+        Map<String, Stack<String>> parameterChildMap = new LinkedHashMap<String, Stack<String>>();
+        loaded.mergeInto(key, moColumns, parameterChildMap);
+        assertEquals(Arrays.asList("GCELL,1"), Arrays.asList(moColumns.keySet().toArray()));
+        MOColumns columns = moColumns.get("GCELL,1");
+        assertEquals(3, columns.size());
+        assertEquals("A,B", columns.get(0));
+        assertEquals("C\tD", columns.get(1));
+        assertEquals("E%F", columns.get(2));
+        assertEquals(children, parameterChildMap.get("GCELL,1_SW"));
+        file.delete();
+    }
+}
@@ -0,0 +1,150 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.nio.charset.Charset;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Looks names and values up in a symbol table.
+ */
+public class SymbolTableTest
+    extends TestCase
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    public SymbolTableTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SymbolTableTest.class );
+    }
+
+    public void testAsciiNames()
+    {
+        SymbolTable table = new SymbolTable(false);
+        byte[] buf = "<GCELL><GCELL>".getBytes(UTF_8);
+        String first = table.name(buf, 1, 6, UTF_8);
+        String second = table.name(buf, 8, 13, UTF_8);
+        assertEquals("GCELL", first);
+        assertSame(first, second);
+        assertEquals(1, table.size());
+        assertEquals(1, table.getHits());
+        assertEquals(1, table.getMisses());
+        assertEquals(SymbolTable.stringSize(5), table.getBytesSaved());
+    }
+
+    public void testNonAsciiNames()
+    {
+        SymbolTable table = new SymbolTable(false);
+        byte[] utf8 = "CELL\u00C4".getBytes(UTF_8);
+        byte[] latin1 = "CELL\u00C4".getBytes(ISO_8859_1);
+        String first = table.name(utf8, 0, utf8.length, UTF_8);
+        assertEquals("CELL\u00C4", first);
+        assertSame(first, table.name(utf8, 0, utf8.length, UTF_8));
+        assertSame(first, table.name(latin1, 0, latin1.length, ISO_8859_1));
+        assertEquals(1, table.size());
+        assertEquals(2, table.getHits());
+    }
+
+    public void testUpperCase()
+    {
+        SymbolTable table = new SymbolTable(false);
+        byte[] buf = "gcellGCELL".getBytes(UTF_8);
+        String lower = table.name(buf, 0, 5, UTF_8);
+        String upper = table.upperCase(lower);
+        assertEquals("GCELL", upper);
+        assertSame(upper, table.upperCase(lower));
+        assertSame(upper, table.name(buf, 5, 10, UTF_8));
+    }
+
+    public void testValuesNotDeduplicatedByDefault()
+    {
+        SymbolTable table = new SymbolTable(false);
+        assertFalse(table.isDedupValues());
+        byte[] buf = "ENABLE".getBytes(UTF_8);
+        String first = table.value(buf, 0, buf.length, UTF_8);
+        assertEquals("ENABLE", first);
+        assertNotSame(first, table.value(buf, 0, buf.length, UTF_8));
+        assertEquals(0, table.size());
+    }
+
+    public void testValueLengthLimit()
+    {
+        SymbolTable table = new SymbolTable(true);
+        byte[] longest = repeat('A', SymbolTable.MAX_VALUE_LENGTH).getBytes(UTF_8);
+        String value = table.value(longest, 0, longest.length, UTF_8);
+        assertSame(value, table.value(longest, 0, longest.length, UTF_8));
+
+        byte[] tooLong = repeat('B', SymbolTable.MAX_VALUE_LENGTH + 1).getBytes(UTF_8);
+        value = table.value(tooLong, 0, tooLong.length, UTF_8);
+        assertEquals(SymbolTable.MAX_VALUE_LENGTH + 1, value.length());
+        assertNotSame(value, table.value(tooLong, 0, tooLong.length, UTF_8));
+        assertEquals(1, table.size());
+    }
+
+    public void testValueCountLimit()
+    {
+        SymbolTable table = new SymbolTable(true);
+        for (int i = 0; i < SymbolTable.MAX_VALUES; i++) {
+            byte[] buf = Integer.toString(i).getBytes(UTF_8);
+            table.value(buf, 0, buf.length, UTF_8);
+        }
+        assertEquals(SymbolTable.MAX_VALUES, table.size());
+
+        byte[] kept = "0".getBytes(UTF_8);
+        assertSame(table.value(kept, 0, 1, UTF_8), table.value(kept, 0, 1, UTF_8));
+
+        byte[] dropped = "X".getBytes(UTF_8);
+        String value = table.value(dropped, 0, 1, UTF_8);
+        assertEquals("X", value);
+        assertNotSame(value, table.value(dropped, 0, 1, UTF_8));
+        assertEquals(SymbolTable.MAX_VALUES, table.size());
+    }
+
+    public void testGrowth()
+    {
+        SymbolTable table = new SymbolTable(false);
+        String[] names = new String[5000];
+        for (int i = 0; i < names.length; i++) {
+            byte[] buf = ("PARAM" + i).getBytes(UTF_8);
+            names[i] = table.name(buf, 0, buf.length, UTF_8);
+        }
+        assertEquals(names.length, table.size());
+
+        for (int i = 0; i < names.length; i++) {
+            byte[] buf = ("PARAM" + i).getBytes(UTF_8);
+            assertSame(names[i], table.name(buf, 0, buf.length, UTF_8));
+        }
+        assertEquals(names.length, table.getHits());
+        assertEquals(names.length, table.getMisses());
+        assertTrue(table.getRetainedBytes() >= names.length * SymbolTable.stringSize(5));
+    }
+
+    public void testAddCounters()
+    {
+        SymbolTable table = new SymbolTable(true);
+        SymbolTable other = new SymbolTable(true);
+        byte[] buf = "ON".getBytes(UTF_8);
+        other.value(buf, 0, 2, UTF_8);
+        other.value(buf, 0, 2, UTF_8);
+        table.addCounters(other);
+        assertEquals(1, table.getHits());
+        assertEquals(1, table.getMisses());
+        assertEquals(SymbolTable.stringSize(2), table.getBytesSaved());
+    }
+
+    private static String repeat(char c, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.bodastage.boda_huaweicmobjectparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Reads ustar, GNU and pax tar entries.
+ */
+public class TarInputStreamTest
+    extends TestCase
+{
+    public TarInputStreamTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TarInputStreamTest.class );
+    }
+
+    public void testUstarPrefix() throws Exception
+    {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "dumps/2026", "GExport_BSC1.xml", '0', "<xml/>".getBytes("UTF-8"));
+        writeEntry(tar, null, "GExport_BSC2.xml", '0', "<a/>".getBytes("UTF-8"));
+        finish(tar);
+
+        TarInputStream in = open(tar);
+        assertEquals("dumps/2026/GExport_BSC1.xml", in.getNextEntry());
+        assertEquals(6, in.getEntrySize());
+        assertEquals("<xml/>", readEntry(in));
+        assertEquals("GExport_BSC2.xml", in.getNextEntry());
+        assertEquals("<a/>", readEntry(in));
+        assertNull(in.getNextEntry());
+    }
+
+    public void testGnuLongName() throws Exception
+    {
+        String longName = repeat("d/", 80) + "GExport_BSC1.xml";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, null, "././@LongLink", 'L', (longName + "\0").getBytes("UTF-8"));
+        writeEntry(tar, null, longName.substring(0, 99), '0', "<xml/>".getBytes("UTF-8"));
+        writeEntry(tar, null, "next.xml", '0', new byte[0]);
+        finish(tar);
+
+        TarInputStream in = open(tar);
+        assertEquals(longName, in.getNextEntry());
+        assertEquals("<xml/>", readEntry(in));
+        assertEquals("next.xml", in.getNextEntry());
+        assertNull(in.getNextEntry());
+    }
+
+    public void testPaxPath() throws Exception
+    {
+        String path = repeat("p/", 80) + "GExport_BSC1.xml";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, null, "PaxHeaders/x", 'x',
+                (paxRecord("mtime=1.5") + paxRecord("path=" + path)).getBytes("UTF-8"));
+        writeEntry(tar, null, "short.xml", '0', "<xml/>".getBytes("UTF-8"));
+        finish(tar);
+
+        TarInputStream in = open(tar);
+        assertEquals(path, in.getNextEntry());
+        assertEquals("<xml/>", readEntry(in));
+        assertNull(in.getNextEntry());
+    }
+
+    public void testInvalidPaxHeader() throws Exception
+    {
+        String[] headers = {
+            "x path=a\n",
+            "0 path=a\n",
+            "3 path=a\n",
+            "99 path=a\n",
+            "9 path=ab",
+            "8 mtime=1\n",
+            "path=a\n",
+        };
+        for (String header : headers) {
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            writeEntry(tar, null, "PaxHeaders/x", 'x', header.getBytes("UTF-8"));
+            writeEntry(tar, null, "a.xml", '0', new byte[0]);
+            finish(tar);
+
+            try {
+                open(tar).getNextEntry();
+                fail("Accepted " + header);
+            } catch (IOException e) {
+                assertEquals("Invalid pax header", e.getMessage());
+            }
+        }
+    }
+
+    private static TarInputStream open(ByteArrayOutputStream tar)
+    {
+        return new TarInputStream(new ByteArrayInputStream(tar.toByteArray()));
+    }
+
+    private static String readEntry(TarInputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[100];
+        for (int n; (n = in.read(buffer, 0, buffer.length)) != -1;) {
+            out.write(buffer, 0, n);
+        }
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * A pax record whose length includes its own digits.
+     */
+    private static String paxRecord(String keyValue)
+    {
+        int length = keyValue.length() + 3;
+        while (String.valueOf(length).length() + keyValue.length() + 2 != length) {
+            length++;
+        }
+        return length + " " + keyValue + "\n";
+    }
+
+    private static String repeat(String s, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write a ustar header and the padded data of an entry.
+     */
+    private static void writeEntry(ByteArrayOutputStream out, String prefix, String name,
+            char type, byte[] data) throws IOException
+    {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", data.length));
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        if (prefix != null) {
+            put(header, 345, prefix);
+        }
+        out.write(header);
+        out.write(data);
+        out.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void finish(ByteArrayOutputStream out) throws IOException
+    {
+        out.write(new byte[1024]);
+    }
+
+    private static void put(byte[] header, int offset, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes("UTF-8");
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}